@@ -5,8 +5,12 @@
 //  Created by Kota Iguchi on 11/30/13.
 //  Copyright (c) 2013 Appcelerator, Inc. All rights reserved.
 //
+#include <stdio.h>
 #include <stdlib.h>
 #include <string.h>
+#include <stdint.h>
+#include <time.h>
+#include <pthread.h>
 #include <JavaScriptCore/JSBase.h>
 #include <JavaScriptCore/JSContextRef.h>
 #include <JavaScriptCore/JSStringRef.h>
@@ -17,6 +21,7 @@
 #ifdef ENABLE_JAVASCRIPTCORE_PRIVATE_API
 #include "JavaScriptCore/JSObjectRefPrivate.h"
 #include "JavaScriptCore/JSContextRefPrivate.h"
+#include "JavaScriptCore/JSScriptRefPrivate.h"
 #endif
 
 #define JSCORE_LOG_TAG "JavaScriptCore"
@@ -37,44 +42,281 @@
 #endif
 
 /*
- * Get JNIEnv* from JVM
+ * Debug log is too expensive to leave on every entry point, define JSCORE_DEBUG_LOG to enable it
  */
-#define JNI_ENV_ENTER \
-JNIEnv* env = NULL;\
-bool jvm_attached = false;\
-if (jvm != NULL) {\
-    jint jvm_attach_status = (*jvm)->GetEnv(jvm, (void**)&env, JNI_VERSION_1_6);\
-    if (jvm_attach_status == JNI_EDETACHED) {\
-        jvm_attach_status = (*jvm)->AttachCurrentThread(jvm, (void**)&env, NULL);\
-        if (jvm_attach_status == JNI_OK){\
-            jvm_attached = true;\
-        }\
-    }\
+#ifndef JSCORE_DEBUG_LOG
+#undef  LOGD
+#define LOGD(...)
+#endif
+
+#ifdef __APPLE__
+#include <mach/mach_time.h>
+#endif
+
+/*
+ * Native call statistics
+ *
+ * Every JNI entry point and JavaScriptCore callback is listed here once. The list is expanded
+ * into the entry point ids and into the names handed to Java by NativeGetNativeStatsNames.
+ */
+#define JNI_STATS_ENTRIES \
+    JNI_STATS_ENTRY(JSObjectInitializeCallback) \
+    JNI_STATS_ENTRY(JSObjectFinalizeCallback) \
+    JNI_STATS_ENTRY(JSObjectGetStaticValueCallback) \
+    JNI_STATS_ENTRY(JSObjectSetStaticValueCallback) \
+    JNI_STATS_ENTRY(JSObjectGetPropertyCallback) \
+    JNI_STATS_ENTRY(JSObjectSetPropertyCallback) \
+    JNI_STATS_ENTRY(JSObjectCallAsConstructorCallback) \
+    JNI_STATS_ENTRY(JSObjectMakeConstructorCallback) \
+    JNI_STATS_ENTRY(JSObjectMakeFunctionCallback) \
+    JNI_STATS_ENTRY(JSObjectCallAsFunctionCallback) \
+    JNI_STATS_ENTRY(JSObjectStaticFunctionCallback) \
+    JNI_STATS_ENTRY(JSObjectConvertToTypeCallback) \
+    JNI_STATS_ENTRY(JSObjectDeletePropertyCallback) \
+    JNI_STATS_ENTRY(JSObjectGetPropertyNamesCallback) \
+    JNI_STATS_ENTRY(JSObjectHasInstanceCallback) \
+    JNI_STATS_ENTRY(JSObjectHasPropertyCallback) \
+    JNI_STATS_ENTRY(JSClassCreate) \
+    JNI_STATS_ENTRY(JSObjectMake) \
+    JNI_STATS_ENTRY(JSObjectGetPrivate) \
+    JNI_STATS_ENTRY(JSObjectSetPrivate) \
+    JNI_STATS_ENTRY(JSContextGroupCreate) \
+    JNI_STATS_ENTRY(JSContextGroupRelease) \
+    JNI_STATS_ENTRY(JSContextGroupRetain) \
+    JNI_STATS_ENTRY(JSContextGetGlobalObject) \
+    JNI_STATS_ENTRY(JSContextGetGroup) \
+    JNI_STATS_ENTRY(JSGlobalContextCreate) \
+    JNI_STATS_ENTRY(JSGlobalContextCreateInGroup) \
+    JNI_STATS_ENTRY(JSGlobalContextRelease) \
+    JNI_STATS_ENTRY(JSGlobalContextRetain) \
+    JNI_STATS_ENTRY(JSEvaluateScriptShort) \
+    JNI_STATS_ENTRY(JSEvaluateScriptFull) \
+    JNI_STATS_ENTRY(JSCheckScriptSyntax) \
+    JNI_STATS_ENTRY(JSGarbageCollect) \
+    JNI_STATS_ENTRY(JSValueMakeUndefined) \
+    JNI_STATS_ENTRY(JSValueMakeNull) \
+    JNI_STATS_ENTRY(JSValueMakeNumber) \
+    JNI_STATS_ENTRY(JSValueMakeBoolean) \
+    JNI_STATS_ENTRY(JSValueIsObjectOfClass) \
+    JNI_STATS_ENTRY(JSValueIsInstanceOfConstructor) \
+    JNI_STATS_ENTRY(JSValueIsUndefined) \
+    JNI_STATS_ENTRY(JSValueIsNull) \
+    JNI_STATS_ENTRY(JSValueIsNumber) \
+    JNI_STATS_ENTRY(JSValueIsBoolean) \
+    JNI_STATS_ENTRY(JSValueIsString) \
+    JNI_STATS_ENTRY(JSValueIsObject) \
+    JNI_STATS_ENTRY(JSValueToBoolean) \
+    JNI_STATS_ENTRY(JSValueToNumber) \
+    JNI_STATS_ENTRY(JSValueToObject) \
+    JNI_STATS_ENTRY(JSValueMakeFromJSONString) \
+    JNI_STATS_ENTRY(JSValueToStringCopy) \
+    JNI_STATS_ENTRY(JSValueIsEqual) \
+    JNI_STATS_ENTRY(JSValueIsStrictEqual) \
+    JNI_STATS_ENTRY(JSValueProtect) \
+    JNI_STATS_ENTRY(JSValueUnprotect) \
+    JNI_STATS_ENTRY(JSValueCreateJSONString) \
+    JNI_STATS_ENTRY(JSValueMakeString) \
+    JNI_STATS_ENTRY(JSValueGetType) \
+    JNI_STATS_ENTRY(JSObjectCallAsConstructor) \
+    JNI_STATS_ENTRY(JSObjectCallAsFunction) \
+    JNI_STATS_ENTRY(JSObjectSetProperty) \
+    JNI_STATS_ENTRY(JSObjectGetProperty) \
+    JNI_STATS_ENTRY(JSClassRelease) \
+    JNI_STATS_ENTRY(JSClassRetain) \
+    JNI_STATS_ENTRY(JSPropertyNameArrayGetCount) \
+    JNI_STATS_ENTRY(JSPropertyNameArrayGetNameAtIndex) \
+    JNI_STATS_ENTRY(JSPropertyNameArrayRelease) \
+    JNI_STATS_ENTRY(JSPropertyNameArrayRetain) \
+    JNI_STATS_ENTRY(JSPropertyNameAccumulatorAddName) \
+    JNI_STATS_ENTRY(JSObjectSetPropertyAtIndex) \
+    JNI_STATS_ENTRY(JSObjectSetPrototype) \
+    JNI_STATS_ENTRY(JSObjectIsConstructor) \
+    JNI_STATS_ENTRY(JSObjectIsFunction) \
+    JNI_STATS_ENTRY(JSObjectCopyPropertyNames) \
+    JNI_STATS_ENTRY(JSObjectDeleteProperty) \
+    JNI_STATS_ENTRY(JSObjectGetPropertyAtIndex) \
+    JNI_STATS_ENTRY(JSObjectGetPrototype) \
+    JNI_STATS_ENTRY(JSObjectHasProperty) \
+    JNI_STATS_ENTRY(JSObjectMakeArray) \
+    JNI_STATS_ENTRY(JSObjectMakeDate) \
+    JNI_STATS_ENTRY(JSObjectMakeError) \
+    JNI_STATS_ENTRY(JSObjectMakeRegExp) \
+    JNI_STATS_ENTRY(JSObjectMakeFunction) \
+    JNI_STATS_ENTRY(JSObjectMakeConstructor) \
+    JNI_STATS_ENTRY(JSObjectMakeFunctionWithCallback) \
+    JNI_STATS_ENTRY(JSContextGetGlobalContext) \
+    JNI_STATS_ENTRY(JSContextCreateBacktrace) \
+    JNI_STATS_ENTRY(JSObjectSetPrivateProperty) \
+    JNI_STATS_ENTRY(JSObjectGetPrivateProperty) \
+    JNI_STATS_ENTRY(JSObjectDeletePrivateProperty) \
+    JNI_STATS_ENTRY(JSStringCreate) \
+    JNI_STATS_ENTRY(JSStringRelease) \
+    JNI_STATS_ENTRY(JSObjectSetPropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectGetPropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectHasPropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectDeletePropertyWithName) \
+    JNI_STATS_ENTRY(JSPropertyNameAccumulatorAddNameWithName) \
+    JNI_STATS_ENTRY(JSObjectSetPrivatePropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectGetPrivatePropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectDeletePrivatePropertyWithName) \
+    JNI_STATS_ENTRY(JSObjectGetProperties) \
+    JNI_STATS_ENTRY(JSObjectGetPropertiesWithNames) \
+    JNI_STATS_ENTRY(JSObjectSetProperties) \
+    JNI_STATS_ENTRY(JSObjectSetPropertiesWithNames) \
+    JNI_STATS_ENTRY(JSObjectMakeArrayFromDoubleArray) \
+    JNI_STATS_ENTRY(JSObjectMakeArrayFromIntArray) \
+    JNI_STATS_ENTRY(JSObjectMakeArrayFromLongArray) \
+    JNI_STATS_ENTRY(JSObjectToDoubleArray) \
+    JNI_STATS_ENTRY(JSObjectToIntArray) \
+    JNI_STATS_ENTRY(JSObjectToLongArray) \
+    JNI_STATS_ENTRY(JSTypedArrayGetPropertyCallback) \
+    JNI_STATS_ENTRY(JSTypedArraySetPropertyCallback) \
+    JNI_STATS_ENTRY(JSObjectMakeTypedArrayWithBuffer) \
+    JNI_STATS_ENTRY(JSObjectGetTypedArrayBuffer) \
+    JNI_STATS_ENTRY(JSObjectGetTypedArrayType) \
+    JNI_STATS_ENTRY(JSScriptCreateFromString) \
+    JNI_STATS_ENTRY(JSScriptRetain) \
+    JNI_STATS_ENTRY(JSScriptRelease) \
+    JNI_STATS_ENTRY(JSScriptEvaluate) \
+    JNI_STATS_ENTRY(JSScriptCreateReferencingImmortalASCIIText) \
+    JNI_STATS_ENTRY(JSValueUnbox) \
+    JNI_STATS_ENTRY(JSValueUnprotectValues) \
+    JNI_STATS_ENTRY(JSContextGroupSetExecutionTimeLimit) \
+    JNI_STATS_ENTRY(JSContextGroupClearExecutionTimeLimit) \
+    JNI_STATS_ENTRY(JSShouldTerminateCallback)
+
+#define JNI_STATS_ENTRY(name) JNI_STATS_ID_##name,
+typedef enum {
+    JNI_STATS_ENTRIES
+    JNI_STATS_ID_COUNT
+} JNIStatsId;
+#undef JNI_STATS_ENTRY
+
+#define JNI_STATS_ENTRY(name) #name,
+static const char* jniStatsNames[JNI_STATS_ID_COUNT] = {
+    JNI_STATS_ENTRIES
+};
+#undef JNI_STATS_ENTRY
+
+/* Bucket n counts the calls that took [2^(n-1), 2^n) nanoseconds, the last bucket takes the rest */
+#define JNI_STATS_HISTOGRAM_BUCKETS 32
+
+/*
+ * Counters are owned by one thread at a time and written without any lock.
+ * Slots are pushed to the global list once and never freed, so the aggregator can
+ * walk the list at any time. When a thread exits its slot is handed over to the next new thread.
+ */
+typedef struct JNIStatsThreadSlot {
+    uint64_t calls[JNI_STATS_ID_COUNT];
+    uint64_t nanos[JNI_STATS_ID_COUNT];
+    uint64_t histogram[JNI_STATS_ID_COUNT][JNI_STATS_HISTOGRAM_BUCKETS];
+    struct JNIStatsThreadSlot* next;
+    volatile int owned;
+} JNIStatsThreadSlot;
+
+typedef struct {
+    JNIStatsThreadSlot* slot;
+    JNIStatsId id;
+    uint64_t start;
+} JNIStatsScope;
+
+static volatile int jniStatsEnabled = 0;
+static JNIStatsThreadSlot* volatile jniStatsSlots = NULL;
+static pthread_key_t  jniStatsSlotKey;
+static pthread_once_t jniStatsSlotKeyOnce = PTHREAD_ONCE_INIT;
+
+static uint64_t JNIStatsNow()
+{
+#ifdef __APPLE__
+    static mach_timebase_info_data_t timebase;
+    if (timebase.denom == 0) mach_timebase_info(&timebase);
+    return mach_absolute_time() * timebase.numer / timebase.denom;
+#else
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (uint64_t)now.tv_sec * 1000000000ULL + (uint64_t)now.tv_nsec;
+#endif
 }
 
-#define JNI_ENV_EXIT \
-if (jvm_attached) {\
-    (*jvm)->DetachCurrentThread(jvm);\
-}\
-env = NULL;
+static void JNIStatsReleaseThreadSlot(void* slot)
+{
+    __sync_lock_release(&((JNIStatsThreadSlot*)slot)->owned);
+}
 
-/* 
- *  Create char* from JSStringRef
- * (varout char should be freed later)
+static void JNIStatsCreateThreadSlotKey()
+{
+    pthread_key_create(&jniStatsSlotKey, JNIStatsReleaseThreadSlot);
+}
+
+static JNIStatsThreadSlot* JNIStatsGetThreadSlot()
+{
+    JNIStatsThreadSlot* slot = (JNIStatsThreadSlot*)pthread_getspecific(jniStatsSlotKey);
+    if (slot != NULL) return slot;
+
+    for (slot = jniStatsSlots; slot != NULL; slot = slot->next) {
+        if (__sync_bool_compare_and_swap(&slot->owned, 0, 1)) break;
+    }
+    if (slot == NULL) {
+        slot = (JNIStatsThreadSlot*)calloc(1, sizeof(JNIStatsThreadSlot));
+        if (slot == NULL) return NULL;
+        slot->owned = 1;
+        do {
+            slot->next = jniStatsSlots;
+        } while (!__sync_bool_compare_and_swap(&jniStatsSlots, slot->next, slot));
+    }
+    pthread_setspecific(jniStatsSlotKey, slot);
+    return slot;
+}
+
+static inline JNIStatsScope JNIStatsScopeEnter(JNIStatsId id)
+{
+    JNIStatsScope scope = { NULL, id, 0 };
+    if (jniStatsEnabled) {
+        scope.slot = JNIStatsGetThreadSlot();
+        if (scope.slot != NULL) scope.start = JNIStatsNow();
+    }
+    return scope;
+}
+
+static inline void JNIStatsScopeExit(JNIStatsScope* scope)
+{
+    if (scope->slot == NULL) return;
+    uint64_t elapsed = JNIStatsNow() - scope->start;
+    int bucket = elapsed == 0 ? 0 : 64 - __builtin_clzll(elapsed);
+    if (bucket >= JNI_STATS_HISTOGRAM_BUCKETS) bucket = JNI_STATS_HISTOGRAM_BUCKETS - 1;
+    scope->slot->calls[scope->id]++;
+    scope->slot->nanos[scope->id] += elapsed;
+    scope->slot->histogram[scope->id][bucket]++;
+}
+
+/*
+ * Record the call of the entry point until the end of the enclosing scope.
+ * Costs one flag check while statistics are disabled, define JSCORE_DISABLE_NATIVE_STATS to remove it entirely.
+ */
+#ifdef JSCORE_DISABLE_NATIVE_STATS
+#define JNI_STATS_ENTER(name) LOGD(#name)
+#else
+#define JNI_STATS_ENTER(name) \
+LOGD(#name)\
+JNIStatsScope jni_stats_scope_##name __attribute__((cleanup(JNIStatsScopeExit))) = JNIStatsScopeEnter(JNI_STATS_ID_##name);
+#endif
+
+/*
+ * Get JNIEnv* from JVM. Threads that are not attached yet are attached once
+ * and stay attached until they exit (see GetJNIEnv).
  */
-#define CCHAR_FROM_JSSTRINGREF(varin, varout)\
-size_t length##varin = JSStringGetMaximumUTF8CStringSize(varin);\
-char* varout = (char*)malloc(length##varin);\
-JSStringGetUTF8CString(varin, varout, length##varin);\
+#define JNI_ENV_ENTER \
+JNIEnv* env = GetJNIEnv();
+
+#define JNI_ENV_EXIT \
+env = NULL;
 
 /* 
  * Create jstring from JSStringRef
- * (varcout char is freed)
+ * (UTF-16 characters are copied as they are without transcoding)
  */
-#define JSTRING_FROM_JSSTRINGREF(varin, varcout, varjout)\
-CCHAR_FROM_JSSTRINGREF(varin, varcout);\
-jstring varjout = (*env)->NewStringUTF(env, varcout);\
-free(varcout);
+#define JSTRING_FROM_JSSTRINGREF(varin, varjout)\
+jstring varjout = (*env)->NewString(env, (const jchar*)JSStringGetCharactersPtr(varin), (jsize)JSStringGetLength(varin));
 
 /* 
  * Create JSStringRef from jstring
@@ -83,11 +325,12 @@ free(varcout);
 #define JSSTRINGREF_FROM_JSTRING(varin, varout)\
 JSStringRef varout = NULL;\
 if(varin != NULL) {\
-    const char* aschars##varin = (*env)->GetStringUTFChars(env, varin, NULL);\
-    varout = JSStringCreateWithUTF8CString(aschars##varin);\
-    (*env)->ReleaseStringUTFChars(env, varin, aschars##varin);\
+    varout = JSStringCreateWithJavaString(env, varin);\
 }
 
+/* Strings up to this length are copied through the stack instead of pinning Java characters */
+#define JSSTRING_STACK_BUFFER_LENGTH 256
+
 #define JSSTRING_RELEASE(varin)\
 if (varin != NULL) JSStringRelease(varin);
 
@@ -109,6 +352,23 @@ extern "C" {
 
 static JavaVM* jvm;
 
+/* JNIEnv of native threads attached by GetJNIEnv, detached by the key destructor on thread exit */
+static pthread_key_t jniEnvKey;
+static volatile jlong jniThreadAttachCount = 0;
+
+/*
+ * Result of JSValueUnbox, stored to the direct buffer of the Java caller.
+ * Layout is shared with Java (JSValueDecoder.SLOT_*), do not change without updating it.
+ */
+typedef struct {
+    jint    type;
+    jint    boolean;
+    jdouble number;
+} JNIUnboxSlot;
+
+/* JSClassDefinition class for static callbacks */
+static jclass jclass_JSClassDefinition = NULL;
+
 static jmethodID jmethodId_JSObjectInitializeCallback = NULL;
 static jmethodID jmethodId_JSObjectFinalizeCallback = NULL;
 static jmethodID jmethodId_JSObjectGetStaticValueCallback = NULL;
@@ -124,19 +384,65 @@ static jmethodID jmethodId_JSObjectDeletePropertyCallback = NULL;
 static jmethodID jmethodId_JSObjectGetPropertyNamesCallback = NULL;
 static jmethodID jmethodId_JSObjectHasInstanceCallback = NULL;
 static jmethodID jmethodId_JSObjectHasPropertyCallback = NULL;
-static jmethodID jmethodId_JSValueRefUpdatePointerCallback = NULL;
 static jmethodID jmethodId_JSObjectStaticFunctionCallback = NULL;
+static jmethodID jmethodId_JSObjectStaticFunctionSlotCallback = NULL;
+static jmethodID jmethodId_JSObjectGetStaticValueSlotCallback = NULL;
+static jmethodID jmethodId_JSObjectSetStaticValueSlotCallback = NULL;
+static jmethodID jmethodId_JSShouldTerminateCallback = NULL;
 
 static JSClassDefinition jsClassDefinitionTemplate;
 static JSStaticValue     jsStaticValueTemplate;
 static JSStaticFunction  jsStaticFunctionTemplate;
 
+static void DetachCurrentThreadOnExit(void* env)
+{
+    if (jvm != NULL) (*jvm)->DetachCurrentThread(jvm);
+}
+
 jint JNI_OnLoad(JavaVM* vm, void* reserved)
 {
     jvm = vm;
+    if (pthread_key_create(&jniEnvKey, DetachCurrentThreadOnExit) != 0) {
+        return JNI_ERR;
+    }
+
+    JNIEnv* env = NULL;
+    if ((*vm)->GetEnv(vm, (void**)&env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+    // FindClass doesn't initialize the class, method ids are cached when JSClassDefinition is initialized
+    jclass clazz = (*env)->FindClass(env, "com/appcelerator/javascriptcore/opaquetypes/JSClassDefinition");
+    if (clazz == NULL) {
+        return JNI_ERR;
+    }
+    jclass_JSClassDefinition = (jclass)(*env)->NewGlobalRef(env, clazz);
+    JAVA_DELETE_LOCALREF(clazz);
+
     return JNI_VERSION_1_6;
 }
 
+/*
+ * Returns JNIEnv for current thread. Callbacks may arrive on threads that JVM doesn't know
+ * (such as GC finalizer or watchdog), those are attached as daemon for the rest of their lifetime
+ * so that the next callback doesn't have to attach again and JVM shutdown doesn't wait for them.
+ */
+static JNIEnv* GetJNIEnv()
+{
+    if (jvm == NULL) return NULL;
+
+    JNIEnv* env = (JNIEnv*)pthread_getspecific(jniEnvKey);
+    if (env != NULL) return env;
+
+    jint jvm_attach_status = (*jvm)->GetEnv(jvm, (void**)&env, JNI_VERSION_1_6);
+    if (jvm_attach_status == JNI_OK) return env;
+    if (jvm_attach_status != JNI_EDETACHED) return NULL;
+
+    if ((*jvm)->AttachCurrentThreadAsDaemon(jvm, (void**)&env, NULL) != JNI_OK) return NULL;
+    __sync_fetch_and_add(&jniThreadAttachCount, 1);
+    pthread_setspecific(jniEnvKey, env);
+    return env;
+}
+
 /*
  * Common functions
  */
@@ -161,50 +467,54 @@ static bool CacheClassDefinitionCallbackMethods(JNIEnv* env, jclass callbackClas
         jmethodId_JSObjectSetStaticValueCallback = (*env)->GetMethodID(
                 env, callbackClass, "JSObjectSetStaticValueCallback", "(JJLjava/lang/String;JJ)Z");
         jmethodId_JSObjectGetPropertyCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectGetPropertyCallback", "(JJLjava/lang/String;J)J");
+                env, callbackClass, "JSObjectGetPropertyCallback", "(JJLjava/lang/String;JI)J");
         jmethodId_JSObjectSetPropertyCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectSetPropertyCallback", "(JJLjava/lang/String;JJ)Z");
+                env, callbackClass, "JSObjectSetPropertyCallback", "(JJLjava/lang/String;JJI)Z");
         jmethodId_JSObjectCallAsConstructorCallback = (*env)->GetMethodID(
-                    env, callbackClass, "JSObjectCallAsConstructorCallback", "(JJILjava/nio/ByteBuffer;J)J");
+                    env, callbackClass, "JSObjectCallAsConstructorCallback", "(JJILjava/nio/ByteBuffer;JI)J");
         jmethodId_JSObjectCallAsFunctionCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectCallAsFunctionCallback", "(JJJILjava/nio/ByteBuffer;J)J");
+                env, callbackClass, "JSObjectCallAsFunctionCallback", "(JJJILjava/nio/ByteBuffer;JI)J");
         jmethodId_JSObjectStaticFunctionCallback = (*env)->GetMethodID(
                 env, callbackClass, "JSObjectStaticFunctionCallback", "(JJJILjava/nio/ByteBuffer;J)J");
         jmethodId_JSObjectConvertToTypeCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectConvertToTypeCallback", "(JJIJ)J");
+                env, callbackClass, "JSObjectConvertToTypeCallback", "(JJIJI)J");
         jmethodId_JSObjectDeletePropertyCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectDeletePropertyCallback", "(JJLjava/lang/String;J)Z");
+                env, callbackClass, "JSObjectDeletePropertyCallback", "(JJLjava/lang/String;JI)Z");
         jmethodId_JSObjectGetPropertyNamesCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectGetPropertyNamesCallback", "(JJJ)V");
+                env, callbackClass, "JSObjectGetPropertyNamesCallback", "(JJJI)V");
         jmethodId_JSObjectHasInstanceCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectHasInstanceCallback", "(JJJJ)Z");
+                env, callbackClass, "JSObjectHasInstanceCallback", "(JJJJI)Z");
         jmethodId_JSObjectHasPropertyCallback = (*env)->GetMethodID(
-                env, callbackClass, "JSObjectHasPropertyCallback", "(JJLjava/lang/String;)Z");
+                env, callbackClass, "JSObjectHasPropertyCallback", "(JJLjava/lang/String;I)Z");
         jmethodId_JSObjectMakeConstructorCallback = (*env)->GetStaticMethodID(
-                    env, callbackClass, "JSObjectMakeConstructorCallback", "(JJILjava/nio/ByteBuffer;J)J");
+                    env, callbackClass, "JSObjectMakeConstructorCallback", "(JJJILjava/nio/ByteBuffer;J)J");
         jmethodId_JSObjectMakeFunctionCallback = (*env)->GetStaticMethodID(
-                    env, callbackClass, "JSObjectMakeFunctionCallback", "(JJJILjava/nio/ByteBuffer;J)J");
+                    env, callbackClass, "JSObjectMakeFunctionCallback", "(JJJJILjava/nio/ByteBuffer;J)J");
+        jmethodId_JSObjectStaticFunctionSlotCallback = (*env)->GetStaticMethodID(
+                    env, callbackClass, "JSObjectStaticFunctionSlotCallback", "(JJJILjava/nio/ByteBuffer;JI)J");
+        jmethodId_JSObjectGetStaticValueSlotCallback = (*env)->GetStaticMethodID(
+                    env, callbackClass, "JSObjectGetStaticValueSlotCallback", "(JJJI)J");
+        jmethodId_JSObjectSetStaticValueSlotCallback = (*env)->GetStaticMethodID(
+                    env, callbackClass, "JSObjectSetStaticValueSlotCallback", "(JJJJI)Z");
+        jmethodId_JSShouldTerminateCallback = (*env)->GetStaticMethodID(
+                    env, callbackClass, "JSShouldTerminateCallback", "(JJ)Z");
     }
     return true;
 }
 
 /*
- * Update JSValueRef exception
+ * Store exception to the array passed by Java, { thrown, value }.
+ * Null value is stored when nothing is thrown, see JavaScriptCoreLibrary.checkException.
+ * The array is owned by the Java caller, so the result follows the Java thread even when
+ * a virtual thread is moved to another carrier thread.
  */
-static void UpdateJSValueExceptionPointer(JNIEnv* env, JSContextRef ctx, JSValueRef exceptionValue, jobject exceptionObj) {
-    // if Java object equals null, it's completely ok to ignore it
-    if (exceptionObj == NULL) return;
-    
-    jclass clazz = (*env)->FindClass(env, "com/appcelerator/javascriptcore/opaquetypes/JSValueRef");
-    
-    if (jmethodId_JSValueRefUpdatePointerCallback == NULL) {
-        jmethodId_JSValueRefUpdatePointerCallback = (*env)->GetMethodID(env, clazz, "UpdateJSValueRef", "(JJ)V");
-    }
-    JAVA_DELETE_LOCALREF(clazz);
-    if (jmethodId_JSValueRefUpdatePointerCallback != NULL) {
-        (*env)->CallVoidMethod(env, exceptionObj,
-                               jmethodId_JSValueRefUpdatePointerCallback, (jlong)ctx, (jlong)exceptionValue);
-    }
+static void UpdateJSValueExceptionOut(JNIEnv* env, jlongArray exceptionOut, JSContextRef ctx, JSValueRef exception)
+{
+    jlong store[2];
+    /* { 0, 0 } on success, Java reads the value only when thrown is set */
+    store[0] = exception != NULL ? 1 : 0;
+    store[1] = (jlong)exception;
+    (*env)->SetLongArrayRegion(env, exceptionOut, 0, 2, store);
 }
 
 static bool RegisterJSObjectCallback(JNIEnv* env, JSObjectRef object, jobject callback) {
@@ -219,6 +529,24 @@ static bool RegisterJSObjectCallback(JNIEnv* env, JSObjectRef object, jobject ca
     return false;
 }
 
+/*
+ * Create JSStringRef from UTF-16 characters of Java String
+ */
+static JSStringRef JSStringCreateWithJavaString(JNIEnv* env, jstring string)
+{
+    jsize length = (*env)->GetStringLength(env, string);
+    if (length <= JSSTRING_STACK_BUFFER_LENGTH) {
+        jchar buffer[JSSTRING_STACK_BUFFER_LENGTH];
+        (*env)->GetStringRegion(env, string, 0, length, buffer);
+        return JSStringCreateWithCharacters((const JSChar*)buffer, (size_t)length);
+    }
+    const jchar* chars = (*env)->GetStringCritical(env, string, NULL);
+    if (chars == NULL) return NULL;
+    JSStringRef jsstring = JSStringCreateWithCharacters((const JSChar*)chars, (size_t)length);
+    (*env)->ReleaseStringCritical(env, string, chars);
+    return jsstring;
+}
+
 /*
  * JavaScriptCore Callbacks
  */
@@ -229,7 +557,7 @@ static bool RegisterJSObjectCallback(JNIEnv* env, JSObjectRef object, jobject ca
  */
 static void NativeCallback_JSObjectInitializeCallback(JSContextRef ctx, JSObjectRef object)
 {
-    LOGD("JSObjectInitializeCallback");
+    JNI_STATS_ENTER(JSObjectInitializeCallback)
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback && prv->initialized == false)
@@ -250,7 +578,7 @@ static void NativeCallback_JSObjectInitializeCallback(JSContextRef ctx, JSObject
  */
 static void NativeCallback_JSObjectFinalizeCallback(JSObjectRef object)
 {
-    LOGD("JSObjectFinalizeCallback");
+    JNI_STATS_ENTER(JSObjectFinalizeCallback)
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv)
@@ -276,14 +604,14 @@ static void NativeCallback_JSObjectFinalizeCallback(JSObjectRef object)
 static JSValueRef NativeCallback_JSObjectGetStaticValueCallback(
     JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception)
 {
-    LOGD("JSObjectGetStaticValueCallback");
+    JNI_STATS_ENTER(JSObjectGetStaticValueCallback)
     JSValueRef value = NULL;
     
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         value = (JSValueRef)(*env)->CallLongMethod(env, prv->callback,
                                jmethodId_JSObjectGetStaticValueCallback,
                                (jlong)ctx, (jlong)object, jname, (jlong)exception);
@@ -297,14 +625,14 @@ static JSValueRef NativeCallback_JSObjectGetStaticValueCallback(
 static bool NativeCallback_JSObjectSetStaticValueCallback(
     JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef value, JSValueRef* exception)
 {
-    LOGD("JSObjectSetStaticValueCallback");
+    JNI_STATS_ENTER(JSObjectSetStaticValueCallback)
     bool result = false;
     
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         result = (*env)->CallBooleanMethod(env, prv->callback, jmethodId_JSObjectSetStaticValueCallback,
             (jlong)ctx, (jlong)object, jname, (jlong)value, (jlong)exception) == JNI_TRUE ? true : false;
         JAVA_DELETE_LOCALREF(jname);
@@ -315,19 +643,19 @@ static bool NativeCallback_JSObjectSetStaticValueCallback(
 }
     
 static JSValueRef NativeCallback_JSObjectGetPropertyCallback(
-    JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception)
+    JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception, jint level)
 {
-    LOGD("JSObjectGetPropertyCallback");
+    JNI_STATS_ENTER(JSObjectGetPropertyCallback)
     JSValueRef value = NULL;
     
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         value = (JSValueRef)(*env)->CallLongMethod(env, prv->callback,
                                jmethodId_JSObjectGetPropertyCallback,
-                               (jlong)ctx, (jlong)object, jname, (jlong)exception);
+                               (jlong)ctx, (jlong)object, jname, (jlong)exception, level);
         JAVA_DELETE_LOCALREF(jname);
     }
     JNI_ENV_EXIT
@@ -336,18 +664,18 @@ static JSValueRef NativeCallback_JSObjectGetPropertyCallback(
 }
 
 static bool NativeCallback_JSObjectSetPropertyCallback(
-    JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef value, JSValueRef* exception)
+    JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef value, JSValueRef* exception, jint level)
 {
-    LOGD("JSObjectSetPropertyCallback");
+    JNI_STATS_ENTER(JSObjectSetPropertyCallback)
     bool result = false;
     
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         result = (*env)->CallBooleanMethod(env, prv->callback, jmethodId_JSObjectSetPropertyCallback,
-            (jlong)ctx, (jlong)object, jname, (jlong)value, (jlong)exception) == JNI_TRUE ? true : false;
+            (jlong)ctx, (jlong)object, jname, (jlong)value, (jlong)exception, level) == JNI_TRUE ? true : false;
         JAVA_DELETE_LOCALREF(jname);
     }
     JNI_ENV_EXIT
@@ -357,9 +685,9 @@ static bool NativeCallback_JSObjectSetPropertyCallback(
 
 static JSObjectRef NativeCallback_JSObjectCallAsConstructorCallback(
     JSContextRef ctx, JSObjectRef constructor,
-    size_t argc, const JSValueRef argv[], JSValueRef *exception)
+    size_t argc, const JSValueRef argv[], JSValueRef *exception, jint level)
 {
-    LOGD("JSObjectCallAsConstructorCallback");
+    JNI_STATS_ENTER(JSObjectCallAsConstructorCallback)
     JSObjectRef object = NULL;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(constructor);
@@ -368,7 +696,7 @@ static JSObjectRef NativeCallback_JSObjectCallAsConstructorCallback(
         jobject argvbuffer = argc > 0 ? (*env)->NewDirectByteBuffer(env, (void*)&argv[0], sizeof(long) * argc) : NULL;
         object = (JSObjectRef)(*env)->CallLongMethod(env, prv->callback,
                             jmethodId_JSObjectCallAsConstructorCallback,
-                            (jlong)ctx, (jlong)constructor, (jint)argc, argvbuffer, (jlong)exception);
+                            (jlong)ctx, (jlong)constructor, (jint)argc, argvbuffer, (jlong)exception, level);
         JAVA_DELETE_LOCALREF(argvbuffer);
     } else {
         LOGD("Constructor callback is not found for %lu", (long)constructor);
@@ -382,15 +710,13 @@ static JSObjectRef NativeCallback_JSObjectMakeConstructorCallback(
     JSContextRef ctx, JSObjectRef constructor,
     size_t argc, const JSValueRef argv[], JSValueRef *exception)
 {
-    LOGD("JSObjectMakeConstructorCallback");
+    JNI_STATS_ENTER(JSObjectMakeConstructorCallback)
     JSObjectRef object = NULL;
     JNI_ENV_ENTER
-    jclass clazz = (*env)->FindClass(env, "com/appcelerator/javascriptcore/opaquetypes/JSClassDefinition");
     jobject argvbuffer = argc > 0 ? (*env)->NewDirectByteBuffer(env, (void*)&argv[0], sizeof(long) * argc) : NULL;
-    object = (JSObjectRef)(*env)->CallStaticLongMethod(env, clazz,
+    object = (JSObjectRef)(*env)->CallStaticLongMethod(env, jclass_JSClassDefinition,
                                         jmethodId_JSObjectMakeConstructorCallback,
-                                        (jlong)ctx, (jlong)constructor, (jint)argc, argvbuffer, (jlong)exception);
-    JAVA_DELETE_LOCALREF(clazz);
+                                        (jlong)ctx, (jlong)JSContextGetGroup(ctx), (jlong)constructor, (jint)argc, argvbuffer, (jlong)exception);
     JAVA_DELETE_LOCALREF(argvbuffer);
     JNI_ENV_EXIT
     return object;
@@ -400,16 +726,14 @@ static JSValueRef NativeCallback_JSObjectMakeFunctionCallback(
     JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
     size_t argc, const JSValueRef argv[], JSValueRef *exception)
 {
-    LOGD("JSObjectMakeFunctionCallback");
+    JNI_STATS_ENTER(JSObjectMakeFunctionCallback)
     JSValueRef value = NULL;
     JNI_ENV_ENTER
-    jclass clazz = (*env)->FindClass(env, "com/appcelerator/javascriptcore/opaquetypes/JSClassDefinition");
     jobject argvbuffer = argc > 0 ? (*env)->NewDirectByteBuffer(env, (void*)&argv[0], sizeof(long) * argc) : NULL;
-    value = (JSValueRef)(*env)->CallStaticLongMethod(env, clazz,
+    value = (JSValueRef)(*env)->CallStaticLongMethod(env, jclass_JSClassDefinition,
                                         jmethodId_JSObjectMakeFunctionCallback,
-                                        (jlong)ctx, (jlong)func, (jlong)thisObject,
+                                        (jlong)ctx, (jlong)JSContextGetGroup(ctx), (jlong)func, (jlong)thisObject,
                                         (jint)argc, argvbuffer, (jlong)exception);
-    JAVA_DELETE_LOCALREF(clazz);
     JAVA_DELETE_LOCALREF(argvbuffer);
     JNI_ENV_EXIT
     return value;
@@ -417,8 +741,8 @@ static JSValueRef NativeCallback_JSObjectMakeFunctionCallback(
 
 static JSValueRef NativeCallback_JSObjectCallAsFunctionCallback(
     JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
-    size_t argc, const JSValueRef argv[], JSValueRef* exception) {
-    LOGD("JSObjectCallAsFunctionCallback");
+    size_t argc, const JSValueRef argv[], JSValueRef* exception, jint level) {
+    JNI_STATS_ENTER(JSObjectCallAsFunctionCallback)
     JSValueRef value = NULL;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(func);
@@ -427,7 +751,7 @@ static JSValueRef NativeCallback_JSObjectCallAsFunctionCallback(
     {
         jobject argvbuffer = argc > 0 ? (*env)->NewDirectByteBuffer(env, (void*)&argv[0], sizeof(long) * argc) : NULL;
         value = (JSValueRef)(*env)->CallLongMethod(env, prv->callback, jmethodId_JSObjectCallAsFunctionCallback,
-                               (jlong)ctx, (jlong)func, (jlong)thisObject, (jint)argc, argvbuffer, (jlong)exception);
+                               (jlong)ctx, (jlong)func, (jlong)thisObject, (jint)argc, argvbuffer, (jlong)exception, level);
         JAVA_DELETE_LOCALREF(argvbuffer);
     }
     JNI_ENV_EXIT
@@ -437,7 +761,7 @@ static JSValueRef NativeCallback_JSObjectCallAsFunctionCallback(
 static JSValueRef NativeCallback_JSObjectStaticFunctionCallback(
     JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
     size_t argc, const JSValueRef argv[], JSValueRef* exception) {
-    LOGD("JSObjectStaticFunctionCallback");
+    JNI_STATS_ENTER(JSObjectStaticFunctionCallback)
     JSValueRef value = NULL;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(func);
@@ -456,16 +780,16 @@ static JSValueRef NativeCallback_JSObjectStaticFunctionCallback(
 
 static JSValueRef NativeCallback_JSObjectConvertToTypeCallback(
    JSContextRef ctx,JSObjectRef object,
-   JSType type, JSValueRef *exception)
+   JSType type, JSValueRef *exception, jint level)
 {
-    LOGD("JSObjectConvertToTypeCallback");
+    JNI_STATS_ENTER(JSObjectConvertToTypeCallback)
     JSValueRef value = NULL;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
         value = (JSValueRef)(*env)->CallLongMethod(env, prv->callback, jmethodId_JSObjectConvertToTypeCallback,
-                                                   (jlong)ctx, (jlong)object, (jint)type, (jlong)exception);
+                                                   (jlong)ctx, (jlong)object, (jint)type, (jlong)exception, level);
     }
     JNI_ENV_EXIT
     return value;
@@ -473,17 +797,17 @@ static JSValueRef NativeCallback_JSObjectConvertToTypeCallback(
     
 static bool NativeCallback_JSObjectDeletePropertyCallback(
     JSContextRef ctx, JSObjectRef object,
-    JSStringRef name, JSValueRef *exception)
+    JSStringRef name, JSValueRef *exception, jint level)
 {
-    LOGD("JSObjectDeletePropertyCallback");
+    JNI_STATS_ENTER(JSObjectDeletePropertyCallback)
     bool value = false;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         value = (*env)->CallBooleanMethod(env, prv->callback, jmethodId_JSObjectDeletePropertyCallback,
-                    (jlong)ctx, (jlong)object, jname, (jlong)exception) == JNI_TRUE ? true : false;
+                    (jlong)ctx, (jlong)object, jname, (jlong)exception, level) == JNI_TRUE ? true : false;
         JAVA_DELETE_LOCALREF(jname);
     }
     JNI_ENV_EXIT
@@ -492,57 +816,236 @@ static bool NativeCallback_JSObjectDeletePropertyCallback(
 
 static void NativeCallback_JSObjectGetPropertyNamesCallback(
     JSContextRef ctx, JSObjectRef object,
-    JSPropertyNameAccumulatorRef propertyNames)
+    JSPropertyNameAccumulatorRef propertyNames, jint level)
 {
-    LOGD("JSObjectGetPropertyNamesCallback");
+    JNI_STATS_ENTER(JSObjectGetPropertyNamesCallback)
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
         (*env)->CallVoidMethod(env, prv->callback, jmethodId_JSObjectGetPropertyNamesCallback,
-                               (jlong)ctx, (jlong)object, (jlong)propertyNames);
+                               (jlong)ctx, (jlong)object, (jlong)propertyNames, level);
     }
     JNI_ENV_EXIT
 }
 
 static bool NativeCallback_JSObjectHasInstanceCallback(
     JSContextRef ctx, JSObjectRef constructor,
-    JSValueRef instance, JSValueRef *exception)
+    JSValueRef instance, JSValueRef *exception, jint level)
 {
-    LOGD("JSObjectHasInstanceCallback");
+    JNI_STATS_ENTER(JSObjectHasInstanceCallback)
     bool value = false;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(constructor);
     if (prv && prv->callback)
     {
         value = (*env)->CallBooleanMethod(env, prv->callback, jmethodId_JSObjectHasInstanceCallback,
-                    (jlong)ctx, (jlong)constructor, (jlong)instance, (jlong)exception) == JNI_TRUE ? true : false;
+                    (jlong)ctx, (jlong)constructor, (jlong)instance, (jlong)exception, level) == JNI_TRUE ? true : false;
     }
     JNI_ENV_EXIT
     return value;
 }
 
 static bool NativeCallback_JSObjectHasPropertyCallback(
-    JSContextRef ctx, JSObjectRef object, JSStringRef name)
+    JSContextRef ctx, JSObjectRef object, JSStringRef name, jint level)
 {
-    LOGD("JSObjectHasPropertyCallback");
+    JNI_STATS_ENTER(JSObjectHasPropertyCallback)
     bool value = false;
     JNI_ENV_ENTER
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(object);
     if (prv && prv->callback)
     {
-        JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+        JSTRING_FROM_JSSTRINGREF(name, jname)
         value = (*env)->CallBooleanMethod(env, prv->callback, jmethodId_JSObjectHasPropertyCallback,
-                                (jlong)ctx, (jlong)object, jname) == JNI_TRUE ? true : false;
+                                (jlong)ctx, (jlong)object, jname, level) == JNI_TRUE ? true : false;
         JAVA_DELETE_LOCALREF(jname);
     }
     JNI_ENV_EXIT
     return value;
 }
 
+/*
+ * Callbacks of each depth in the class hierarchy. JavaScriptCore walks the parentClass chain
+ * by itself and fires the callbacks of every class, so a class at depth N (the root class is 0)
+ * gets the callbacks of level N. Java dispatches the level directly to the definition at that
+ * depth, see JSClassDefinition.hierarchy.
+ */
+#define JSCLASS_HIERARCHY_MAX_DEPTH 16
+#define JSCLASS_DISPATCH_HOOKS 9
+
+#define DEFINE_LEVEL_CALLBACKS(level)\
+static bool NativeCallback_JSObjectHasPropertyCallback##level(JSContextRef ctx, JSObjectRef object, JSStringRef name)\
+{ return NativeCallback_JSObjectHasPropertyCallback(ctx, object, name, level); }\
+static JSValueRef NativeCallback_JSObjectGetPropertyCallback##level(JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception)\
+{ return NativeCallback_JSObjectGetPropertyCallback(ctx, object, name, exception, level); }\
+static bool NativeCallback_JSObjectSetPropertyCallback##level(JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef value, JSValueRef* exception)\
+{ return NativeCallback_JSObjectSetPropertyCallback(ctx, object, name, value, exception, level); }\
+static bool NativeCallback_JSObjectDeletePropertyCallback##level(JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception)\
+{ return NativeCallback_JSObjectDeletePropertyCallback(ctx, object, name, exception, level); }\
+static void NativeCallback_JSObjectGetPropertyNamesCallback##level(JSContextRef ctx, JSObjectRef object, JSPropertyNameAccumulatorRef propertyNames)\
+{ NativeCallback_JSObjectGetPropertyNamesCallback(ctx, object, propertyNames, level); }\
+static JSValueRef NativeCallback_JSObjectCallAsFunctionCallback##level(JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject, size_t argc, const JSValueRef argv[], JSValueRef* exception)\
+{ return NativeCallback_JSObjectCallAsFunctionCallback(ctx, func, thisObject, argc, argv, exception, level); }\
+static JSObjectRef NativeCallback_JSObjectCallAsConstructorCallback##level(JSContextRef ctx, JSObjectRef constructor, size_t argc, const JSValueRef argv[], JSValueRef* exception)\
+{ return NativeCallback_JSObjectCallAsConstructorCallback(ctx, constructor, argc, argv, exception, level); }\
+static bool NativeCallback_JSObjectHasInstanceCallback##level(JSContextRef ctx, JSObjectRef constructor, JSValueRef instance, JSValueRef* exception)\
+{ return NativeCallback_JSObjectHasInstanceCallback(ctx, constructor, instance, exception, level); }\
+static JSValueRef NativeCallback_JSObjectConvertToTypeCallback##level(JSContextRef ctx, JSObjectRef object, JSType type, JSValueRef* exception)\
+{ return NativeCallback_JSObjectConvertToTypeCallback(ctx, object, type, exception, level); }
+
+DEFINE_LEVEL_CALLBACKS(0)
+DEFINE_LEVEL_CALLBACKS(1)
+DEFINE_LEVEL_CALLBACKS(2)
+DEFINE_LEVEL_CALLBACKS(3)
+DEFINE_LEVEL_CALLBACKS(4)
+DEFINE_LEVEL_CALLBACKS(5)
+DEFINE_LEVEL_CALLBACKS(6)
+DEFINE_LEVEL_CALLBACKS(7)
+DEFINE_LEVEL_CALLBACKS(8)
+DEFINE_LEVEL_CALLBACKS(9)
+DEFINE_LEVEL_CALLBACKS(10)
+DEFINE_LEVEL_CALLBACKS(11)
+DEFINE_LEVEL_CALLBACKS(12)
+DEFINE_LEVEL_CALLBACKS(13)
+DEFINE_LEVEL_CALLBACKS(14)
+DEFINE_LEVEL_CALLBACKS(15)
+
+#define LEVEL_CALLBACKS(name)\
+(long)name##0,  (long)name##1,  (long)name##2,  (long)name##3,\
+(long)name##4,  (long)name##5,  (long)name##6,  (long)name##7,\
+(long)name##8,  (long)name##9,  (long)name##10, (long)name##11,\
+(long)name##12, (long)name##13, (long)name##14, (long)name##15
+
+/*
+ * Dispatch table of level callbacks, one row of JSCLASS_HIERARCHY_MAX_DEPTH callbacks per hook.
+ * Order of rows is shared with Java (JSClassDefinition.*_HOOK), do not change without updating it.
+ */
+static long jsClassDispatchTable[JSCLASS_DISPATCH_HOOKS * JSCLASS_HIERARCHY_MAX_DEPTH];
+
+static void InitializeClassDispatchTable()
+{
+    long table[JSCLASS_DISPATCH_HOOKS * JSCLASS_HIERARCHY_MAX_DEPTH] = {
+        LEVEL_CALLBACKS(NativeCallback_JSObjectHasPropertyCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectGetPropertyCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectSetPropertyCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectDeletePropertyCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectGetPropertyNamesCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectCallAsFunctionCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectCallAsConstructorCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectHasInstanceCallback),
+        LEVEL_CALLBACKS(NativeCallback_JSObjectConvertToTypeCallback)
+    };
+    memcpy(jsClassDispatchTable, table, sizeof(table));
+}
+
+/*
+ * Static functions are dispatched by slot. JSStaticFunctions takes a free slot for each function
+ * at commit() and puts the callback of that slot into JSStaticFunction, the callback passes
+ * its slot to Java so that the function is found without looking up the object.
+ */
+#define JSSTATIC_FUNCTION_SLOTS 1000
+
+static JSValueRef NativeCallback_JSObjectStaticFunctionSlotCallback(
+    JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
+    size_t argc, const JSValueRef argv[], JSValueRef* exception, jint slot) {
+    JNI_STATS_ENTER(JSObjectStaticFunctionCallback)
+    JSValueRef value = NULL;
+    JNI_ENV_ENTER
+    jobject argvbuffer = argc > 0 ? (*env)->NewDirectByteBuffer(env, (void*)&argv[0], sizeof(long) * argc) : NULL;
+    value = (JSValueRef)(*env)->CallStaticLongMethod(env, jclass_JSClassDefinition,
+                                        jmethodId_JSObjectStaticFunctionSlotCallback,
+                                        (jlong)ctx, (jlong)func, (jlong)thisObject, (jint)argc, argvbuffer, (jlong)exception, slot);
+    JAVA_DELETE_LOCALREF(argvbuffer);
+    JNI_ENV_EXIT
+    return value;
+}
+
+/*
+ * Slot callbacks are numbered by three decimal digits, SLOT_NUMBERS expands define(a, b, c)
+ * for every slot from 000 to 999.
+ */
+#define SLOT_DIGITS(define, a, b)\
+define(a, b, 0) define(a, b, 1) define(a, b, 2) define(a, b, 3) define(a, b, 4)\
+define(a, b, 5) define(a, b, 6) define(a, b, 7) define(a, b, 8) define(a, b, 9)
+#define SLOT_TENS(define, a)\
+SLOT_DIGITS(define, a, 0) SLOT_DIGITS(define, a, 1) SLOT_DIGITS(define, a, 2) SLOT_DIGITS(define, a, 3) SLOT_DIGITS(define, a, 4)\
+SLOT_DIGITS(define, a, 5) SLOT_DIGITS(define, a, 6) SLOT_DIGITS(define, a, 7) SLOT_DIGITS(define, a, 8) SLOT_DIGITS(define, a, 9)
+#define SLOT_NUMBERS(define)\
+SLOT_TENS(define, 0) SLOT_TENS(define, 1) SLOT_TENS(define, 2) SLOT_TENS(define, 3) SLOT_TENS(define, 4)\
+SLOT_TENS(define, 5) SLOT_TENS(define, 6) SLOT_TENS(define, 7) SLOT_TENS(define, 8) SLOT_TENS(define, 9)
+
+#define DEFINE_STATIC_FUNCTION_SLOT(a, b, c)\
+static JSValueRef NativeCallback_JSObjectStaticFunctionSlot##a##b##c(JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject, size_t argc, const JSValueRef argv[], JSValueRef* exception)\
+{ return NativeCallback_JSObjectStaticFunctionSlotCallback(ctx, func, thisObject, argc, argv, exception, a * 100 + b * 10 + c); }
+#define STATIC_FUNCTION_SLOT(a, b, c) (long)NativeCallback_JSObjectStaticFunctionSlot##a##b##c,
+
+SLOT_NUMBERS(DEFINE_STATIC_FUNCTION_SLOT)
+
+static long jsStaticFunctionSlotTable[JSSTATIC_FUNCTION_SLOTS] = {
+    SLOT_NUMBERS(STATIC_FUNCTION_SLOT)
+};
+
+/*
+ * Static values are dispatched by slot in the same way. Both the getter and the setter pass
+ * the slot of the value, Java knows the name of the value so that it is not converted here.
+ */
+#define JSSTATIC_VALUE_SLOTS 1000
+
+static JSValueRef NativeCallback_JSObjectGetStaticValueSlotCallback(
+    JSContextRef ctx, JSObjectRef object, JSValueRef* exception, jint slot)
+{
+    JNI_STATS_ENTER(JSObjectGetStaticValueCallback)
+    JSValueRef value = NULL;
+    JNI_ENV_ENTER
+    value = (JSValueRef)(*env)->CallStaticLongMethod(env, jclass_JSClassDefinition,
+                                        jmethodId_JSObjectGetStaticValueSlotCallback,
+                                        (jlong)ctx, (jlong)object, (jlong)exception, slot);
+    JNI_ENV_EXIT
+    return value;
+}
+
+static bool NativeCallback_JSObjectSetStaticValueSlotCallback(
+    JSContextRef ctx, JSObjectRef object, JSValueRef value, JSValueRef* exception, jint slot)
+{
+    JNI_STATS_ENTER(JSObjectSetStaticValueCallback)
+    bool result = false;
+    JNI_ENV_ENTER
+    result = (*env)->CallStaticBooleanMethod(env, jclass_JSClassDefinition,
+                                        jmethodId_JSObjectSetStaticValueSlotCallback,
+                                        (jlong)ctx, (jlong)object, (jlong)value, (jlong)exception, slot) == JNI_TRUE ? true : false;
+    JNI_ENV_EXIT
+    return result;
+}
+
+#define DEFINE_STATIC_VALUE_SLOT(a, b, c)\
+static JSValueRef NativeCallback_JSObjectGetStaticValueSlot##a##b##c(JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef* exception)\
+{ return NativeCallback_JSObjectGetStaticValueSlotCallback(ctx, object, exception, a * 100 + b * 10 + c); }\
+static bool NativeCallback_JSObjectSetStaticValueSlot##a##b##c(JSContextRef ctx, JSObjectRef object, JSStringRef name, JSValueRef value, JSValueRef* exception)\
+{ return NativeCallback_JSObjectSetStaticValueSlotCallback(ctx, object, value, exception, a * 100 + b * 10 + c); }
+#define STATIC_VALUE_SLOT(a, b, c) (long)NativeCallback_JSObjectGetStaticValueSlot##a##b##c, (long)NativeCallback_JSObjectSetStaticValueSlot##a##b##c,
+
+SLOT_NUMBERS(DEFINE_STATIC_VALUE_SLOT)
+
+/*
+ * Getter and setter of each slot, the getter comes first
+ */
+static long jsStaticValueSlotTable[JSSTATIC_VALUE_SLOTS * 2] = {
+    SLOT_NUMBERS(STATIC_VALUE_SLOT)
+};
+
 /*
  * JNI methods
  */
+/**
+ * Cache callback method ids, called once while JSClassDefinition class is initialized
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSClassDefinition_NativeInitializeCallbackMethods
+    (JNIEnv *env, jclass clazz)
+{
+    CacheClassDefinitionCallbackMethods(env, clazz);
+}
+
 /**
  * Return JSClassDefinition struct that contains default attributes and pointer to callback functions
  */
@@ -556,19 +1059,30 @@ Java_com_appcelerator_javascriptcore_opaquetypes_JSClassDefinition_NativeGetClas
     
     jsClassDefinitionTemplate.initialize = NativeCallback_JSObjectInitializeCallback;
     jsClassDefinitionTemplate.finalize   = NativeCallback_JSObjectFinalizeCallback;
-    jsClassDefinitionTemplate.hasProperty = NativeCallback_JSObjectHasPropertyCallback;
-    jsClassDefinitionTemplate.getProperty = NativeCallback_JSObjectGetPropertyCallback;
-    jsClassDefinitionTemplate.setProperty = NativeCallback_JSObjectSetPropertyCallback;
-    jsClassDefinitionTemplate.deleteProperty = NativeCallback_JSObjectDeletePropertyCallback;
-    jsClassDefinitionTemplate.getPropertyNames = NativeCallback_JSObjectGetPropertyNamesCallback;
-    jsClassDefinitionTemplate.callAsFunction   = NativeCallback_JSObjectCallAsFunctionCallback;
-    jsClassDefinitionTemplate.callAsConstructor = NativeCallback_JSObjectCallAsConstructorCallback;
-    jsClassDefinitionTemplate.hasInstance   = NativeCallback_JSObjectHasInstanceCallback;
-    jsClassDefinitionTemplate.convertToType = NativeCallback_JSObjectConvertToTypeCallback;
+    jsClassDefinitionTemplate.hasProperty = NativeCallback_JSObjectHasPropertyCallback0;
+    jsClassDefinitionTemplate.getProperty = NativeCallback_JSObjectGetPropertyCallback0;
+    jsClassDefinitionTemplate.setProperty = NativeCallback_JSObjectSetPropertyCallback0;
+    jsClassDefinitionTemplate.deleteProperty = NativeCallback_JSObjectDeletePropertyCallback0;
+    jsClassDefinitionTemplate.getPropertyNames = NativeCallback_JSObjectGetPropertyNamesCallback0;
+    jsClassDefinitionTemplate.callAsFunction   = NativeCallback_JSObjectCallAsFunctionCallback0;
+    jsClassDefinitionTemplate.callAsConstructor = NativeCallback_JSObjectCallAsConstructorCallback0;
+    jsClassDefinitionTemplate.hasInstance   = NativeCallback_JSObjectHasInstanceCallback0;
+    jsClassDefinitionTemplate.convertToType = NativeCallback_JSObjectConvertToTypeCallback0;
     
     return (*env)->NewDirectByteBuffer(env, &jsClassDefinitionTemplate, sizeof(JSClassDefinition));
 }
 
+/**
+ * Return dispatch table of callbacks for each depth of class hierarchy
+ */
+JNIEXPORT jobject JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSClassDefinition_NativeGetClassDispatchTable
+    (JNIEnv *env, jclass clazz)
+{
+    InitializeClassDispatchTable();
+    return (*env)->NewDirectByteBuffer(env, jsClassDispatchTable, sizeof(jsClassDispatchTable));
+}
+
 /**
  * Return JSStaticValue struct that contains default attributes and pointer to callback functions
  */
@@ -596,6 +1110,26 @@ Java_com_appcelerator_javascriptcore_opaquetypes_JSStaticFunctions_NativeGetStat
     return (*env)->NewDirectByteBuffer(env, &jsStaticFunctionTemplate, sizeof(JSStaticFunction));
 }
 
+/**
+ * Return getter and setter callbacks of static value slots
+ */
+JNIEXPORT jobject JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSStaticValues_NativeGetStaticValueSlots
+    (JNIEnv *env, jclass clazz)
+{
+    return (*env)->NewDirectByteBuffer(env, jsStaticValueSlotTable, sizeof(jsStaticValueSlotTable));
+}
+
+/**
+ * Return callbacks of static function slots, the index of the callback is its slot
+ */
+JNIEXPORT jobject JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSStaticFunctions_NativeGetStaticFunctionSlots
+    (JNIEnv *env, jclass clazz)
+{
+    return (*env)->NewDirectByteBuffer(env, jsStaticFunctionSlotTable, sizeof(jsStaticFunctionSlotTable));
+}
+
 /**
  * Allocate char arrays from Java String
  */
@@ -633,6 +1167,114 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeReleasePointers
     (*env)->ReleaseLongArrayElements(env, invalues, p_invalues, 0);
 }
 
+/*
+ * True if the watchdog of JavaScriptCore terminates scripts that exceed the execution time limit.
+ * Only the Mac port implements the watchdog timer (WatchdogMac.cpp), the other ports build
+ * WatchdogNone.cpp whose timer never fires, so the limit is silently ignored there.
+ */
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeIsExecutionTimeLimitSupported
+    (JNIEnv *env, jclass clazz)
+{
+#if defined(ENABLE_JAVASCRIPTCORE_PRIVATE_API) && defined(__APPLE__)
+    return JNI_TRUE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
+/*
+ * Number of times a native thread has been attached to JVM for a callback
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeGetThreadAttachCount
+    (JNIEnv *env, jclass clazz)
+{
+    return __sync_fetch_and_add(&jniThreadAttachCount, 0);
+}
+
+/*
+ * Enable or disable native call statistics
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeSetNativeStatsEnabled
+    (JNIEnv *env, jclass clazz, jboolean enabled)
+{
+    pthread_once(&jniStatsSlotKeyOnce, JNIStatsCreateThreadSlotKey);
+    jniStatsEnabled = enabled == JNI_TRUE ? 1 : 0;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeIsNativeStatsEnabled
+    (JNIEnv *env, jclass clazz)
+{
+    return jniStatsEnabled ? JNI_TRUE : JNI_FALSE;
+}
+
+/*
+ * Clear counters of every thread. Calls that are running at the same time may or may not be counted.
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeResetNativeStats
+    (JNIEnv *env, jclass clazz)
+{
+    for (JNIStatsThreadSlot* slot = jniStatsSlots; slot != NULL; slot = slot->next) {
+        memset(slot->calls, 0, sizeof(slot->calls));
+        memset(slot->nanos, 0, sizeof(slot->nanos));
+        memset(slot->histogram, 0, sizeof(slot->histogram));
+    }
+}
+
+/*
+ * Return entry point names in the order used by NativeGetNativeStats
+ */
+JNIEXPORT jobjectArray JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeGetNativeStatsNames
+    (JNIEnv *env, jclass clazz)
+{
+    jclass stringClass = (*env)->FindClass(env, "java/lang/String");
+    jobjectArray names = (*env)->NewObjectArray(env, JNI_STATS_ID_COUNT, stringClass, NULL);
+    for (int i = 0; i < JNI_STATS_ID_COUNT; i++) {
+        jstring name = (*env)->NewStringUTF(env, jniStatsNames[i]);
+        (*env)->SetObjectArrayElement(env, names, i, name);
+        JAVA_DELETE_LOCALREF(name);
+    }
+    JAVA_DELETE_LOCALREF(stringClass);
+    return names;
+}
+
+/*
+ * Sum up counters of every thread. For each entry point the result contains
+ * call count, cumulative nanoseconds and JNI_STATS_HISTOGRAM_BUCKETS histogram buckets.
+ */
+JNIEXPORT jlongArray JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeGetNativeStats
+    (JNIEnv *env, jclass clazz)
+{
+    const int stride = 2 + JNI_STATS_HISTOGRAM_BUCKETS;
+    jlong* values = (jlong*)calloc(JNI_STATS_ID_COUNT * stride, sizeof(jlong));
+    if (values == NULL) return NULL;
+
+    for (JNIStatsThreadSlot* slot = jniStatsSlots; slot != NULL; slot = slot->next) {
+        for (int i = 0; i < JNI_STATS_ID_COUNT; i++) {
+            if (slot->calls[i] == 0) continue;
+            jlong* entry = values + i * stride;
+            entry[0] += slot->calls[i];
+            entry[1] += slot->nanos[i];
+            for (int bucket = 0; bucket < JNI_STATS_HISTOGRAM_BUCKETS; bucket++) {
+                entry[2 + bucket] += slot->histogram[i][bucket];
+            }
+        }
+    }
+
+    jlongArray result = (*env)->NewLongArray(env, JNI_STATS_ID_COUNT * stride);
+    if (result != NULL) {
+        (*env)->SetLongArrayRegion(env, result, 0, JNI_STATS_ID_COUNT * stride, values);
+    }
+    free(values);
+    return result;
+}
+
 /*!
 @function
 @abstract Creates a JavaScript class suitable for use with JSObjectMake.
@@ -643,7 +1285,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSClassCreate
     (JNIEnv *env, jobject thiz, jobject definitionBuffer, jstring className, jobject staticValuesBuffer, jobject staticFunctionsBuffer)
 {
-    LOGD("JSClassCreate");
+    JNI_STATS_ENTER(JSClassCreate)
     JSClassDefinition* definition = (*env)->GetDirectBufferAddress(env, definitionBuffer);
     
     JSStaticValue* staticValues = NULL;
@@ -687,7 +1329,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMake
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsClassRef, jobject callback, jobject object)
 {
-    LOGD("JSObjectMake");
+    JNI_STATS_ENTER(JSObjectMake)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSClassRef jsClass = (JSClassRef)jsClassRef;
     
@@ -703,10 +1345,6 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMake
         prv->object = (*env)->NewGlobalRef(env, object);
     }
     
-    if (prv->callbackClass != NULL) {
-        CacheClassDefinitionCallbackMethods(env, prv->callbackClass);
-    }
-    
     return (jlong)JSObjectMake(ctx, jsClass, prv);
 }
 
@@ -720,7 +1358,7 @@ JNIEXPORT jobject JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPrivate
 (JNIEnv *env, jobject thiz, jlong jsObjectRef)
 {
-    LOGD("JSObjectGetPrivate");
+    JNI_STATS_ENTER(JSObjectGetPrivate)
     JSObjectRef jsObject = (JSObjectRef)jsObjectRef;
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(jsObject);
     if (prv && prv->object) {
@@ -741,7 +1379,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPrivate
 (JNIEnv *env, jobject thiz, jlong jsObjectRef, jobject object)
 {
-    LOGD("JSObjectSetPrivate");
+    JNI_STATS_ENTER(JSObjectSetPrivate)
     JSObjectRef jsObject = (JSObjectRef)jsObjectRef;
     JSObjectPrivateData* prv = (JSObjectPrivateData*)JSObjectGetPrivate(jsObject);
     if (prv == NULL)
@@ -773,7 +1411,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGroupCreate
     (JNIEnv *env, jobject thiz)
 {
-    LOGD("JSContextGroupCreate");
+    JNI_STATS_ENTER(JSContextGroupCreate)
     JSContextGroupRef group = JSContextGroupCreate();
     return (jlong)group;
 }
@@ -787,7 +1425,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGroupRelease
     (JNIEnv *env, jobject thiz, jlong jsContextGroupRef)
 {
-    LOGD("JSContextGroupRelease");
+    JNI_STATS_ENTER(JSContextGroupRelease)
     JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
     JSContextGroupRelease(group);
 }
@@ -801,7 +1439,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGroupRetain
     (JNIEnv *env, jobject thiz, jlong jsContextGroupRef)
 {
-    LOGD("JSContextGroupRetain");
+    JNI_STATS_ENTER(JSContextGroupRetain)
     JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
     return (jlong)JSContextGroupRetain(group);
 }
@@ -816,7 +1454,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGetGlobalObject
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSContextGetGlobalObject");
+    JNI_STATS_ENTER(JSContextGetGlobalObject)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSContextGetGlobalObject(ctx);
 }
@@ -831,7 +1469,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGetGroup
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSContextGetGroup");
+    JNI_STATS_ENTER(JSContextGetGroup)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSContextGetGroup(ctx);
 }
@@ -853,7 +1491,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGlobalContextCreate
     (JNIEnv *env, jobject thiz, jlong jsClassRef, jobject callback)
 {
-    LOGD("JSGlobalContextCreate");
+    JNI_STATS_ENTER(JSGlobalContextCreate)
     JSClassRef jsClass = (JSClassRef)jsClassRef;
     JSGlobalContextRef ctx = JSGlobalContextCreate(jsClass);
     JSObjectRef globalObject = JSContextGetGlobalObject(ctx);
@@ -878,7 +1516,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGlobalContextCreateInGroup
     (JNIEnv *env, jobject thiz, jlong jsContextGroupRef, jlong jsClassRef, jobject callback)
 {
-    LOGD("JSGlobalContextCreateInGroup");
+    JNI_STATS_ENTER(JSGlobalContextCreateInGroup)
     JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
     JSClassRef jsClass = (JSClassRef)jsClassRef;
     JSGlobalContextRef ctx = JSGlobalContextCreateInGroup(group, jsClass);
@@ -897,7 +1535,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGlobalContextRelease
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSGlobalContextRelease");
+    JNI_STATS_ENTER(JSGlobalContextRelease)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSGlobalContextRelease(ctx);
 }
@@ -912,7 +1550,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGlobalContextRetain
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSGlobalContextRetain");
+    JNI_STATS_ENTER(JSGlobalContextRetain)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSGlobalContextRetain(ctx);
 }
@@ -929,19 +1567,19 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGlobalContext
 */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSEvaluateScriptShort
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring script, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring script, jlongArray exceptionOut)
 {
-    LOGD("JSEvaluateScriptShort");
+    JNI_STATS_ENTER(JSEvaluateScriptShort)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSSTRINGREF_FROM_JSTRING(script, scriptJS)
     
     JSValueRef result = JSEvaluateScript(ctx, scriptJS, NULL, NULL, 1, &exceptionStore);
     JSSTRING_RELEASE(scriptJS);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     
     return (jlong)result;
@@ -961,11 +1599,11 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSEvaluateScrip
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSEvaluateScriptFull
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring script,
-     jlong jsObjectRef, jstring sourceURL, jint line, jobject exceptionObj)
+     jlong jsObjectRef, jstring sourceURL, jint line, jlongArray exceptionOut)
 {
-    LOGD("JSEvaluateScriptFull");
+    JNI_STATS_ENTER(JSEvaluateScriptFull)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
 
     JSSTRINGREF_FROM_JSTRING(script, scriptJS)
@@ -975,8 +1613,8 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSEvaluateScrip
     JSSTRING_RELEASE(scriptJS);
     JSSTRING_RELEASE(jsSourceURL);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
 
     return (jlong)result;
@@ -994,19 +1632,19 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSEvaluateScrip
 */
 JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSCheckScriptSyntax
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring script, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring script, jlongArray exceptionOut)
 {
-    LOGD("JSCheckScriptSyntax");
+    JNI_STATS_ENTER(JSCheckScriptSyntax)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSSTRINGREF_FROM_JSTRING(script, scriptJS)
     
     bool check = JSCheckScriptSyntax(ctx, scriptJS, NULL, 1, &exceptionStore);
     JSSTRING_RELEASE(scriptJS);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     
     return check ? JNI_TRUE : JNI_FALSE;
@@ -1029,7 +1667,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSGarbageCollect
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSGarbageCollect");
+    JNI_STATS_ENTER(JSGarbageCollect)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSGarbageCollect(ctx);
 }
@@ -1044,7 +1682,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeUndefined
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSValueMakeUndefined");
+    JNI_STATS_ENTER(JSValueMakeUndefined)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSValueMakeUndefined(ctx);
 }
@@ -1059,7 +1697,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeNull
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSValueMakeNull");
+    JNI_STATS_ENTER(JSValueMakeNull)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSValueMakeNull(ctx);
 }
@@ -1075,7 +1713,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeNumber
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jdouble arg)
 {
-    LOGD("JSValueMakeNumber");
+    JNI_STATS_ENTER(JSValueMakeNumber)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSValueMakeNumber(ctx, (double)arg);
 }
@@ -1091,7 +1729,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeBoolean
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jboolean arg)
 {
-    LOGD("JSValueMakeBoolean");
+    JNI_STATS_ENTER(JSValueMakeBoolean)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSValueMakeBoolean(ctx, arg == JNI_TRUE ? true : false);
 }
@@ -1108,7 +1746,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsObjectOfClass
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlong jsClassRef)
 {
-    LOGD("JSValueIsObjectOfClass");
+    JNI_STATS_ENTER(JSValueIsObjectOfClass)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     JSClassRef jsClass = (JSClassRef)jsClassRef;
@@ -1126,16 +1764,16 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsObject
 */
 JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsInstanceOfConstructor
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlong jsObjectRef, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlong jsObjectRef, jlongArray exceptionOut)
 {
-    LOGD("JSValueIsInstanceOfConstructor");
+    JNI_STATS_ENTER(JSValueIsInstanceOfConstructor)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     JSObjectRef constructor = (JSObjectRef)jsObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     jboolean result = JSValueIsInstanceOfConstructor(ctx, value, constructor, &exceptionStore) ? JNI_TRUE : JNI_FALSE;
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return result;
 }
@@ -1151,7 +1789,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsUndefined
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsUndefined");
+    JNI_STATS_ENTER(JSValueIsUndefined)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsUndefined(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1168,7 +1806,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsNull
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsNull");
+    JNI_STATS_ENTER(JSValueIsNull)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsNull(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1185,7 +1823,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsNumber
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsNumber");
+    JNI_STATS_ENTER(JSValueIsNumber)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsNumber(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1202,7 +1840,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsBoolean
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsBoolean");
+    JNI_STATS_ENTER(JSValueIsBoolean)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsBoolean(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1219,7 +1857,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsString
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsString");
+    JNI_STATS_ENTER(JSValueIsString)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsString(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1236,7 +1874,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsObject
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueIsObject");
+    JNI_STATS_ENTER(JSValueIsObject)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     return JSValueIsObject(ctx, value) ? JNI_TRUE : JNI_FALSE;
@@ -1253,7 +1891,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToBoolean
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueToBoolean");
+    JNI_STATS_ENTER(JSValueToBoolean)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     
@@ -1270,16 +1908,16 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToBoolea
 */
 JNIEXPORT jdouble JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToNumber
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlongArray exceptionOut)
 {
-    LOGD("JSValueToNumber");
+    JNI_STATS_ENTER(JSValueToNumber)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     double result = JSValueToNumber(ctx, value, &exceptionStore);
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jdouble)result;
 }
@@ -1294,16 +1932,16 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToNumber
 */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToObject
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlongArray exceptionOut)
 {
-    LOGD("JSValueToObject");
+    JNI_STATS_ENTER(JSValueToObject)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSObjectRef result = JSValueToObject(ctx, value, &exceptionStore);
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)result;
 }
@@ -1319,7 +1957,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeFromJSONString
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring jjson)
 {
-    LOGD("JSValueMakeFromJSONString");
+    JNI_STATS_ENTER(JSValueMakeFromJSONString)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     
     JSSTRINGREF_FROM_JSTRING(jjson, json)
@@ -1339,26 +1977,21 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeFrom
 */
 JNIEXPORT jstring JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToStringCopy
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jlongArray exceptionOut)
 {
-    LOGD("JSValueToStringCopy");
+    JNI_STATS_ENTER(JSValueToStringCopy)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     JSStringRef jsstring = JSValueToStringCopy(ctx, value, &exceptionStore);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
-        return NULL;
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
+    if (jsstring == NULL) return NULL;
 
-    size_t length = JSStringGetMaximumUTF8CStringSize(jsstring);
-    char* aschars = (char*)malloc(length);
-    JSStringGetUTF8CString(jsstring, aschars, length);
+    JSTRING_FROM_JSSTRINGREF(jsstring, copy)
     JSSTRING_RELEASE(jsstring);
-    
-    jstring copy = (*env)->NewStringUTF(env, aschars);
-    free(aschars);
     return copy;
 }
 
@@ -1373,17 +2006,17 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueToString
 */
 JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsEqual
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRefA, jlong jsValueRefB, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRefA, jlong jsValueRefB, jlongArray exceptionOut)
 {
-    LOGD("JSValueIsEqual");
+    JNI_STATS_ENTER(JSValueIsEqual)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef a = (JSValueRef)jsValueRefA;
     JSValueRef b = (JSValueRef)jsValueRefB;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     jboolean result = JSValueIsEqual(ctx, a, b, &exceptionStore) ? JNI_TRUE : JNI_FALSE;
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return result;
 }
@@ -1400,7 +2033,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueIsStrictEqual
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRefA, jlong jsValueRefB)
 {
-    LOGD("JSValueIsStrictEqual");
+    JNI_STATS_ENTER(JSValueIsStrictEqual)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef a = (JSValueRef)jsValueRefA;
     JSValueRef b = (JSValueRef)jsValueRefB;
@@ -1420,7 +2053,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueProtect
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueProtect");
+    JNI_STATS_ENTER(JSValueProtect)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     JSValueProtect(ctx, value);
@@ -1438,12 +2071,41 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueUnprotect
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueUnprotect");
+    JNI_STATS_ENTER(JSValueUnprotect)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     JSValueUnprotect(ctx, value);
 }
 
+/*!
+ @function
+ @abstract Unprotects many JavaScript values at once.
+ @param ctx The execution context to use.
+ @param values Java long array of the JSValues to unprotect.
+ @param count The number of values in the array to unprotect.
+ */
+#define JSVALUE_UNPROTECT_CHUNK_LENGTH 256
+
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueUnprotectValues
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlongArray values, jint count)
+{
+    JNI_STATS_ENTER(JSValueUnprotectValues)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    // JSValueUnprotect takes the JSLock, so values are copied by chunk instead of pinning the array
+    jlong chunk[JSVALUE_UNPROTECT_CHUNK_LENGTH];
+    jint start;
+    for (start = 0; start < count; start += JSVALUE_UNPROTECT_CHUNK_LENGTH) {
+        jint length = count - start < JSVALUE_UNPROTECT_CHUNK_LENGTH ? count - start : JSVALUE_UNPROTECT_CHUNK_LENGTH;
+        (*env)->GetLongArrayRegion(env, values, start, length, chunk);
+        if ((*env)->ExceptionCheck(env)) return;
+        jint i;
+        for (i = 0; i < length; i++) {
+            JSValueUnprotect(ctx, (JSValueRef)chunk[i]);
+        }
+    }
+}
+
 /*!
  @function
  @abstract       Creates a JavaScript string containing the JSON serialized representation of a JS value.
@@ -1455,27 +2117,22 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueUnprotec
  */
 JNIEXPORT jstring JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueCreateJSONString
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jint indent, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jint indent, jlongArray exceptionOut)
 {
-    LOGD("JSValueCreateJSONString");
+    JNI_STATS_ENTER(JSValueCreateJSONString)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSStringRef jsstring = JSValueCreateJSONString(ctx, value, indent, &exceptionStore);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
-        return NULL;
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
+    if (jsstring == NULL) return NULL;
     
-    size_t length = JSStringGetMaximumUTF8CStringSize(jsstring);
-    char* aschars = (char*)malloc(length);
-    JSStringGetUTF8CString(jsstring, aschars, length);
+    JSTRING_FROM_JSSTRINGREF(jsstring, copy)
     JSSTRING_RELEASE(jsstring);
-    
-    jstring copy = (*env)->NewStringUTF(env, aschars);
-    free(aschars);
     return copy;
 }
 
@@ -1491,7 +2148,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueMakeString
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring value)
 {
-    LOGD("JSValueMakeString");
+    JNI_STATS_ENTER(JSValueMakeString)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSSTRINGREF_FROM_JSTRING(value, jsvalue)
     JSValueRef string = JSValueMakeString(ctx, jsvalue);
@@ -1510,13 +2167,43 @@ JNIEXPORT jint JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueGetType
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef)
 {
-    LOGD("JSValueGetType");
+    JNI_STATS_ENTER(JSValueGetType)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSValueRef value = (JSValueRef)jsValueRef;
     
     return (jint)JSValueGetType(ctx, value);
 }
 
+/*!
+@function
+@abstract Returns a JavaScript value's type with its primitive payload in one call.
+@param ctx The execution context to use.
+@param value The JSValue whose type and payload you want to obtain.
+@param slot Direct buffer of the caller that receives the type and the number and boolean payload.
+@result A value of type JSType that identifies value's type.
+*/
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueUnbox
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsValueRef, jobject slotBuffer)
+{
+    JNI_STATS_ENTER(JSValueUnbox)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef value = (JSValueRef)jsValueRef;
+    JNIUnboxSlot* slot = (JNIUnboxSlot*)(*env)->GetDirectBufferAddress(env, slotBuffer);
+    JSType type = JSValueGetType(ctx, value);
+    if (slot == NULL) return (jint)type;
+
+    slot->type    = (jint)type;
+    slot->boolean = 0;
+    slot->number  = 0;
+    if (type == kJSTypeNumber) {
+        slot->number = JSValueToNumber(ctx, value, NULL);
+    } else if (type == kJSTypeBoolean) {
+        slot->boolean = JSValueToBoolean(ctx, value) ? 1 : 0;
+    }
+    return (jint)type;
+}
+
 /*!
 @function
 @abstract Calls an object as a constructor.
@@ -1529,19 +2216,19 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSValueGetType
 */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCallAsConstructor
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jint argc, jobject argv, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectCallAsConstructor");
+    JNI_STATS_ENTER(JSObjectCallAsConstructor)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     const JSValueRef* js_argv = NULL;
     if (argc > 0) js_argv = (*env)->GetDirectBufferAddress(env, argv);
     JSObjectRef value = JSObjectCallAsConstructor(ctx, object, argc, js_argv, &exceptionStore);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
    
     return (jlong)value;
@@ -1561,20 +2248,20 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCallAsC
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCallAsFunction
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jlong jsThisObjectRef,
-     jint argc, jobject argv, jobject exceptionObj)
+     jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectCallAsFunction");
+    JNI_STATS_ENTER(JSObjectCallAsFunction)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSObjectRef thisObject = (JSObjectRef)jsThisObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     const JSValueRef* js_argv = NULL;
     if (argc > 0) js_argv = (*env)->GetDirectBufferAddress(env, argv);
     JSValueRef value = JSObjectCallAsFunction(ctx, object, thisObject, argc, js_argv, &exceptionStore);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     
     return (jlong)value;
@@ -1593,20 +2280,20 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCallAsF
 JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring name,
-     jlong jsValueRef, jint attributes, jobject exceptionObj)
+     jlong jsValueRef, jint attributes, jlongArray exceptionOut)
 {
-    LOGD("JSObjectSetProperty");
+    JNI_STATS_ENTER(JSObjectSetProperty)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSSTRINGREF_FROM_JSTRING(name, jsname)
     JSObjectSetProperty(ctx, object, jsname, value, attributes, &exceptionStore);
     JSSTRING_RELEASE(jsname);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
 }
 
@@ -1622,19 +2309,19 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetProp
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
-     jstring name, jobject exceptionObj)
+     jstring name, jlongArray exceptionOut)
 {
-    LOGD("JSObjectGetProperty");
+    JNI_STATS_ENTER(JSObjectGetProperty)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     JSSTRINGREF_FROM_JSTRING(name, jsname)
 
     JSValueRef value = JSObjectGetProperty(ctx, object, jsname, &exceptionStore);
     JSSTRING_RELEASE(jsname);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     
     return (jlong)value;
@@ -1649,7 +2336,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSClassRelease
     (JNIEnv *env, jobject thiz, jlong jsClassRef)
 {
-    LOGD("JSClassRelease");
+    JNI_STATS_ENTER(JSClassRelease)
     JSClassRelease((JSClassRef)jsClassRef);
 }
 
@@ -1663,7 +2350,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSClassRetain
     (JNIEnv *env, jobject thiz, jlong jsClassRef)
 {
-    LOGD("JSClassRetain");
+    JNI_STATS_ENTER(JSClassRetain)
     return (jlong)JSClassRetain((JSClassRef)jsClassRef);
 }
 
@@ -1677,7 +2364,7 @@ JNIEXPORT jint JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameArrayGetCount
     (JNIEnv *env, jobject thiz, jlong namesRef)
 {
-    LOGD("JSPropertyNameArrayGetCount");
+    JNI_STATS_ENTER(JSPropertyNameArrayGetCount)
     JSPropertyNameArrayRef array = (JSPropertyNameArrayRef)namesRef;
     return (jint)JSPropertyNameArrayGetCount(array);
 }
@@ -1693,10 +2380,10 @@ JNIEXPORT jstring JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameArrayGetNameAtIndex
     (JNIEnv *env, jobject thiz, jlong namesRef, jint index)
 {
-    LOGD("JSPropertyNameArrayGetNameAtIndex");
+    JNI_STATS_ENTER(JSPropertyNameArrayGetNameAtIndex)
     JSPropertyNameArrayRef array = (JSPropertyNameArrayRef)namesRef;
     JSStringRef name = JSPropertyNameArrayGetNameAtIndex(array, index);
-    JSTRING_FROM_JSSTRINGREF(name, cname, jname)
+    JSTRING_FROM_JSSTRINGREF(name, jname)
     return jname;
 }
 
@@ -1709,7 +2396,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameArrayRelease
     (JNIEnv *env, jobject thiz, jlong namesRef)
 {
-    LOGD("JSPropertyNameArrayRelease");
+    JNI_STATS_ENTER(JSPropertyNameArrayRelease)
     JSPropertyNameArrayRef array = (JSPropertyNameArrayRef)namesRef;
     JSPropertyNameArrayRelease(array);
 }
@@ -1724,7 +2411,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameArrayRetain
     (JNIEnv *env, jobject thiz, jlong namesRef)
 {
-    LOGD("JSPropertyNameArrayRetain");
+    JNI_STATS_ENTER(JSPropertyNameArrayRetain)
     JSPropertyNameArrayRef array = (JSPropertyNameArrayRef)namesRef;
     return (jlong)JSPropertyNameArrayRetain(array);
 }
@@ -1739,7 +2426,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameAccumulatorAddName
     (JNIEnv *env, jobject thiz, jlong accumulatorRef, jstring name)
 {
-    LOGD("JSPropertyNameAccumulatorAddName");
+    JNI_STATS_ENTER(JSPropertyNameAccumulatorAddName)
     JSPropertyNameAccumulatorRef accumulator = (JSPropertyNameAccumulatorRef)accumulatorRef;
     JSSTRINGREF_FROM_JSTRING(name, jsname)
 
@@ -1760,18 +2447,18 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameA
 JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPropertyAtIndex
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jint propertyIndex,
-     jlong jsValueRef, jobject exceptionObj)
+     jlong jsValueRef, jlongArray exceptionOut)
 {
-    LOGD("JSObjectSetPropertyAtIndex");
+    JNI_STATS_ENTER(JSObjectSetPropertyAtIndex)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSValueRef value = (JSValueRef)jsValueRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSObjectSetPropertyAtIndex(ctx, object, propertyIndex, value, &exceptionStore);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
 }
 
@@ -1786,7 +2473,7 @@ JNIEXPORT void JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPrototype
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jlong jsValueRef)
 {
-    LOGD("JSObjectSetPrototype");
+    JNI_STATS_ENTER(JSObjectSetPrototype)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSValueRef value = (JSValueRef)jsValueRef;
@@ -1805,7 +2492,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectIsConstructor
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
 {
-    LOGD("JSObjectIsConstructor");
+    JNI_STATS_ENTER(JSObjectIsConstructor)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -1823,7 +2510,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectIsFunction
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
 {
-    LOGD("JSObjectIsFunction");
+    JNI_STATS_ENTER(JSObjectIsFunction)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -1841,7 +2528,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCopyPropertyNames
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
 {
-    LOGD("JSObjectCopyPropertyNames");
+    JNI_STATS_ENTER(JSObjectCopyPropertyNames)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -1859,17 +2546,17 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectCopyPro
 */
 JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeleteProperty
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring name, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring name, jlongArray exceptionOut)
 {
-    LOGD("JSObjectDeleteProperty");
+    JNI_STATS_ENTER(JSObjectDeleteProperty)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     JSSTRINGREF_FROM_JSTRING(name, jsname)
     bool value = JSObjectDeleteProperty(ctx, object, jsname, &exceptionStore);
     JSSTRING_RELEASE(jsname);
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return value ? JNI_TRUE : JNI_FALSE;
 }
@@ -1886,16 +2573,16 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeleteP
 */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPropertyAtIndex
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jint index, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jint index, jlongArray exceptionOut)
 {
-    LOGD("JSObjectGetPropertyAtIndex");
+    JNI_STATS_ENTER(JSObjectGetPropertyAtIndex)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSValueRef result = JSObjectGetPropertyAtIndex(ctx, object, index, &exceptionStore);
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)result;
 }
@@ -1911,7 +2598,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPrototype
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
 {
-    LOGD("JSObjectGetPrototype");
+    JNI_STATS_ENTER(JSObjectGetPrototype)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -1929,7 +2616,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectHasProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring name)
 {
-    LOGD("JSObjectHasProperty");
+    JNI_STATS_ENTER(JSObjectHasProperty)
     JSContextRef ctx = (JSContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSSTRINGREF_FROM_JSTRING(name, jsname)
@@ -1938,28 +2625,715 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectHasProp
     return value ? JNI_TRUE : JNI_FALSE;
 }
 
-/*!
- @function
- @abstract Creates a JavaScript Array object.
- @param ctx The execution context to use.
- @param argumentCount An integer count of the number of arguments in arguments.
- @param arguments A JSValue array of data to populate the Array with. Pass NULL if argumentCount is 0.
- @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
- @result A JSObject that is an Array.
+/*
+ * Create JSStringRef for JSPropertyName, ownership follows the Create Rule.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSPropertyName_NativeJSStringCreate
+    (JNIEnv *env, jclass clazz, jstring name)
+{
+    JNI_STATS_ENTER(JSStringCreate)
+    JSSTRINGREF_FROM_JSTRING(name, jsname)
+    return (jlong)jsname;
+}
+
+/*
+ * Release JSStringRef of JSPropertyName. JSStringRelease is thread safe so this can be called from any thread.
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_opaquetypes_JSPropertyName_NativeJSStringRelease
+    (JNIEnv *env, jclass clazz, jlong jsStringRef)
+{
+    JNI_STATS_ENTER(JSStringRelease)
+    JSStringRef jsname = (JSStringRef)jsStringRef;
+    JSSTRING_RELEASE(jsname);
+}
+
+/*
+ * Property functions that take JSStringRef of JSPropertyName instead of Java String.
+ * These don't need any string conversion. JSPropertyName object itself is passed too
+ * so that it is not finalized while its JSStringRef is in use.
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef,
+     jlong jsValueRef, jint attributes, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectSetPropertyWithName)
+    JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    JSValueRef value = (JSValueRef)jsValueRef;
+    JSValueRef exceptionStore = NULL;
+
+    JSObjectSetProperty(ctx, object, (JSStringRef)jsStringRef, value, attributes, &exceptionStore);
+
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
+     jobject propertyName, jlong jsStringRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectGetPropertyWithName)
+    JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    JSValueRef exceptionStore = NULL;
+
+    JSValueRef value = JSObjectGetProperty(ctx, object, (JSStringRef)jsStringRef, &exceptionStore);
+
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+
+    return (jlong)value;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectHasPropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef)
+{
+    JNI_STATS_ENTER(JSObjectHasPropertyWithName)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    return JSObjectHasProperty(ctx, object, (JSStringRef)jsStringRef) ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeletePropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectDeletePropertyWithName)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    JSValueRef exceptionStore = NULL;
+    bool value = JSObjectDeleteProperty(ctx, object, (JSStringRef)jsStringRef, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return value ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSPropertyNameAccumulatorAddNameWithName
+    (JNIEnv *env, jobject thiz, jlong accumulatorRef, jobject propertyName, jlong jsStringRef)
+{
+    JNI_STATS_ENTER(JSPropertyNameAccumulatorAddNameWithName)
+    JSPropertyNameAccumulatorRef accumulator = (JSPropertyNameAccumulatorRef)accumulatorRef;
+    JSPropertyNameAccumulatorAddName(accumulator, (JSStringRef)jsStringRef);
+}
+
+/*
+ * Number of values that are kept on stack between copies from/to Java array
+ */
+#define JSPROPERTIES_CHUNK_LENGTH 64
+
+/*!
+ @function
+ @abstract Gets multiple properties from an object in one call.
+ @param ctx The execution context to use.
+ @param object The JSObject whose properties you want to get.
+ @param names Java String array containing the property names.
+ @param jsStringRefs JSStringRef array of the property names, used instead of names when it is not NULL.
+ @param values Java long array in which to store the JSValueRef of each property.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result The number of properties that have been got, which is less than the number of names when an exception is thrown.
+ */
+static jint GetProperties(JNIEnv* env, JSContextRef ctx, JSObjectRef object, jobjectArray names,
+                          jlongArray jsStringRefs, jlongArray values, jlongArray exceptionOut)
+{
+    jsize count = (*env)->GetArrayLength(env, names);
+    jlong chunk[JSPROPERTIES_CHUNK_LENGTH];
+    jlong refs[JSPROPERTIES_CHUNK_LENGTH];
+    JSValueRef exceptionStore = NULL;
+    jsize i = 0;
+
+    while (i < count && exceptionStore == NULL) {
+        jsize start = i;
+        jsize length = count - start < JSPROPERTIES_CHUNK_LENGTH ? count - start : JSPROPERTIES_CHUNK_LENGTH;
+        if (jsStringRefs != NULL) {
+            (*env)->GetLongArrayRegion(env, jsStringRefs, start, length, refs);
+        }
+        for (; i < start + length; i++) {
+            JSValueRef value;
+            if (jsStringRefs != NULL) {
+                value = JSObjectGetProperty(ctx, object, (JSStringRef)refs[i - start], &exceptionStore);
+            } else {
+                jstring name = (jstring)(*env)->GetObjectArrayElement(env, names, i);
+                JSSTRINGREF_FROM_JSTRING(name, jsname)
+                value = JSObjectGetProperty(ctx, object, jsname, &exceptionStore);
+                JSSTRING_RELEASE(jsname);
+                (*env)->DeleteLocalRef(env, name);
+            }
+            if (exceptionStore != NULL) break;
+            chunk[i - start] = (jlong)value;
+        }
+        (*env)->SetLongArrayRegion(env, values, start, i - start, chunk);
+    }
+
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jint)i;
+}
+
+/*!
+ @function
+ @abstract Sets multiple properties on an object in one call.
+ @param ctx The execution context to use.
+ @param object The JSObject whose properties you want to set.
+ @param names Java String array containing the property names.
+ @param jsStringRefs JSStringRef array of the property names, used instead of names when it is not NULL.
+ @param values Java long array containing the JSValueRef to use as the value of each property.
+ @param attributes A logically ORed set of JSPropertyAttributes to give to the properties.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result The number of properties that have been set, which is less than the number of names when an exception is thrown.
+ */
+static jint SetProperties(JNIEnv* env, JSContextRef ctx, JSObjectRef object, jobjectArray names,
+                          jlongArray jsStringRefs, jlongArray values, jint attributes, jlongArray exceptionOut)
+{
+    jsize count = (*env)->GetArrayLength(env, names);
+    jlong chunk[JSPROPERTIES_CHUNK_LENGTH];
+    jlong refs[JSPROPERTIES_CHUNK_LENGTH];
+    JSValueRef exceptionStore = NULL;
+    jsize i = 0;
+
+    while (i < count && exceptionStore == NULL) {
+        jsize start = i;
+        jsize length = count - start < JSPROPERTIES_CHUNK_LENGTH ? count - start : JSPROPERTIES_CHUNK_LENGTH;
+        (*env)->GetLongArrayRegion(env, values, start, length, chunk);
+        if (jsStringRefs != NULL) {
+            (*env)->GetLongArrayRegion(env, jsStringRefs, start, length, refs);
+        }
+        for (; i < start + length; i++) {
+            JSValueRef value = (JSValueRef)chunk[i - start];
+            if (jsStringRefs != NULL) {
+                JSObjectSetProperty(ctx, object, (JSStringRef)refs[i - start], value, attributes, &exceptionStore);
+            } else {
+                jstring name = (jstring)(*env)->GetObjectArrayElement(env, names, i);
+                JSSTRINGREF_FROM_JSTRING(name, jsname)
+                JSObjectSetProperty(ctx, object, jsname, value, attributes, &exceptionStore);
+                JSSTRING_RELEASE(jsname);
+                (*env)->DeleteLocalRef(env, name);
+            }
+            if (exceptionStore != NULL) break;
+        }
+    }
+
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jint)i;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetProperties
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
+     jobjectArray names, jlongArray values, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectGetProperties)
+    return GetProperties(env, (JSContextRef)jsContextRef, (JSObjectRef)jsObjectRef, names, NULL, values, exceptionOut);
+}
+
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPropertiesWithNames
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
+     jobjectArray propertyNames, jlongArray jsStringRefs, jlongArray values, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectGetPropertiesWithNames)
+    return GetProperties(env, (JSContextRef)jsContextRef, (JSObjectRef)jsObjectRef, propertyNames, jsStringRefs, values, exceptionOut);
+}
+
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetProperties
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
+     jobjectArray names, jlongArray values, jint attributes, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectSetProperties)
+    return SetProperties(env, (JSContextRef)jsContextRef, (JSObjectRef)jsObjectRef, names, NULL, values, attributes, exceptionOut);
+}
+
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPropertiesWithNames
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef,
+     jobjectArray propertyNames, jlongArray jsStringRefs, jlongArray values, jint attributes, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectSetPropertiesWithNames)
+    return SetProperties(env, (JSContextRef)jsContextRef, (JSObjectRef)jsObjectRef, propertyNames, jsStringRefs, values, attributes, exceptionOut);
+}
+
+/*
+ * Number of elements that are kept on stack between copies from JS array to Java array
+ */
+#define JSARRAY_CHUNK_LENGTH 1024
+
+/* Convert JS number to Java integers, NaN becomes 0 and out of range values are clamped */
+static jint JIntFromDouble(double value)
+{
+    if (value != value) return 0;
+    if (value >= 2147483647.0) return (jint)2147483647;
+    if (value <= -2147483648.0) return (jint)(-2147483647 - 1);
+    return (jint)value;
+}
+
+static jlong JLongFromDouble(double value)
+{
+    if (value != value) return 0;
+    if (value >= 9223372036854775807.0) return (jlong)INT64_MAX;
+    if (value <= -9223372036854775808.0) return (jlong)INT64_MIN;
+    return (jlong)value;
+}
+
+static double DoubleFromJDouble(jdouble value) { return (double)value; }
+static double DoubleFromJInt(jint value)       { return (double)value; }
+static double DoubleFromJLong(jlong value)     { return (double)value; }
+static jdouble JDoubleFromDouble(double value) { return (jdouble)value; }
+
+/*
+ * Create JS array from Java primitive array.
+ * JSValueMakeNumber takes the JSLock, which must not be done in a JNI critical region,
+ * so elements are copied to a stack buffer by chunk and the numbers are made from the copy.
+ */
+#define JSARRAY_FROM_PRIMITIVE_ARRAY(jtype, GetArrayRegion, fromtype)\
+static JSObjectRef JSArrayFrom_##jtype(JNIEnv* env, JSContextRef ctx, jtype##Array values, JSValueRef* exception)\
+{\
+    jsize length = values == NULL ? 0 : (*env)->GetArrayLength(env, values);\
+    JSValueRef* js_argv = NULL;\
+    if (length > 0) {\
+        js_argv = (JSValueRef*)malloc(sizeof(JSValueRef) * length);\
+        if (js_argv == NULL) return NULL;\
+        jtype chunk[JSARRAY_CHUNK_LENGTH];\
+        jsize start;\
+        for (start = 0; start < length; start += JSARRAY_CHUNK_LENGTH) {\
+            jsize count = length - start < JSARRAY_CHUNK_LENGTH ? length - start : JSARRAY_CHUNK_LENGTH;\
+            (*env)->GetArrayRegion(env, values, start, count, chunk);\
+            jsize i;\
+            for (i = 0; i < count; i++) {\
+                js_argv[start + i] = JSValueMakeNumber(ctx, fromtype(chunk[i]));\
+            }\
+        }\
+    }\
+    JSObjectRef array = JSObjectMakeArray(ctx, length, js_argv, exception);\
+    free(js_argv);\
+    return array;\
+}
+
+JSARRAY_FROM_PRIMITIVE_ARRAY(jdouble, GetDoubleArrayRegion, DoubleFromJDouble)
+JSARRAY_FROM_PRIMITIVE_ARRAY(jint,    GetIntArrayRegion,    DoubleFromJInt)
+JSARRAY_FROM_PRIMITIVE_ARRAY(jlong,   GetLongArrayRegion,   DoubleFromJLong)
+
+/*
+ * Copy JS array-like object to new Java primitive array.
+ * Elements may have getters that call back to Java, so they are converted to a stack buffer
+ * and copied to Java array by chunk instead of pinning the Java array.
+ */
+#define PRIMITIVE_ARRAY_FROM_JSARRAY(jtype, NewArray, SetArrayRegion, totype)\
+static jtype##Array PrimitiveArrayFromJSArray_##jtype(JNIEnv* env, JSContextRef ctx, JSObjectRef object, JSValueRef* exception)\
+{\
+    JSStringRef lengthName = JSStringCreateWithUTF8CString("length");\
+    JSValueRef lengthValue = JSObjectGetProperty(ctx, object, lengthName, exception);\
+    JSStringRelease(lengthName);\
+    if (*exception != NULL) return NULL;\
+    double length = JSValueToNumber(ctx, lengthValue, exception);\
+    if (*exception != NULL) return NULL;\
+    jsize count = (length > 0 && length < 2147483647.0) ? (jsize)length : 0;\
+    jtype##Array values = (*env)->NewArray(env, count);\
+    if (values == NULL) return NULL;\
+    jtype chunk[JSARRAY_CHUNK_LENGTH];\
+    jsize i = 0;\
+    while (i < count && *exception == NULL) {\
+        jsize start = i;\
+        jsize end = count - start < JSARRAY_CHUNK_LENGTH ? count : start + JSARRAY_CHUNK_LENGTH;\
+        for (; i < end; i++) {\
+            JSValueRef value = JSObjectGetPropertyAtIndex(ctx, object, (unsigned)i, exception);\
+            if (*exception != NULL) break;\
+            double number = JSValueToNumber(ctx, value, exception);\
+            if (*exception != NULL) break;\
+            chunk[i - start] = totype(number);\
+        }\
+        (*env)->SetArrayRegion(env, values, start, i - start, chunk);\
+    }\
+    return values;\
+}
+
+PRIMITIVE_ARRAY_FROM_JSARRAY(jdouble, NewDoubleArray, SetDoubleArrayRegion, JDoubleFromDouble)
+PRIMITIVE_ARRAY_FROM_JSARRAY(jint,    NewIntArray,    SetIntArrayRegion,    JIntFromDouble)
+PRIMITIVE_ARRAY_FROM_JSARRAY(jlong,   NewLongArray,   SetLongArrayRegion,   JLongFromDouble)
+
+/*!
+ @function
+ @abstract Creates a JavaScript Array object from Java double array.
+ @param ctx The execution context to use.
+ @param values Java double array of the elements.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result A JSObject that is an Array.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeArrayFromDoubleArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jdoubleArray values, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectMakeArrayFromDoubleArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    JSObjectRef array = JSArrayFrom_jdouble(env, ctx, values, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jlong)array;
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeArrayFromIntArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jintArray values, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectMakeArrayFromIntArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    JSObjectRef array = JSArrayFrom_jint(env, ctx, values, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jlong)array;
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeArrayFromLongArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlongArray values, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectMakeArrayFromLongArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    JSObjectRef array = JSArrayFrom_jlong(env, ctx, values, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jlong)array;
+}
+
+/*!
+ @function
+ @abstract Converts the elements of a JavaScript Array (or array-like object) to Java double array.
+ @param ctx The execution context to use.
+ @param object The JSObject that has length and indexed elements.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result Java double array that has the same length as the object. Elements after an exception are left 0.
+ */
+JNIEXPORT jdoubleArray JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectToDoubleArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectToDoubleArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    jdoubleArray values = PrimitiveArrayFromJSArray_jdouble(env, ctx, (JSObjectRef)jsObjectRef, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return values;
+}
+
+JNIEXPORT jintArray JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectToIntArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectToIntArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    jintArray values = PrimitiveArrayFromJSArray_jint(env, ctx, (JSObjectRef)jsObjectRef, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return values;
+}
+
+JNIEXPORT jlongArray JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectToLongArray
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSObjectToLongArray)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    jlongArray values = PrimitiveArrayFromJSArray_jlong(env, ctx, (JSObjectRef)jsObjectRef, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return values;
+}
+
+/*
+ * Typed array view over Java direct ByteBuffer.
+ * JavaScriptCore in this tree does not expose typed arrays through the C API (they are only
+ * defined by the jsc shell and WebCore), so the view is a native JSClass whose indexed properties
+ * read and write the buffer memory directly. Elements are stored in native byte order.
+ * Type values are the same as JSC::TypedArrayType and enums.JSTypedArrayType.
+ */
+typedef enum {
+    JSTypedArrayTypeNone = 0,
+    JSTypedArrayTypeInt8,
+    JSTypedArrayTypeInt16,
+    JSTypedArrayTypeInt32,
+    JSTypedArrayTypeUint8,
+    JSTypedArrayTypeUint8Clamped,
+    JSTypedArrayTypeUint16,
+    JSTypedArrayTypeUint32,
+    JSTypedArrayTypeFloat32,
+    JSTypedArrayTypeFloat64
+} JSTypedArrayType;
+
+static const size_t JSTypedArrayElementSize[] = { 0, 1, 2, 4, 1, 1, 2, 4, 4, 8 };
+
+typedef struct {
+    jobject buffer;
+    uint8_t* data;
+    size_t length;
+    JSTypedArrayType type;
+} JSTypedArrayData;
+
+static JSClassRef jsclass_TypedArray = NULL;
+static pthread_once_t jsclass_TypedArrayOnce = PTHREAD_ONCE_INIT;
+
+/* ECMAScript ToInt32 without libm, values beyond 2^63 become 0 */
+static uint32_t JSTypedArrayToUint32(double value)
+{
+    if (value != value || value >= 9223372036854775807.0 || value <= -9223372036854775808.0) return 0;
+    return (uint32_t)(int64_t)value;
+}
+
+static uint8_t JSTypedArrayToUint8Clamped(double value)
+{
+    if (!(value > 0)) return 0;
+    if (value >= 255) return 255;
+    return (uint8_t)(value + 0.5);
+}
+
+static double JSTypedArrayGetElement(JSTypedArrayData* data, size_t index)
+{
+    uint8_t* p = data->data + index * JSTypedArrayElementSize[data->type];
+    switch (data->type) {
+        case JSTypedArrayTypeInt8:         return (double)*(int8_t*)p;
+        case JSTypedArrayTypeUint8:
+        case JSTypedArrayTypeUint8Clamped: return (double)*p;
+        case JSTypedArrayTypeInt16:        { int16_t v;  memcpy(&v, p, sizeof(v)); return (double)v; }
+        case JSTypedArrayTypeUint16:       { uint16_t v; memcpy(&v, p, sizeof(v)); return (double)v; }
+        case JSTypedArrayTypeInt32:        { int32_t v;  memcpy(&v, p, sizeof(v)); return (double)v; }
+        case JSTypedArrayTypeUint32:       { uint32_t v; memcpy(&v, p, sizeof(v)); return (double)v; }
+        case JSTypedArrayTypeFloat32:      { float v;    memcpy(&v, p, sizeof(v)); return (double)v; }
+        case JSTypedArrayTypeFloat64:      { double v;   memcpy(&v, p, sizeof(v)); return v; }
+        default: return 0;
+    }
+}
+
+static void JSTypedArraySetElement(JSTypedArrayData* data, size_t index, double value)
+{
+    uint8_t* p = data->data + index * JSTypedArrayElementSize[data->type];
+    switch (data->type) {
+        case JSTypedArrayTypeInt8:
+        case JSTypedArrayTypeUint8:        *p = (uint8_t)JSTypedArrayToUint32(value); break;
+        case JSTypedArrayTypeUint8Clamped: *p = JSTypedArrayToUint8Clamped(value); break;
+        case JSTypedArrayTypeInt16:
+        case JSTypedArrayTypeUint16:       { uint16_t v = (uint16_t)JSTypedArrayToUint32(value); memcpy(p, &v, sizeof(v)); break; }
+        case JSTypedArrayTypeInt32:
+        case JSTypedArrayTypeUint32:       { uint32_t v = JSTypedArrayToUint32(value); memcpy(p, &v, sizeof(v)); break; }
+        case JSTypedArrayTypeFloat32:      { float v = (float)value; memcpy(p, &v, sizeof(v)); break; }
+        case JSTypedArrayTypeFloat64:      memcpy(p, &value, sizeof(value)); break;
+        default: break;
+    }
+}
+
+/* Parse array index from property name, returns false if the name is not an index */
+static bool JSTypedArrayParseIndex(JSStringRef propertyName, size_t* index)
+{
+    size_t length = JSStringGetLength(propertyName);
+    const JSChar* chars = JSStringGetCharactersPtr(propertyName);
+    size_t value = 0;
+    size_t i;
+    if (length == 0 || length > 10 || (length > 1 && chars[0] == '0')) return false;
+    for (i = 0; i < length; i++) {
+        if (chars[i] < '0' || chars[i] > '9') return false;
+        value = value * 10 + (chars[i] - '0');
+    }
+    *index = value;
+    return true;
+}
+
+static JSValueRef JSTypedArrayGetPropertyCallback(JSContextRef ctx, JSObjectRef object, JSStringRef propertyName, JSValueRef* exception)
+{
+    JNI_STATS_ENTER(JSTypedArrayGetPropertyCallback)
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    size_t index;
+    if (data == NULL) return NULL;
+    if (JSTypedArrayParseIndex(propertyName, &index)) {
+        return index < data->length ? JSValueMakeNumber(ctx, JSTypedArrayGetElement(data, index)) : JSValueMakeUndefined(ctx);
+    } else if (JSStringIsEqualToUTF8CString(propertyName, "length")) {
+        return JSValueMakeNumber(ctx, (double)data->length);
+    } else if (JSStringIsEqualToUTF8CString(propertyName, "byteLength")) {
+        return JSValueMakeNumber(ctx, (double)(data->length * JSTypedArrayElementSize[data->type]));
+    } else if (JSStringIsEqualToUTF8CString(propertyName, "BYTES_PER_ELEMENT")) {
+        return JSValueMakeNumber(ctx, (double)JSTypedArrayElementSize[data->type]);
+    }
+    return NULL;
+}
+
+static bool JSTypedArraySetPropertyCallback(JSContextRef ctx, JSObjectRef object, JSStringRef propertyName, JSValueRef value, JSValueRef* exception)
+{
+    JNI_STATS_ENTER(JSTypedArraySetPropertyCallback)
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    size_t index;
+    if (data == NULL) return false;
+    if (JSTypedArrayParseIndex(propertyName, &index)) {
+        double number = JSValueToNumber(ctx, value, exception);
+        if (index < data->length && (exception == NULL || *exception == NULL)) {
+            JSTypedArraySetElement(data, index, number);
+        }
+        return true;
+    }
+    /* length, byteLength and BYTES_PER_ELEMENT are read only */
+    return JSStringIsEqualToUTF8CString(propertyName, "length")
+        || JSStringIsEqualToUTF8CString(propertyName, "byteLength")
+        || JSStringIsEqualToUTF8CString(propertyName, "BYTES_PER_ELEMENT");
+}
+
+static bool JSTypedArrayHasPropertyCallback(JSContextRef ctx, JSObjectRef object, JSStringRef propertyName)
+{
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    size_t index;
+    if (data == NULL) return false;
+    if (JSTypedArrayParseIndex(propertyName, &index)) return index < data->length;
+    return JSStringIsEqualToUTF8CString(propertyName, "length")
+        || JSStringIsEqualToUTF8CString(propertyName, "byteLength")
+        || JSStringIsEqualToUTF8CString(propertyName, "BYTES_PER_ELEMENT");
+}
+
+static void JSTypedArrayGetPropertyNamesCallback(JSContextRef ctx, JSObjectRef object, JSPropertyNameAccumulatorRef propertyNames)
+{
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    char name[24]; /* 20 digits of 64 bit unsigned long and NUL */
+    size_t i;
+    if (data == NULL) return;
+    for (i = 0; i < data->length; i++) {
+        snprintf(name, sizeof(name), "%lu", (unsigned long)i);
+        JSStringRef jsname = JSStringCreateWithUTF8CString(name);
+        JSPropertyNameAccumulatorAddName(propertyNames, jsname);
+        JSStringRelease(jsname);
+    }
+}
+
+static void JSTypedArrayFinalizeCallback(JSObjectRef object)
+{
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    if (data == NULL) return;
+    JNI_ENV_ENTER
+    (*env)->DeleteGlobalRef(env, data->buffer);
+    JNI_ENV_EXIT
+    free(data);
+}
+
+static void CreateTypedArrayClass()
+{
+    JSClassDefinition definition = kJSClassDefinitionEmpty;
+    definition.className = "TypedArray";
+    definition.getProperty = JSTypedArrayGetPropertyCallback;
+    definition.setProperty = JSTypedArraySetPropertyCallback;
+    definition.hasProperty = JSTypedArrayHasPropertyCallback;
+    definition.getPropertyNames = JSTypedArrayGetPropertyNamesCallback;
+    definition.finalize = JSTypedArrayFinalizeCallback;
+    jsclass_TypedArray = JSClassCreate(&definition);
+}
+
+/*!
+ @function
+ @abstract Creates a typed array view whose elements are stored in Java direct ByteBuffer.
+ @param ctx The execution context to use.
+ @param type The JSTypedArrayType of the elements.
+ @param buffer Java direct ByteBuffer, whole capacity of the buffer is used regardless of position and limit.
+ @result A JSObject that shares memory with the buffer, or NULL if the buffer is not direct.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeTypedArrayWithBuffer
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint type, jobject buffer)
+{
+    JNI_STATS_ENTER(JSObjectMakeTypedArrayWithBuffer)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    if (type <= JSTypedArrayTypeNone || type > JSTypedArrayTypeFloat64) return 0;
+
+    uint8_t* address = (uint8_t*)(*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    if (address == NULL || capacity < 0) return 0;
+
+    pthread_once(&jsclass_TypedArrayOnce, CreateTypedArrayClass);
+
+    JSTypedArrayData* data = (JSTypedArrayData*)malloc(sizeof(JSTypedArrayData));
+    if (data == NULL) return 0;
+    data->buffer = (*env)->NewGlobalRef(env, buffer);
+    data->data   = address;
+    data->type   = (JSTypedArrayType)type;
+    data->length = (size_t)capacity / JSTypedArrayElementSize[type];
+
+    return (jlong)JSObjectMake(ctx, jsclass_TypedArray, data);
+}
+
+/*!
+ @function
+ @abstract Returns Java direct ByteBuffer that backs a typed array view.
+ @param ctx The execution context to use.
+ @param object The JSObject created by JSObjectMakeTypedArrayWithBuffer.
+ @result The ByteBuffer, or NULL if the object is not a typed array view.
+ */
+JNIEXPORT jobject JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetTypedArrayBuffer
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
+{
+    JNI_STATS_ENTER(JSObjectGetTypedArrayBuffer)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    if (jsclass_TypedArray == NULL || !JSValueIsObjectOfClass(ctx, object, jsclass_TypedArray)) return NULL;
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    return data == NULL ? NULL : (*env)->NewLocalRef(env, data->buffer);
+}
+
+/*!
+ @function
+ @abstract Returns JSTypedArrayType of a typed array view.
+ @param ctx The execution context to use.
+ @param object The JSObject to test.
+ @result The type, or JSTypedArrayTypeNone if the object is not a typed array view.
+ */
+JNIEXPORT jint JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetTypedArrayType
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef)
+{
+    JNI_STATS_ENTER(JSObjectGetTypedArrayType)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    if (jsclass_TypedArray == NULL || !JSValueIsObjectOfClass(ctx, object, jsclass_TypedArray)) return JSTypedArrayTypeNone;
+    JSTypedArrayData* data = (JSTypedArrayData*)JSObjectGetPrivate(object);
+    return data == NULL ? JSTypedArrayTypeNone : (jint)data->type;
+}
+
+/*!
+ @function
+ @abstract Creates a JavaScript Array object.
+ @param ctx The execution context to use.
+ @param argumentCount An integer count of the number of arguments in arguments.
+ @param arguments A JSValue array of data to populate the Array with. Pass NULL if argumentCount is 0.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result A JSObject that is an Array.
  @discussion The behavior of this function does not exactly match the behavior of the built-in Array constructor. Specifically, if one argument 
  is supplied, this function returns an array with one element.
  */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeArray
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectMakeArray");
+    JNI_STATS_ENTER(JSObjectMakeArray)
     JSContextRef ctx = (JSContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSOBJECTMAKE_FROM_ARGV(JSObjectMakeArray, argc, argv, value)
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)value;
 }
@@ -1975,15 +3349,15 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeArr
  */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeDate
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectMakeDate");
+    JNI_STATS_ENTER(JSObjectMakeDate)
     JSContextRef ctx = (JSContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSOBJECTMAKE_FROM_ARGV(JSObjectMakeDate, argc, argv, value)
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)value;
 }
@@ -1999,15 +3373,15 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeDat
  */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeError
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectMakeError");
+    JNI_STATS_ENTER(JSObjectMakeError)
     JSContextRef ctx = (JSContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSOBJECTMAKE_FROM_ARGV(JSObjectMakeError, argc, argv, value)
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)value;
 }
@@ -2023,15 +3397,15 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeErr
  */
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeRegExp
-    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jobject exceptionObj)
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jint argc, jobject argv, jlongArray exceptionOut)
 {
-    LOGD("JSObjectMakeRegExp");
+    JNI_STATS_ENTER(JSObjectMakeRegExp)
     JSContextRef ctx = (JSContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     
     JSOBJECTMAKE_FROM_ARGV(JSObjectMakeRegExp, argc, argv, value)
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
     return (jlong)value;
 }
@@ -2105,11 +3479,11 @@ Java_com_appcelerator_javascriptcore_opaquetypes_Pointer_NativeUpdatePointer
 JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeFunction
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring name, jint paramCount,
-     jobjectArray paramNames, jstring body, jstring sourceURL, jint line, jobject exceptionObj)
+     jobjectArray paramNames, jstring body, jstring sourceURL, jint line, jlongArray exceptionOut)
 {
-    LOGD("JSObjectMakeFunction");
+    JNI_STATS_ENTER(JSObjectMakeFunction)
     JSContextRef ctx = (JSContextRef)jsContextRef;
-    JSValueRef exceptionStore = JSValueMakeNull(ctx);
+    JSValueRef exceptionStore = NULL;
     JSSTRINGREF_FROM_JSTRING(name, jsname)
     JSSTRINGREF_FROM_JSTRING(body, jsbody)
     JSSTRINGREF_FROM_JSTRING(sourceURL, jsSourceURL)
@@ -2135,8 +3509,8 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeFun
     }
     free((void*)jsParamNames);
     
-    if (!JSValueIsNull(ctx, exceptionStore)) {
-        UpdateJSValueExceptionPointer(env, ctx, exceptionStore, exceptionObj);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
     }
 
     return (jlong)value;
@@ -2155,7 +3529,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeConstructor
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsClassRef, jobject callback, jboolean useCallback)
 {
-    LOGD("JSObjectMakeConstructor");
+    JNI_STATS_ENTER(JSObjectMakeConstructor)
     return (jlong)JSObjectMakeConstructor((JSContextRef)jsContextRef, (JSClassRef)jsClassRef,
                                           NativeCallback_JSObjectMakeConstructorCallback);
 }
@@ -2172,7 +3546,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectMakeFunctionWithCallback
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jstring name)
 {
-    LOGD("JSObjectMakeFunctionWithCallback");
+    JNI_STATS_ENTER(JSObjectMakeFunctionWithCallback)
     JSSTRINGREF_FROM_JSTRING(name, jsname)
     JSObjectRef function = JSObjectMakeFunctionWithCallback((JSContextRef)jsContextRef, jsname,
                                           NativeCallback_JSObjectMakeFunctionCallback);
@@ -2225,11 +3599,60 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGetGlobalContext
     (JNIEnv *env, jobject thiz, jlong jsContextRef)
 {
-    LOGD("JSContextGetGlobalContext");
+    JNI_STATS_ENTER(JSContextGetGlobalContext)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     return (jlong)JSContextGetGlobalContext(ctx);
 }
 
+/*
+ * Fired by the watchdog when the script has run longer than the execution time limit.
+ * The context of the callback is the context group, Java finds the callback of the group.
+ */
+static bool NativeCallback_JSShouldTerminateCallback(JSContextRef ctx, void* context)
+{
+    JNI_STATS_ENTER(JSShouldTerminateCallback)
+    bool result = true;
+    JNI_ENV_ENTER
+    if (env != NULL) {
+        result = (*env)->CallStaticBooleanMethod(env, jclass_JSClassDefinition, jmethodId_JSShouldTerminateCallback,
+                                                 (jlong)ctx, (jlong)context) == JNI_TRUE ? true : false;
+    }
+    JNI_ENV_EXIT
+    return result;
+}
+
+/*!
+@function
+@abstract Sets the script execution time limit.
+@param group The JavaScript context group that this time limit applies to.
+@param limit The time limit of allowed script execution time in seconds.
+@param hasCallback false terminates the script unconditionally when the time limit has been reached,
+ true asks the Java callback of the group.
+*/
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGroupSetExecutionTimeLimit
+    (JNIEnv *env, jobject thiz, jlong jsContextGroupRef, jdouble limit, jboolean hasCallback)
+{
+    JNI_STATS_ENTER(JSContextGroupSetExecutionTimeLimit)
+    JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
+    JSContextGroupSetExecutionTimeLimit(group, (double)limit,
+                                        hasCallback == JNI_TRUE ? NativeCallback_JSShouldTerminateCallback : NULL,
+                                        (void*)group);
+}
+
+/*!
+@function
+@abstract Clears the script execution time limit.
+@param group The JavaScript context group that the time limit is cleared on.
+*/
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextGroupClearExecutionTimeLimit
+    (JNIEnv *env, jobject thiz, jlong jsContextGroupRef)
+{
+    JNI_STATS_ENTER(JSContextGroupClearExecutionTimeLimit)
+    JSContextGroupClearExecutionTimeLimit((JSContextGroupRef)jsContextGroupRef);
+}
+
 /*!
 @function
 @abstract Gets a Backtrace for the existing context
@@ -2240,10 +3663,10 @@ JNIEXPORT jstring JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSContextCreateBacktrace
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jint maxStackSize)
 {
-    LOGD("JSContextCreateBacktrace");
+    JNI_STATS_ENTER(JSContextCreateBacktrace)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSStringRef trace = JSContextCreateBacktrace(ctx, (unsigned)maxStackSize);
-    JSTRING_FROM_JSSTRINGREF(trace, ctrace, jtrace);
+    JSTRING_FROM_JSSTRINGREF(trace, jtrace)
     JSSTRING_RELEASE(trace);
     return jtrace;
 }
@@ -2264,7 +3687,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPrivateProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring propertyName, jlong jsValueRef)
 {
-    LOGD("JSObjectSetPrivateProperty");
+    JNI_STATS_ENTER(JSObjectSetPrivateProperty)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     JSValueRef value = (JSValueRef)jsValueRef;
@@ -2287,7 +3710,7 @@ JNIEXPORT jlong JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPrivateProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring propertyName)
 {
-    LOGD("JSObjectGetPrivateProperty");
+    JNI_STATS_ENTER(JSObjectGetPrivateProperty)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -2310,7 +3733,7 @@ JNIEXPORT jboolean JNICALL
 Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeletePrivateProperty
     (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jstring propertyName)
 {
-    LOGD("JSObjectDeletePrivateProperty");
+    JNI_STATS_ENTER(JSObjectDeletePrivateProperty)
     JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
     JSObjectRef object = (JSObjectRef)jsObjectRef;
     
@@ -2319,6 +3742,136 @@ Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeleteP
     JSSTRING_RELEASE(jsname);
     return result;
 }
+
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectSetPrivatePropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef, jlong jsValueRef)
+{
+    JNI_STATS_ENTER(JSObjectSetPrivatePropertyWithName)
+    JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    JSValueRef value = (JSValueRef)jsValueRef;
+    return JSObjectSetPrivateProperty(ctx, object, (JSStringRef)jsStringRef, value) ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectGetPrivatePropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef)
+{
+    JNI_STATS_ENTER(JSObjectGetPrivatePropertyWithName)
+    JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    return (jlong)JSObjectGetPrivateProperty(ctx, object, (JSStringRef)jsStringRef);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSObjectDeletePrivatePropertyWithName
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsObjectRef, jobject propertyName, jlong jsStringRef)
+{
+    JNI_STATS_ENTER(JSObjectDeletePrivatePropertyWithName)
+    JSGlobalContextRef ctx = (JSGlobalContextRef)jsContextRef;
+    JSObjectRef object = (JSObjectRef)jsObjectRef;
+    return JSObjectDeletePrivateProperty(ctx, object, (JSStringRef)jsStringRef) ? JNI_TRUE : JNI_FALSE;
+}
+
+/*!
+ @function
+ @abstract Creates a script reference from a string
+ @param contextGroup The context group the script is to be used in.
+ @param url The source url to be reported in errors and exceptions.
+ @param startingLineNumber An integer value specifying the script's starting line number in the file located at sourceURL. This is only used when reporting exceptions.
+ @param source The source string.
+ @result A JSScriptRef for the provided source, or NULL is the source is not a valid JavaScript program.  Ownership follows the Create Rule.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSScriptCreateFromString
+    (JNIEnv *env, jobject thiz, jlong jsContextGroupRef, jstring url, jint startingLineNumber, jstring source)
+{
+    JNI_STATS_ENTER(JSScriptCreateFromString)
+    JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
+    JSSTRINGREF_FROM_JSTRING(url, jsurl)
+    JSSTRINGREF_FROM_JSTRING(source, jssource)
+    JSScriptRef script = JSScriptCreateFromString(group, jsurl, startingLineNumber, jssource, NULL, NULL);
+    JSSTRING_RELEASE(jsurl);
+    JSSTRING_RELEASE(jssource);
+    return (jlong)script;
+}
+
+/*!
+ @function
+ @abstract Creates a script reference from an ascii string, without copying or taking ownership of the string
+ @param contextGroup The context group the script is to be used in.
+ @param url The source url to be reported in errors and exceptions.
+ @param startingLineNumber An integer value specifying the script's starting line number in the file located at sourceURL. This is only used when reporting exceptions.
+ @param source Java direct ByteBuffer that contains the source, such as MappedByteBuffer. Whole capacity is used as the source.
+ This is required to be pure ASCII and must outlive the global contexts of the group.
+ @result A JSScriptRef for the provided source, or NULL if any non-ASCII character is found in source or if the source is not a valid JavaScript program. Ownership follows the Create Rule.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSScriptCreateReferencingImmortalASCIIText
+    (JNIEnv *env, jobject thiz, jlong jsContextGroupRef, jstring url, jint startingLineNumber, jobject source)
+{
+    JNI_STATS_ENTER(JSScriptCreateReferencingImmortalASCIIText)
+    JSContextGroupRef group = (JSContextGroupRef)jsContextGroupRef;
+    const char* text = (const char*)(*env)->GetDirectBufferAddress(env, source);
+    jlong length = (*env)->GetDirectBufferCapacity(env, source);
+    if (text == NULL || length < 0) return 0;
+
+    JSSTRINGREF_FROM_JSTRING(url, jsurl)
+    JSScriptRef script = JSScriptCreateReferencingImmortalASCIIText(group, jsurl, startingLineNumber, text, (size_t)length, NULL, NULL);
+    JSSTRING_RELEASE(jsurl);
+    return (jlong)script;
+}
+
+/*!
+ @function
+ @abstract Retains a JavaScript script.
+ @param script The script to retain.
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSScriptRetain
+    (JNIEnv *env, jobject thiz, jlong jsScriptRef)
+{
+    JNI_STATS_ENTER(JSScriptRetain)
+    JSScriptRetain((JSScriptRef)jsScriptRef);
+}
+
+/*!
+ @function
+ @abstract Releases a JavaScript script.
+ @param script The script to release.
+ */
+JNIEXPORT void JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSScriptRelease
+    (JNIEnv *env, jobject thiz, jlong jsScriptRef)
+{
+    JNI_STATS_ENTER(JSScriptRelease)
+    JSScriptRelease((JSScriptRef)jsScriptRef);
+}
+
+/*!
+ @function
+ @abstract Evaluates a JavaScript script.
+ @param ctx The execution context to use.
+ @param script The JSScript to evaluate.
+ @param thisValue The value to use as "this" when evaluating the script.
+ @param exception A pointer to a JSValueRef in which to store an exception, if any. Pass NULL if you do not care to store an exception.
+ @result The JSValue that results from evaluating script, or NULL if an exception is thrown.
+ */
+JNIEXPORT jlong JNICALL
+Java_com_appcelerator_javascriptcore_JavaScriptCoreLibrary_NativeJSScriptEvaluate
+    (JNIEnv *env, jobject thiz, jlong jsContextRef, jlong jsScriptRef, jlong thisValueRef, jlongArray exceptionOut)
+{
+    JNI_STATS_ENTER(JSScriptEvaluate)
+    JSContextRef ctx = (JSContextRef)jsContextRef;
+    JSValueRef exceptionStore = NULL;
+    JSValueRef result = JSScriptEvaluate(ctx, (JSScriptRef)jsScriptRef, (JSValueRef)thisValueRef, &exceptionStore);
+    if (exceptionOut != NULL) {
+        UpdateJSValueExceptionOut(env, exceptionOut, ctx, exceptionStore);
+    }
+    return (jlong)result;
+}
+
 #endif
 
 #ifdef __cplusplus
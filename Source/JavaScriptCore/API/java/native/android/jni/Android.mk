@@ -25,6 +25,17 @@ LOCAL_CFLAGS    := -std=c99 -DENABLE_JAVASCRIPTCORE_PRIVATE_API
 
 include $(BUILD_SHARED_LIBRARY)
 
+# Native helpers of the tests, not shipped with the binding
+include $(CLEAR_VARS)
+
+LOCAL_MODULE    := JavaScriptCoreTestJNI
+LOCAL_SRC_FILES := ../../test/JavaScriptCoreTestJNI.c
+
+LOCAL_SHARED_LIBRARIES := JavaScriptCore_shared
+LOCAL_CFLAGS    := -std=c99
+
+include $(BUILD_SHARED_LIBRARY)
+
 # Remember: The NDK_MODULE_PATH environmental variable must contain the modules directories in the search path.
 $(call import-module,BUILD_webkit2)
 
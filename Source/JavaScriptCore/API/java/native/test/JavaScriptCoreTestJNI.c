@@ -0,0 +1,53 @@
+//
+//  JavaScriptCoreTestJNI.c
+//  JavaScriptCoreJNI
+//
+//  Native helpers of the tests, built as a separate library that is never shipped.
+//
+#include <pthread.h>
+#include <jni.h>
+#include <JavaScriptCore/JSBase.h>
+#include <JavaScriptCore/JSContextRef.h>
+#include <JavaScriptCore/JSObjectRef.h>
+#include <JavaScriptCore/JSValueRef.h>
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+typedef struct {
+    JSContextRef ctx;
+    JSObjectRef  function;
+    jint         times;
+} NativeThreadCall;
+
+static void* CallFunctionOnNativeThread(void* arg)
+{
+    NativeThreadCall* call = (NativeThreadCall*)arg;
+    jint i;
+    for (i = 0; i < call->times; i++) {
+        JSObjectCallAsFunction(call->ctx, call->function, NULL, 0, NULL, NULL);
+    }
+    return NULL;
+}
+
+/*
+ * Calls the function the number of times on a new pthread that JVM doesn't know and waits for
+ * the thread to exit, so that callbacks from native threads can be tested without a JSC helper thread
+ */
+JNIEXPORT jboolean JNICALL
+Java_com_appcelerator_javascriptcore_NativeThreadCaller_NativeCallFunctionOnNativeThread
+    (JNIEnv *env, jclass clazz, jlong jsContextRef, jlong jsObjectRef, jint times)
+{
+    NativeThreadCall call;
+    pthread_t thread;
+    call.ctx = (JSContextRef)jsContextRef;
+    call.function = (JSObjectRef)jsObjectRef;
+    call.times = times;
+    if (pthread_create(&thread, NULL, CallFunctionOnNativeThread, &call) != 0) return JNI_FALSE;
+    return pthread_join(thread, NULL) == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
+#ifdef __cplusplus
+}
+#endif
@@ -0,0 +1,325 @@
+package com.appcelerator.javascriptcore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import com.appcelerator.javascriptcore.enums.JSPropertyAttribute;
+import com.appcelerator.javascriptcore.opaquetypes.JSClassRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSGlobalContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSPropertyNameArrayRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+import com.appcelerator.javascriptcore.util.LongObjectMap;
+
+/*
+ * Pool of global contexts that are created in advance with the global class and bootstrap scripts,
+ * so that leasing a context does not pay for creating it and registering the bindings.
+ *
+ * Released contexts are reset before they are leased again: globals that are not defined by the
+ * bootstrap scripts are deleted, or set to undefined if they can not be deleted (declared by var).
+ * Globals of the bootstrap scripts are not restored, scripts should not modify them.
+ * A context is retired and replaced by a new one after it has been leased maxUses times,
+ * set maxUses to 0 to reuse contexts forever. If the replacement can not be created,
+ * the next lease creates it again so that the pool keeps its size.
+ *
+ *   JSContextPool pool = new JSContextPool(vm, globalClass, 4, bootstrap);
+ *   JSGlobalContextRef context = pool.lease();
+ *   try {
+ *       jsc.JSEvaluateScript(context, script, null);
+ *   } finally {
+ *       pool.release(context);
+ *   }
+ *
+ * Contexts share the context group of the virtual machine, leasing only makes sure that a context
+ * is used by one caller at a time.
+ */
+public class JSContextPool {
+
+    private static class Entry {
+        final JSGlobalContextRef context;
+        // Globals defined by the global class and the bootstrap scripts
+        final Set<String> globals;
+        int uses;
+
+        Entry(JSGlobalContextRef context, Set<String> globals) {
+            this.context = context;
+            this.globals = globals;
+        }
+    }
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private final JSVirtualMachine vm;
+    private final JSClassRef globalClass;
+    private final String[] bootstrapScripts;
+    private final int size;
+    private final LinkedBlockingDeque<Entry> idle = new LinkedBlockingDeque<Entry>();
+    // Guarded by itself
+    private final LongObjectMap<Entry> leased = new LongObjectMap<Entry>();
+
+    private volatile int maxUses = 0;
+    private volatile boolean resetGlobals = true;
+    private volatile boolean closed = false;
+
+    // Statistics, guarded by this
+    private long leaseCount;
+    private long leaseWaitNanos;
+    private long maxLeaseWaitNanos;
+    private long retiredCount;
+    // Retired contexts whose replacement has not been created yet, guarded by this
+    private int missingCount;
+
+    public JSContextPool(JSVirtualMachine vm, JSClassRef globalClass, int size, String... bootstrapScripts) {
+        if (size <= 0) throw new IllegalArgumentException("Size of context pool should be positive");
+        this.vm = vm;
+        this.globalClass = globalClass;
+        this.size = size;
+        this.bootstrapScripts = bootstrapScripts == null ? new String[0] : bootstrapScripts.clone();
+        for (int i = 0; i < size; i++) {
+            idle.addLast(createEntry());
+        }
+    }
+
+    private Entry createEntry() {
+        JSGlobalContextRef context = vm.createContext(globalClass);
+        for (int i = 0; i < bootstrapScripts.length; i++) {
+            JSValueRef exception = JSValueRef.Null();
+            jsc.JSEvaluateScript(context, bootstrapScripts[i], null, "bootstrap" + i + ".js", 1, exception);
+            if (!jsc.JSValueIsNull(context, exception)) {
+                JavaScriptException e = new JavaScriptException(context.pointer(), exception.p());
+                vm.releaseContext(context);
+                throw e;
+            }
+        }
+        return new Entry(context, copyGlobalNames(context));
+    }
+
+    private Set<String> copyGlobalNames(JSGlobalContextRef context) {
+        JSObjectRef global = jsc.JSContextGetGlobalObject(context);
+        JSPropertyNameArrayRef names = jsc.JSObjectCopyPropertyNames(context, global);
+        try {
+            int count = jsc.JSPropertyNameArrayGetCount(names);
+            Set<String> result = new HashSet<String>(count * 2);
+            for (int i = 0; i < count; i++) {
+                result.add(jsc.JSPropertyNameArrayGetNameAtIndex(names, i));
+            }
+            return result;
+        } finally {
+            jsc.JSPropertyNameArrayRelease(names);
+        }
+    }
+
+    /*
+     * Leases a context, waits until one is released if all contexts are leased
+     */
+    public JSGlobalContextRef lease() throws InterruptedException {
+        checkOpen();
+        long start = System.nanoTime();
+        Entry entry = createMissingEntry();
+        if (entry != null) return leased(entry, start);
+        while ((entry = idle.pollFirst(1, TimeUnit.SECONDS)) == null) {
+            checkOpen();
+        }
+        return leased(entry, start);
+    }
+
+    /*
+     * Leases a context, returns null if no context is released within the timeout
+     */
+    public JSGlobalContextRef lease(long timeout, TimeUnit unit) throws InterruptedException {
+        checkOpen();
+        long start = System.nanoTime();
+        Entry entry = createMissingEntry();
+        if (entry != null) return leased(entry, start);
+        entry = idle.pollFirst(timeout, unit);
+        if (entry == null) {
+            checkOpen();
+            return null;
+        }
+        return leased(entry, start);
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Context pool is closed");
+    }
+
+    private JSGlobalContextRef leased(Entry entry, long start) {
+        if (closed) {
+            vm.releaseContext(entry.context);
+            checkOpen();
+        }
+        long wait = System.nanoTime() - start;
+        entry.uses++;
+        synchronized (leased) {
+            leased.put(entry.context.pointer(), entry);
+        }
+        synchronized (this) {
+            leaseCount++;
+            leaseWaitNanos += wait;
+            if (wait > maxLeaseWaitNanos) maxLeaseWaitNanos = wait;
+        }
+        return entry.context;
+    }
+
+    /*
+     * Returns the leased context to the pool. Call this from the thread that has used the context
+     * because resetting the globals enters the context.
+     */
+    public void release(JSGlobalContextRef context) {
+        Entry entry;
+        synchronized (leased) {
+            entry = leased.remove(context.pointer());
+        }
+        if (entry == null) throw new IllegalArgumentException("Context is not leased from this pool");
+
+        if (closed) {
+            vm.releaseContext(entry.context);
+            return;
+        }
+        int limit = maxUses;
+        if (limit > 0 && entry.uses >= limit) {
+            retire(entry);
+            return;
+        }
+        if (resetGlobals) {
+            reset(entry);
+        }
+        idle.addFirst(entry);
+    }
+
+    /*
+     * Deletes the globals that have been defined after bootstrap
+     */
+    private void reset(Entry entry) {
+        JSGlobalContextRef context = entry.context;
+        JSObjectRef global = jsc.JSContextGetGlobalObject(context);
+        JSPropertyNameArrayRef names = jsc.JSObjectCopyPropertyNames(context, global);
+        try {
+            int count = jsc.JSPropertyNameArrayGetCount(names);
+            List<String> added = new ArrayList<String>();
+            for (int i = 0; i < count; i++) {
+                String name = jsc.JSPropertyNameArrayGetNameAtIndex(names, i);
+                if (!entry.globals.contains(name)) added.add(name);
+            }
+            for (String name : added) {
+                if (!jsc.JSObjectDeleteProperty(context, global, name, null)) {
+                    jsc.JSObjectSetProperty(context, global, name, jsc.JSValueMakeUndefined(context), JSPropertyAttribute.None, null);
+                }
+            }
+        } finally {
+            jsc.JSPropertyNameArrayRelease(names);
+        }
+    }
+
+    private void retire(Entry entry) {
+        vm.releaseContext(entry.context);
+        synchronized (this) {
+            retiredCount++;
+            missingCount++;
+        }
+        Entry replacement = createMissingEntry();
+        if (replacement != null) idle.addLast(replacement);
+    }
+
+    /*
+     * Creates the replacement of a retired context if there is one missing,
+     * it is still missing if creating it throws
+     */
+    private Entry createMissingEntry() {
+        synchronized (this) {
+            if (missingCount == 0) return null;
+            missingCount--;
+        }
+        boolean created = false;
+        try {
+            Entry entry = createEntry();
+            created = true;
+            return entry;
+        } finally {
+            if (!created) {
+                synchronized (this) {
+                    missingCount++;
+                }
+            }
+        }
+    }
+
+    /*
+     * Sets the number of leases after which a context is replaced, 0 keeps contexts forever
+     */
+    public void setMaxUses(int maxUses) {
+        this.maxUses = maxUses;
+    }
+
+    public int getMaxUses() {
+        return maxUses;
+    }
+
+    /*
+     * Enables deleting the globals that are not defined by the bootstrap scripts on release
+     */
+    public void enableGlobalReset(boolean enabled) {
+        this.resetGlobals = enabled;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getLeasedCount() {
+        synchronized (leased) {
+            return leased.size();
+        }
+    }
+
+    /*
+     * Returns the ratio of leased contexts, from 0 to 1
+     */
+    public double getOccupancy() {
+        return (double)getLeasedCount() / size;
+    }
+
+    public synchronized long getLeaseCount() {
+        return leaseCount;
+    }
+
+    public synchronized long getRetiredCount() {
+        return retiredCount;
+    }
+
+    /*
+     * Returns the average time callers have waited for a context in nanoseconds
+     */
+    public synchronized long getAverageLeaseWaitNanos() {
+        return leaseCount == 0 ? 0 : leaseWaitNanos / leaseCount;
+    }
+
+    public synchronized long getMaxLeaseWaitNanos() {
+        return maxLeaseWaitNanos;
+    }
+
+    public synchronized void resetCounters() {
+        leaseCount = 0;
+        leaseWaitNanos = 0;
+        maxLeaseWaitNanos = 0;
+        retiredCount = 0;
+    }
+
+    /*
+     * Releases the idle contexts, leased contexts are released when they are returned
+     */
+    public void close() {
+        closed = true;
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            vm.releaseContext(entry.context);
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.appcelerator.javascriptcore;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.appcelerator.javascriptcore.callbacks.JSShouldTerminateCallback;
+import com.appcelerator.javascriptcore.opaquetypes.JSContextGroupRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSGlobalContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueArrayRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+
+/*
+ * Runs tasks on virtual machines that are each confined to one thread.
+ *
+ * The executor owns one JSVirtualMachine per worker thread. The virtual machine is created,
+ * used and released only by its thread, so tasks never need to lock the context group.
+ * Tasks with the same affinity key always run on the same worker, which keeps the state
+ * they leave in the contexts. Other tasks run on the worker that has the fewest queued tasks.
+ *
+ *   JSExecutor executor = new JSExecutor(Runtime.getRuntime().availableProcessors());
+ *   CompletableFuture<Double> result = executor.submit(new JSExecutor.Task<Double>() {
+ *       public Double run(JSVirtualMachine vm) {
+ *           return jsc.JSEvaluateScript(vm.getDefaultContext(), "1 + 1", null).toDouble();
+ *       }
+ *   });
+ *
+ * JS values must not escape the task because they belong to the worker's virtual machine,
+ * tasks should return values converted to Java.
+ *
+ * evaluateScript and callFunction run on the default context of the worker and never block
+ * the caller. Their results are converted to Java: undefined and null to null, booleans to Boolean,
+ * numbers to Double, strings to String and objects to JSON strings. Evaluations queued to a worker
+ * are run together by one task, so a burst of them costs one thread hop. Completing the future
+ * before the script has finished, by cancel() for example, terminates the script by the execution
+ * time limit within CANCEL_CHECK_INTERVAL seconds. Where JavaScriptCore has no working watchdog
+ * (see JavaScriptCoreLibrary.isExecutionTimeLimitSupported()) cancel() only completes the future
+ * and the script keeps its worker busy until it returns.
+ *
+ * call() blocks until the task has run on a worker, which lets virtual threads use the bindings.
+ * A JNI call pins the carrier thread of a virtual thread for as long as the script runs, while
+ * a virtual thread waiting for the result of a worker is unmounted and frees its carrier.
+ */
+public class JSExecutor {
+
+    /*
+     * Task that runs on the thread of a virtual machine
+     */
+    public interface Task<T> {
+        T run(JSVirtualMachine vm) throws Exception;
+    }
+
+    /*
+     * Interval in seconds at which running evaluations are checked for cancellation
+     */
+    public static final double CANCEL_CHECK_INTERVAL = 0.05;
+
+    private static final AtomicInteger executorCount = new AtomicInteger();
+    // Queued by shutdown() to stop the worker after the tasks queued before it
+    private static final Runnable STOP = new Runnable() {
+        public void run() {}
+    };
+
+    // Thread.isVirtual() of Java 21, null on older runtimes where there are no virtual threads
+    private static final Method isVirtualMethod = findIsVirtualMethod();
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private final Worker[] workers;
+    // Worker that owns the context group, registered while its virtual machine is alive
+    private final ConcurrentHashMap<JSContextGroupRef, Worker> groupOwners = new ConcurrentHashMap<JSContextGroupRef, Worker>();
+
+    // Statistics of call(), guarded by this
+    private long handoffCount;
+    private long virtualThreadCallCount;
+    private long handoffNanos;
+    private long maxHandoffNanos;
+    private volatile boolean shutdown = false;
+    // Submitters hold the read lock from checking shutdown to enqueueing, shutdown() the write lock,
+    // so every accepted task is queued before STOP
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+
+    public JSExecutor(int threads) {
+        this(threads, null);
+    }
+
+    /*
+     * Creates the executor with the initializer that runs on each virtual machine before any task,
+     * such as the one that registers the bindings.
+     */
+    public JSExecutor(int threads, Task<?> initializer) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads should be positive");
+        int id = executorCount.incrementAndGet();
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(String.format("JSExecutor-%d-%d", id, i), initializer);
+            workers[i].start();
+        }
+    }
+
+    /*
+     * Runs the task on the least loaded worker
+     */
+    public <T> CompletableFuture<T> submit(Task<T> task) {
+        Worker worker = workers[0];
+        for (int i = 1; i < workers.length; i++) {
+            if (workers[i].pending.get() < worker.pending.get()) worker = workers[i];
+        }
+        return worker.submit(task);
+    }
+
+    /*
+     * Runs the task on the worker of the affinity key, tasks with equal keys run on the same worker
+     */
+    public <T> CompletableFuture<T> submit(Object affinityKey, Task<T> task) {
+        return workers[workerIndex(affinityKey)].submit(task);
+    }
+
+    /*
+     * Evaluates the script on the default context of the worker of the affinity key.
+     * The future completes with the converted result, or JavaScriptException with the message
+     * of the exception thrown by the script.
+     */
+    public CompletableFuture<Object> evaluateScript(Object affinityKey, String script, String sourceURL) {
+        return evaluateScript(affinityKey, null, script, sourceURL);
+    }
+
+    /*
+     * Evaluates the script on the context of the worker of the affinity key, such as a context
+     * created by a task with the same key. The future completes with IllegalArgumentException
+     * if the context does not belong to the virtual machine of that worker.
+     */
+    public CompletableFuture<Object> evaluateScript(Object affinityKey, final JSContextRef ctx, final String script, final String sourceURL) {
+        return workers[workerIndex(affinityKey)].submitBatched(new Task<Object>() {
+            public Object run(JSVirtualMachine vm) {
+                JSContextRef context = ctx == null ? vm.getDefaultContext() : ctx;
+                if (ctx != null && !jsc.JSContextGetGroup(ctx).equals(vm.getContextGroupRef())) {
+                    throw new IllegalArgumentException("Context does not belong to the worker of the affinity key");
+                }
+                JSValueRef exception = JSValueRef.Null();
+                JSValueRef result = jsc.JSEvaluateScript(context, script, null, sourceURL, 1, exception);
+                return toJava(context, result, exception);
+            }
+        });
+    }
+
+    /*
+     * Calls the global function on the default context of the worker of the affinity key.
+     * Arguments are converted to JS: null to null, Boolean to boolean, Number to number
+     * and others to string.
+     */
+    public CompletableFuture<Object> callFunction(Object affinityKey, final String functionName, final Object... arguments) {
+        return workers[workerIndex(affinityKey)].submitBatched(new Task<Object>() {
+            public Object run(JSVirtualMachine vm) {
+                JSGlobalContextRef context = vm.getDefaultContext();
+                JSObjectRef global = jsc.JSContextGetGlobalObject(context);
+                JSValueRef function = jsc.JSObjectGetProperty(context, global, functionName, null);
+                if (!function.isObject() || !jsc.JSObjectIsFunction(context, function.castToObject())) {
+                    throw new JavaScriptException(functionName + " is not a function");
+                }
+                int argc = arguments == null ? 0 : arguments.length;
+                JSValueRef exception = JSValueRef.Null();
+                JSValueRef result;
+                try (JSValueArrayRef argv = argc == 0 ? JSValueArrayRef.EMPTY : JSValueArrayRef.lease(argc)) {
+                    for (int i = 0; i < argc; i++) {
+                        argv.set(i, toJS(context, arguments[i]));
+                    }
+                    result = jsc.JSObjectCallAsFunction(context, function.castToObject(), null, argv, exception);
+                }
+                return toJava(context, result, exception);
+            }
+        });
+    }
+
+    private Object toJava(JSContextRef context, JSValueRef value, JSValueRef exception) {
+        if (!jsc.JSValueIsNull(context, exception)) {
+            throw new JavaScriptException(exception.toString());
+        }
+        JSValueDecoder decoder = value.unbox();
+        switch (decoder.getType()) {
+        case Boolean: return decoder.getBoolean();
+        case Number:  return decoder.getDouble();
+        case String:  return decoder.getString();
+        case Object:  return value.toJSON();
+        default:      return null;
+        }
+    }
+
+    private JSValueRef toJS(JSContextRef context, Object value) {
+        if (value == null) return jsc.JSValueMakeNull(context);
+        if (value instanceof Boolean) return jsc.JSValueMakeBoolean(context, (Boolean)value);
+        if (value instanceof Number) return jsc.JSValueMakeNumber(context, ((Number)value).doubleValue());
+        return jsc.JSValueMakeString(context, value.toString());
+    }
+
+    /*
+     * Runs the task on the worker of the affinity key and waits for the result, virtual threads
+     * are parked while they wait. Runs the task at once if current thread is the worker of the
+     * affinity key, and throws IllegalStateException if it is another worker of this executor,
+     * which would otherwise wait for a worker that may be waiting for it. Exceptions of the task
+     * are rethrown. JSExecutorLibrary uses call() for JavaScriptCoreLibrary calls of virtual threads.
+     */
+    public <T> T call(Object affinityKey, Task<T> task) throws Exception {
+        return call(workers[workerIndex(affinityKey)], task);
+    }
+
+    /*
+     * Same as call() but runs the task on the worker whose virtual machine owns the context,
+     * such as a context created by a task. Throws IllegalArgumentException if the context
+     * does not belong to a worker of this executor.
+     */
+    public <T> T callOwnerOf(JSContextRef context, Task<T> task) throws Exception {
+        Worker owner = groupOwners.get(jsc.JSContextGetGroup(context));
+        if (owner == null) {
+            throw new IllegalArgumentException("Context does not belong to a worker of this executor");
+        }
+        return call(owner, task);
+    }
+
+    private <T> T call(Worker target, final Task<T> task) throws Exception {
+        Thread current = Thread.currentThread();
+        if (target == current) return task.run(target.vm);
+        for (Worker worker : workers) {
+            if (worker == current) {
+                throw new IllegalStateException(worker.getName() + " cannot call the worker of another affinity key");
+            }
+        }
+
+        final long[] times = new long[2];
+        long submitted = System.nanoTime();
+        CompletableFuture<T> future = target.submit(new Task<T>() {
+            public T run(JSVirtualMachine vm) throws Exception {
+                times[0] = System.nanoTime();
+                try {
+                    return task.run(vm);
+                } finally {
+                    times[1] = System.nanoTime();
+                }
+            }
+        });
+        T result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw e;
+        } finally {
+            long resumed = System.nanoTime();
+            if (times[1] != 0) {
+                // time spent waiting for the worker and waking up the caller, without the task itself
+                recordHandoff((times[0] - submitted) + (resumed - times[1]), isVirtual(current));
+            }
+        }
+        return result;
+    }
+
+    private synchronized void recordHandoff(long nanos, boolean virtual) {
+        handoffCount++;
+        if (virtual) virtualThreadCallCount++;
+        handoffNanos += nanos;
+        if (nanos > maxHandoffNanos) maxHandoffNanos = nanos;
+    }
+
+    /*
+     * Returns true if the thread is a virtual thread
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (isVirtualMethod == null) return false;
+        try {
+            return (Boolean)isVirtualMethod.invoke(thread);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static Method findIsVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    int workerIndex(Object affinityKey) {
+        if (affinityKey == null) return 0;
+        int h = affinityKey.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % workers.length;
+    }
+
+    /*
+     * Returns true if current thread is a worker of this executor
+     */
+    public boolean inWorkerThread() {
+        Thread current = Thread.currentThread();
+        for (Worker worker : workers) {
+            if (worker == current) return true;
+        }
+        return false;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /*
+     * Returns the number of tasks that are queued or running on the worker
+     */
+    public int getPendingTaskCount(int worker) {
+        return workers[worker].pending.get();
+    }
+
+    public long getCompletedTaskCount() {
+        long count = 0;
+        for (Worker worker : workers) {
+            count += worker.completed.get();
+        }
+        return count;
+    }
+
+    /*
+     * Returns the number of tasks that have run queued evaluations, each is one thread hop
+     */
+    public long getBatchCount() {
+        long count = 0;
+        for (Worker worker : workers) {
+            count += worker.batches.get();
+        }
+        return count;
+    }
+
+    /*
+     * Returns the number of tasks that call() has handed to the workers
+     */
+    public synchronized long getHandoffCount() {
+        return handoffCount;
+    }
+
+    public synchronized long getVirtualThreadCallCount() {
+        return virtualThreadCallCount;
+    }
+
+    /*
+     * Returns the average overhead of call() in nanoseconds, the time from submitting the task
+     * to the start of the task plus the time from the end of the task to the caller resuming
+     */
+    public synchronized long getAverageHandoffNanos() {
+        return handoffCount == 0 ? 0 : handoffNanos / handoffCount;
+    }
+
+    public synchronized long getMaxHandoffNanos() {
+        return maxHandoffNanos;
+    }
+
+    public synchronized void resetHandoffCounters() {
+        handoffCount = 0;
+        virtualThreadCallCount = 0;
+        handoffNanos = 0;
+        maxHandoffNanos = 0;
+    }
+
+    /*
+     * Stops accepting tasks. Queued tasks still run, then the virtual machines are released.
+     */
+    public void shutdown() {
+        shutdownLock.writeLock().lock();
+        try {
+            if (shutdown) return;
+            shutdown = true;
+            for (Worker worker : workers) {
+                worker.queue.add(STOP);
+            }
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Worker worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            }
+            if (worker.isAlive()) return false;
+        }
+        return true;
+    }
+
+    private final class Worker extends Thread {
+        final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        // Evaluations that are run together by one task of the queue
+        private final ConcurrentLinkedQueue<Runnable> batch = new ConcurrentLinkedQueue<Runnable>();
+        private final AtomicBoolean batchScheduled = new AtomicBoolean();
+        private final Task<?> initializer;
+        private JSVirtualMachine vm;
+        private volatile Throwable startupFailure;
+
+        // Evaluation that is running, and the time limit of the virtual machine while evaluations run
+        private volatile CompletableFuture<?> running;
+        private double previousLimit;
+        private JSShouldTerminateCallback previousCallback;
+        private long periodStart;
+        private boolean limitTerminated;
+
+        private final Runnable drainBatch = new Runnable() {
+            public void run() {
+                batches.incrementAndGet();
+                batchScheduled.set(false);
+                // cancellation needs the watchdog, futures are still completed where there is none
+                if (startupFailure != null || !JavaScriptCoreLibrary.isExecutionTimeLimitSupported()) {
+                    runBatch();
+                    return;
+                }
+                previousLimit = vm.getExecutionTimeLimit();
+                previousCallback = vm.getShouldTerminateCallback();
+                vm.setExecutionTimeLimit(CANCEL_CHECK_INTERVAL, cancellation);
+                try {
+                    runBatch();
+                } finally {
+                    if (previousLimit > 0) {
+                        vm.setExecutionTimeLimit(previousLimit, previousCallback);
+                    } else {
+                        vm.clearExecutionTimeLimit();
+                    }
+                }
+            }
+        };
+
+        /*
+         * Terminates the evaluation whose future has been completed, then applies the time limit
+         * that the virtual machine had before the batch
+         */
+        private final JSShouldTerminateCallback cancellation = new JSShouldTerminateCallback() {
+            public boolean shouldTerminate(JSContextRef ctx) {
+                CompletableFuture<?> future = running;
+                if (future != null && future.isDone()) return true;
+                if (previousLimit > 0 && System.nanoTime() - periodStart >= (long)(previousLimit * 1e9)) {
+                    periodStart = System.nanoTime();
+                    limitTerminated = previousCallback == null || previousCallback.shouldTerminate(ctx);
+                    return limitTerminated;
+                }
+                return false;
+            }
+        };
+
+        Worker(String name, Task<?> initializer) {
+            super(name);
+            this.initializer = initializer;
+            setDaemon(true);
+        }
+
+        <T> CompletableFuture<T> submit(final Task<T> task) {
+            final CompletableFuture<T> future = new CompletableFuture<T>();
+            Runnable runnable = new Runnable() {
+                public void run() {
+                    try {
+                        if (future.isDone()) return;
+                        if (startupFailure != null) {
+                            future.completeExceptionally(startupFailure);
+                        } else {
+                            future.complete(task.run(vm));
+                        }
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        pending.decrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                }
+            };
+            shutdownLock.readLock().lock();
+            try {
+                if (shutdown) {
+                    future.completeExceptionally(new RejectedExecutionException("JSExecutor has been shut down"));
+                    return future;
+                }
+                pending.incrementAndGet();
+                queue.add(runnable);
+            } finally {
+                shutdownLock.readLock().unlock();
+            }
+            return future;
+        }
+
+        /*
+         * Adds the evaluation to the batch, the batch is queued only if it is not queued yet
+         */
+        <T> CompletableFuture<T> submitBatched(final Task<T> task) {
+            final CompletableFuture<T> future = new CompletableFuture<T>();
+            Runnable evaluation = new Runnable() {
+                public void run() {
+                    try {
+                        if (future.isDone()) return;
+                        if (startupFailure != null) {
+                            future.completeExceptionally(startupFailure);
+                            return;
+                        }
+                        running = future;
+                        periodStart = System.nanoTime();
+                        limitTerminated = false;
+                        future.complete(task.run(vm));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(limitTerminated ?
+                            new JavaScriptTerminatedException("Script has been terminated by the execution time limit") : e);
+                    } finally {
+                        running = null;
+                        pending.decrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                }
+            };
+            shutdownLock.readLock().lock();
+            try {
+                if (shutdown) {
+                    future.completeExceptionally(new RejectedExecutionException("JSExecutor has been shut down"));
+                    return future;
+                }
+                pending.incrementAndGet();
+                batch.add(evaluation);
+                if (batchScheduled.compareAndSet(false, true)) {
+                    queue.add(drainBatch);
+                }
+            } finally {
+                shutdownLock.readLock().unlock();
+            }
+            return future;
+        }
+
+        private void runBatch() {
+            Runnable evaluation;
+            while ((evaluation = batch.poll()) != null) {
+                evaluation.run();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                vm = new JSVirtualMachine();
+                groupOwners.put(vm.getContextGroupRef(), this);
+                if (initializer != null) initializer.run(vm);
+            } catch (Throwable e) {
+                // queued tasks are failed with the cause
+                startupFailure = e;
+            }
+            try {
+                while (true) {
+                    Runnable task = queue.take();
+                    if (task == STOP) break;
+                    task.run();
+                }
+                // tasks submitted while shutting down
+                failQueuedTasks(new RejectedExecutionException("JSExecutor has been shut down"));
+            } catch (InterruptedException e) {
+                failQueuedTasks(new RejectedExecutionException("JSExecutor worker has been interrupted"));
+            } finally {
+                if (vm != null) {
+                    groupOwners.remove(vm.getContextGroupRef());
+                    vm.release();
+                }
+                vm = null;
+            }
+        }
+
+        private void failQueuedTasks(Throwable cause) {
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            queue.drainTo(tasks);
+            startupFailure = cause;
+            for (Runnable task : tasks) {
+                if (task != STOP) task.run();
+            }
+            runBatch();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.appcelerator.javascriptcore;
+
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueArrayRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+
+/*
+ * JavaScriptCoreLibrary calls that may run scripts, bound to an executor.
+ *
+ * Calls made from virtual threads are handed by JSExecutor.callOwnerOf() to the worker whose
+ * virtual machine owns the context, so the virtual thread is parked instead of pinning its carrier
+ * while the script runs and the context stays confined to its worker. Contexts of virtual threads
+ * have to be created by tasks of the executor, others are rejected with IllegalArgumentException.
+ * Calls from platform threads go straight to JavaScriptCoreLibrary.
+ *
+ *   JSExecutorLibrary jsc = new JSExecutorLibrary(executor);
+ *   JSValueRef result = jsc.JSEvaluateScript(context, script, exception);
+ *
+ * Other functions are short and are called on JavaScriptCoreLibrary. The exception state
+ * of JavaScriptCoreLibrary.isExceptionThrown() belongs to the worker for offloaded calls,
+ * check the exception value instead.
+ */
+public class JSExecutorLibrary {
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private final JSExecutor executor;
+
+    public JSExecutorLibrary(JSExecutor executor) {
+        if (executor == null) throw new IllegalArgumentException("Executor should not be null");
+        this.executor = executor;
+    }
+
+    public JSExecutor getExecutor() {
+        return executor;
+    }
+
+    public JSValueRef JSEvaluateScript(final JSContextRef context, final String script, final JSValueRef exception) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            return jsc.JSEvaluateScript(context, script, exception);
+        }
+        return offload(context, new JSExecutor.Task<JSValueRef>() {
+            public JSValueRef run(JSVirtualMachine vm) {
+                return jsc.JSEvaluateScript(context, script, exception);
+            }
+        });
+    }
+
+    public JSValueRef JSEvaluateScript(final JSContextRef context, final String script, final JSObjectRef object,
+                                       final String sourceURL, final int line, final JSValueRef exception) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            return jsc.JSEvaluateScript(context, script, object, sourceURL, line, exception);
+        }
+        return offload(context, new JSExecutor.Task<JSValueRef>() {
+            public JSValueRef run(JSVirtualMachine vm) {
+                return jsc.JSEvaluateScript(context, script, object, sourceURL, line, exception);
+            }
+        });
+    }
+
+    public boolean JSCheckScriptSyntax(final JSContextRef context, final String script, final JSValueRef exception) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            return jsc.JSCheckScriptSyntax(context, script, exception);
+        }
+        return offload(context, new JSExecutor.Task<Boolean>() {
+            public Boolean run(JSVirtualMachine vm) {
+                return jsc.JSCheckScriptSyntax(context, script, exception);
+            }
+        });
+    }
+
+    public void JSGarbageCollect(final JSContextRef context) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            jsc.JSGarbageCollect(context);
+            return;
+        }
+        offload(context, new JSExecutor.Task<Void>() {
+            public Void run(JSVirtualMachine vm) {
+                jsc.JSGarbageCollect(context);
+                return null;
+            }
+        });
+    }
+
+    public JSObjectRef JSObjectCallAsConstructor(final JSContextRef context, final JSObjectRef jsObject,
+                                                 final JSValueArrayRef argv, final JSValueRef exception) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            return jsc.JSObjectCallAsConstructor(context, jsObject, argv, exception);
+        }
+        return offload(context, new JSExecutor.Task<JSObjectRef>() {
+            public JSObjectRef run(JSVirtualMachine vm) {
+                return jsc.JSObjectCallAsConstructor(context, jsObject, argv, exception);
+            }
+        });
+    }
+
+    public JSValueRef JSObjectCallAsFunction(final JSContextRef context, final JSObjectRef jsObject,
+                                             final JSObjectRef thisObject, final JSValueArrayRef argv, final JSValueRef exception) {
+        if (!JSExecutor.isVirtual(Thread.currentThread())) {
+            return jsc.JSObjectCallAsFunction(context, jsObject, thisObject, argv, exception);
+        }
+        return offload(context, new JSExecutor.Task<JSValueRef>() {
+            public JSValueRef run(JSVirtualMachine vm) {
+                return jsc.JSObjectCallAsFunction(context, jsObject, thisObject, argv, exception);
+            }
+        });
+    }
+
+    private <T> T offload(JSContextRef context, JSExecutor.Task<T> task) {
+        try {
+            return executor.callOwnerOf(context, task);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the worker", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
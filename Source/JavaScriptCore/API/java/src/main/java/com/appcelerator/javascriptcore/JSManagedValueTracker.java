@@ -0,0 +1,83 @@
+package com.appcelerator.javascriptcore;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSManagedValue;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+
+/*
+ * Protects values handed out as JSManagedValue and unprotects them after Java GC has collected
+ * the wrapper. Java GC only enqueues the references, unprotect is called in batch by the thread
+ * that calls manage or drain, so JavaScriptCore is never entered from a GC thread.
+ */
+class JSManagedValueTracker {
+
+    private static final int BATCH_LENGTH = 256;
+
+    private static class ManagedReference extends PhantomReference<JSManagedValue> {
+        private final long value;
+
+        ManagedReference(JSManagedValue referent, ReferenceQueue<JSManagedValue> queue) {
+            super(referent, queue);
+            this.value = referent.p();
+        }
+    }
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private final ReferenceQueue<JSManagedValue> queue = new ReferenceQueue<JSManagedValue>();
+    // Phantom references have to be reachable until they are enqueued
+    private final Set<ManagedReference> references = new HashSet<ManagedReference>();
+    private final long[] batch = new long[BATCH_LENGTH];
+
+    synchronized JSManagedValue manage(JSContextRef context, JSValueRef value) {
+        drain(context);
+        jsc.JSValueProtect(context, value);
+        JSManagedValue managed = new JSManagedValue(context, value.p());
+        references.add(new ManagedReference(managed, queue));
+        return managed;
+    }
+
+    /*
+     * Unprotects the values of collected wrappers, returns the number of values unprotected
+     */
+    synchronized int drain(JSContextRef context) {
+        int total = 0;
+        int count = 0;
+        Reference<? extends JSManagedValue> reference;
+        while ((reference = queue.poll()) != null) {
+            ManagedReference managed = (ManagedReference)reference;
+            references.remove(managed);
+            batch[count++] = managed.value;
+            if (count == BATCH_LENGTH) {
+                jsc.JSValueUnprotectValues(context, batch, count);
+                total += count;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            jsc.JSValueUnprotectValues(context, batch, count);
+            total += count;
+        }
+        return total;
+    }
+
+    synchronized int size() {
+        return references.size();
+    }
+
+    /*
+     * Forget every value without unprotecting, used when the context group is released
+     */
+    synchronized void clear() {
+        for (ManagedReference reference : references) {
+            reference.clear();
+        }
+        references.clear();
+        while (queue.poll() != null);
+    }
+}
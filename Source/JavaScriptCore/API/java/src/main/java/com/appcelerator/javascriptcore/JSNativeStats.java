@@ -0,0 +1,79 @@
+package com.appcelerator.javascriptcore;
+
+/*
+ * Snapshot of native call statistics.
+ * Counts every JNI entry point and JavaScriptCore callback while enabled by
+ * JavaScriptCoreLibrary.setNativeStatsEnabled(true).
+ */
+public class JSNativeStats {
+
+    /*
+     * Bucket n counts the calls that took [2^(n-1), 2^n) nanoseconds, the last bucket takes the rest
+     */
+    public static final int NUMBER_OF_HISTOGRAM_BUCKETS = 32;
+
+    private static final int STRIDE = 2 + NUMBER_OF_HISTOGRAM_BUCKETS;
+
+    private final String[] names;
+    private final long[] values;
+
+    JSNativeStats(String[] names, long[] values) {
+        this.names  = names;
+        this.values = values;
+    }
+
+    /*
+     * Names of the entry points, such as "JSEvaluateScriptShort" or "JSObjectGetPropertyCallback"
+     */
+    public String[] getEntryPoints() {
+        return names.clone();
+    }
+
+    public long getCallCount(String entryPoint) {
+        int index = indexOf(entryPoint);
+        return index < 0 ? 0 : values[index * STRIDE];
+    }
+
+    public long getTotalNanos(String entryPoint) {
+        int index = indexOf(entryPoint);
+        return index < 0 ? 0 : values[index * STRIDE + 1];
+    }
+
+    public long[] getHistogram(String entryPoint) {
+        long[] histogram = new long[NUMBER_OF_HISTOGRAM_BUCKETS];
+        int index = indexOf(entryPoint);
+        if (index >= 0) {
+            System.arraycopy(values, index * STRIDE + 2, histogram, 0, NUMBER_OF_HISTOGRAM_BUCKETS);
+        }
+        return histogram;
+    }
+
+    public long getTotalCallCount() {
+        long count = 0;
+        for (int i = 0; i < names.length; i++) {
+            count += values[i * STRIDE];
+        }
+        return count;
+    }
+
+    private int indexOf(String entryPoint) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(entryPoint)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            long calls = values[i * STRIDE];
+            if (calls == 0) continue;
+            long nanos = values[i * STRIDE + 1];
+            sb.append(names[i]).append(": calls=").append(calls)
+              .append(" totalNanos=").append(nanos)
+              .append(" averageNanos=").append(nanos / calls).append('\n');
+        }
+        return sb.toString();
+    }
+}
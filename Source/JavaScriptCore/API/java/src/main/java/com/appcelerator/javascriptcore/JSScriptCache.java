@@ -0,0 +1,173 @@
+package com.appcelerator.javascriptcore;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.appcelerator.javascriptcore.opaquetypes.JSContextGroupRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSScriptRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+
+/*
+ * Precompiled scripts of a context group, keyed by source and source URL.
+ * The least recently used script is released when the cache holds more than
+ * JavaScriptCoreLibrary.numberOfCachedScripts. A script that is being evaluated
+ * is released after the evaluation finishes.
+ */
+class JSScriptCache {
+
+    private static class Key {
+        private final String script;
+        private final String sourceURL;
+        private final int hash;
+
+        Key(String script, String sourceURL) {
+            this.script = script;
+            this.sourceURL = sourceURL;
+            // String caches its hash code, so the same source string is hashed only once
+            this.hash = 31 * script.hashCode() + (sourceURL == null ? 0 : sourceURL.hashCode());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key)o;
+            return hash == other.hash && script.equals(other.script)
+                && (sourceURL == null ? other.sourceURL == null : sourceURL.equals(other.sourceURL));
+        }
+    }
+
+    private static class Entry {
+        private final JSScriptRef script;
+        private int users = 0;
+        private boolean evicted = false;
+
+        Entry(JSScriptRef script) {
+            this.script = script;
+        }
+    }
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private final JSContextGroupRef group;
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    JSScriptCache(JSContextGroupRef group) {
+        this.group = group;
+    }
+
+    /*
+     * Evaluates script with the cached precompiled script, compiles and caches it on miss.
+     * Invalid script is not cached and evaluated by JSEvaluateScript to report the syntax error.
+     * Throws IllegalArgumentException if the context is not in the group of this cache,
+     * scripts compiled for one group must not be evaluated in another.
+     */
+    JSValueRef evaluate(JSContextRef context, String script, String sourceURL, JSObjectRef thisObject, JSValueRef exception) {
+        if (!jsc.JSContextGetGroup(context).equals(group)) {
+            throw new IllegalArgumentException("Context does not belong to the context group of the script cache");
+        }
+        Key key = new Key(script, sourceURL);
+        Entry entry = acquire(key);
+        if (entry == null) {
+            JSScriptRef compiled = jsc.JSScriptCreateFromString(group, sourceURL, 1, script);
+            if (compiled == null) {
+                return jsc.JSEvaluateScript(context, script, thisObject, sourceURL, 1, exception);
+            }
+            entry = put(key, compiled);
+        }
+        try {
+            return jsc.JSScriptEvaluate(context, entry.script, thisObject, exception);
+        } finally {
+            release(entry);
+        }
+    }
+
+    private synchronized Entry acquire(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        entry.users++;
+        return entry;
+    }
+
+    private synchronized Entry put(Key key, JSScriptRef script) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // Another thread has compiled the same script
+            jsc.JSScriptRelease(script);
+            entry.users++;
+        } else {
+            entry = new Entry(script);
+            entry.users++;
+            entries.put(key, entry);
+            evictOverflow();
+        }
+        return entry;
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.users--;
+        if (entry.evicted && entry.users == 0) {
+            jsc.JSScriptRelease(entry.script);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > JavaScriptCoreLibrary.numberOfCachedScripts && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            evict(eldest);
+        }
+    }
+
+    private void evict(Entry entry) {
+        entry.evicted = true;
+        if (entry.users == 0) {
+            jsc.JSScriptRelease(entry.script);
+        }
+    }
+
+    synchronized boolean invalidate(String script, String sourceURL) {
+        Entry entry = entries.remove(new Key(script, sourceURL));
+        if (entry == null) return false;
+        evict(entry);
+        return true;
+    }
+
+    synchronized void invalidateAll() {
+        for (Entry entry : entries.values()) {
+            evict(entry);
+        }
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized void resetCounters() {
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.appcelerator.javascriptcore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.appcelerator.javascriptcore.enums.JSType;
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+
+/*
+ * Decodes type and primitive payload of JS value in one native call.
+ * Each thread has one decoder that is reused by every decode, so read the result
+ * before decoding another value on the same thread. String is fetched only when getString() is called.
+ */
+public class JSValueDecoder {
+
+    private static final int SLOT_BOOLEAN = 4;
+    private static final int SLOT_NUMBER  = 8;
+    private static final int SLOT_SIZE    = 16;
+
+    private static final ThreadLocal<JSValueDecoder> decoders = new ThreadLocal<JSValueDecoder>() {
+        @Override
+        protected JSValueDecoder initialValue() {
+            return new JSValueDecoder();
+        }
+    };
+
+    public static JSValueDecoder getInstance() {
+        return decoders.get();
+    }
+
+    private final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    // Owned by the decoder so that the payload stays with the Java thread, not with the carrier thread
+    private final ByteBuffer slot = ByteBuffer.allocateDirect(SLOT_SIZE).order(ByteOrder.nativeOrder());
+
+    private JSContextRef context;
+    private long value;
+    private JSType type = JSType.Undefined;
+    private String string;
+
+    private JSValueDecoder() {}
+
+    public JSType decode(JSContextRef context, JSValueRef value) {
+        return decode(context, value.p());
+    }
+
+    public JSType decode(JSContextRef context, long jsValueRef) {
+        this.context = context;
+        this.value   = jsValueRef;
+        this.string  = null;
+        this.type    = JSType.request(jsc.NativeJSValueUnbox(context.p(), jsValueRef, slot));
+        return type;
+    }
+
+    public JSType getType() {
+        return type;
+    }
+
+    public boolean isUndefined() { return type == JSType.Undefined; }
+    public boolean isNull()      { return type == JSType.Null; }
+    public boolean isBoolean()   { return type == JSType.Boolean; }
+    public boolean isNumber()    { return type == JSType.Number; }
+    public boolean isString()    { return type == JSType.String; }
+    public boolean isObject()    { return type == JSType.Object; }
+
+    /*
+     * Number payload, 0 if the value is not a number
+     */
+    public double getDouble() {
+        return slot.getDouble(SLOT_NUMBER);
+    }
+
+    public int getInt() {
+        return (int)getDouble();
+    }
+
+    public long getLong() {
+        return (long)getDouble();
+    }
+
+    /*
+     * Boolean payload, false if the value is not a boolean
+     */
+    public boolean getBoolean() {
+        return slot.getInt(SLOT_BOOLEAN) != 0;
+    }
+
+    /*
+     * String payload fetched on first call, null if the value is not a string
+     */
+    public String getString() {
+        if (type != JSType.String) return null;
+        if (string == null) {
+            string = jsc.NativeJSValueToStringCopy(context.p(), value, null);
+        }
+        return string;
+    }
+
+    /*
+     * Decoded value, wraps the value in new JSValueRef
+     */
+    public JSValueRef getValue() {
+        return new JSValueRef(context, value);
+    }
+}
@@ -1,14 +1,25 @@
 package com.appcelerator.javascriptcore;
 
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+import com.appcelerator.javascriptcore.callbacks.JSShouldTerminateCallback;
 import com.appcelerator.javascriptcore.opaquetypes.JSContextGroupRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSGlobalContextRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSClassDefinition;
 import com.appcelerator.javascriptcore.opaquetypes.JSClassRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSScriptRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSManagedValue;
+import com.appcelerator.javascriptcore.util.LongObjectMap;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
 
 public class JSVirtualMachine {
 
@@ -16,11 +27,29 @@ public class JSVirtualMachine {
 
     private JSContextGroupRef contextGroupRef;
     private JSGlobalContextRef defaultContext;
-    private ConcurrentMap<Long, JSGlobalContextRef> contextCache = new ConcurrentHashMap<Long, JSGlobalContextRef>();
+    // Guarded by itself, contexts may be created and released on different threads
+    private final LongObjectMap<JSGlobalContextRef> contextCache = new LongObjectMap<JSGlobalContextRef>();
+    private JSScriptCache scriptCache;
+    private JSManagedValueTracker managedValues = new JSManagedValueTracker();
+
+    // Execution time limit of the context group in seconds, 0 if there is no limit
+    private double executionTimeLimit = 0;
+    private JSShouldTerminateCallback shouldTerminateCallback;
+    // Set by the watchdog when it has decided to terminate the running script
+    private volatile boolean terminated = false;
+    private final JSShouldTerminateCallback watchdog = new JSShouldTerminateCallback() {
+        public boolean shouldTerminate(JSContextRef ctx) {
+            JSShouldTerminateCallback callback = shouldTerminateCallback;
+            boolean terminate = callback == null || callback.shouldTerminate(ctx);
+            if (terminate) terminated = true;
+            return terminate;
+        }
+    };
 
     public JSVirtualMachine() {
         contextGroupRef = jsc.JSContextGroupCreate();
         defaultContext  = createContext();
+        scriptCache = new JSScriptCache(contextGroupRef);
     }
 
     public JSGlobalContextRef createContext() {
@@ -28,20 +57,28 @@ public class JSVirtualMachine {
     }
     public JSGlobalContextRef createContext(JSClassRef jsClass) {
         JSGlobalContextRef context = jsc.JSGlobalContextCreateInGroup(getContextGroupRef(), jsClass);
-        contextCache.put(context.pointer(), context);
+        synchronized (contextCache) {
+            contextCache.put(context.pointer(), context);
+        }
         return context;
     }
 
     public void releaseContext(JSGlobalContextRef context) {
         jsc.JSGlobalContextRelease(context);
-        contextCache.remove(context.pointer());
+        synchronized (contextCache) {
+            contextCache.remove(context.pointer());
+        }
     }
 
     public void releaseContexts() {
-        for (JSGlobalContextRef context : contextCache.values()) {
+        List<JSGlobalContextRef> contexts;
+        synchronized (contextCache) {
+            contexts = contextCache.values();
+            contextCache.clear();
+        }
+        for (JSGlobalContextRef context : contexts) {
             jsc.JSGlobalContextRelease(context);
         }
-        contextCache.clear();
     }
 
     public JSGlobalContextRef getDefaultContext() {
@@ -49,15 +86,188 @@ public class JSVirtualMachine {
     }
 
     public int getContextCount() {
-        return contextCache.size();
+        synchronized (contextCache) {
+            return contextCache.size();
+        }
     }
 
     public JSContextGroupRef getContextGroupRef() {
         return contextGroupRef;
     }
 
+    /*
+     * Limits the time scripts of this virtual machine may run in seconds. When a script has run longer,
+     * the callback decides if it is terminated, null callback terminates it unconditionally.
+     * The terminated script throws an uncatchable exception and the context can be used again.
+     * Throws UnsupportedOperationException where JavaScriptCore has no working watchdog,
+     * see JavaScriptCoreLibrary.isExecutionTimeLimitSupported().
+     */
+    public synchronized void setExecutionTimeLimit(double seconds, JSShouldTerminateCallback callback) {
+        if (seconds <= 0) throw new IllegalArgumentException("Execution time limit should be positive");
+        checkExecutionTimeLimitSupported();
+        executionTimeLimit = seconds;
+        shouldTerminateCallback = callback;
+        jsc.JSContextGroupSetExecutionTimeLimit(contextGroupRef, seconds, watchdog);
+    }
+
+    private static void checkExecutionTimeLimitSupported() {
+        if (!JavaScriptCoreLibrary.isExecutionTimeLimitSupported()) {
+            throw new UnsupportedOperationException("Execution time limit is not supported by this port of JavaScriptCore");
+        }
+    }
+
+    public synchronized void clearExecutionTimeLimit() {
+        executionTimeLimit = 0;
+        shouldTerminateCallback = null;
+        jsc.JSContextGroupClearExecutionTimeLimit(contextGroupRef);
+    }
+
+    /*
+     * Returns the execution time limit in seconds, 0 if scripts may run forever
+     */
+    public synchronized double getExecutionTimeLimit() {
+        return executionTimeLimit;
+    }
+
+    public synchronized JSShouldTerminateCallback getShouldTerminateCallback() {
+        return shouldTerminateCallback;
+    }
+
+    /*
+     * Evaluates script that is terminated when it runs longer than the time limit in seconds,
+     * then restores the execution time limit of the virtual machine. Throws JavaScriptTerminatedException
+     * if the script has been terminated, or JavaScriptException with the value thrown by the script.
+     * The limit applies to the context group, do not evaluate scripts of this virtual machine
+     * on other threads at the same time. Throws UnsupportedOperationException where
+     * JavaScriptCore has no working watchdog.
+     */
+    public JSValueRef evaluateScript(JSContextRef context, String script, String sourceURL, double timeLimit) {
+        if (timeLimit <= 0) throw new IllegalArgumentException("Execution time limit should be positive");
+        checkExecutionTimeLimitSupported();
+        double previousLimit;
+        JSShouldTerminateCallback previousCallback;
+        synchronized (this) {
+            previousLimit = executionTimeLimit;
+            previousCallback = shouldTerminateCallback;
+            shouldTerminateCallback = null;
+            jsc.JSContextGroupSetExecutionTimeLimit(contextGroupRef, timeLimit, watchdog);
+        }
+        terminated = false;
+        JSValueRef exception = JSValueRef.Null();
+        JSValueRef result;
+        try {
+            result = jsc.JSEvaluateScript(context, script, null, sourceURL, 1, exception);
+        } finally {
+            synchronized (this) {
+                if (previousLimit > 0) {
+                    setExecutionTimeLimit(previousLimit, previousCallback);
+                } else {
+                    clearExecutionTimeLimit();
+                }
+            }
+        }
+        if (terminated) {
+            terminated = false;
+            throw new JavaScriptTerminatedException(String.format("Script has been terminated after %s seconds", timeLimit));
+        }
+        if (!jsc.JSValueIsNull(context, exception)) {
+            throw new JavaScriptException(context.pointer(), exception.p());
+        }
+        return result;
+    }
+
+    /*
+     * Evaluates script with precompiled script that is cached by this virtual machine,
+     * so that the same source is parsed only once. Throws IllegalArgumentException
+     * if the context does not belong to this virtual machine.
+     */
+    public JSValueRef evaluateCachedScript(JSContextRef context, String script, String sourceURL,
+                                            JSObjectRef thisObject, JSValueRef exception) {
+        return scriptCache.evaluate(context, script, sourceURL, thisObject, exception);
+    }
+
+    public boolean invalidateCachedScript(String script, String sourceURL) {
+        return scriptCache.invalidate(script, sourceURL);
+    }
+
+    public void invalidateCachedScripts() {
+        scriptCache.invalidateAll();
+    }
+
+    public int getCachedScriptCount() {
+        return scriptCache.size();
+    }
+
+    public long getScriptCacheHitCount() {
+        return scriptCache.getHitCount();
+    }
+
+    public long getScriptCacheMissCount() {
+        return scriptCache.getMissCount();
+    }
+
+    public void resetScriptCacheCounters() {
+        scriptCache.resetCounters();
+    }
+
+    /*
+     * Creates precompiled script from a file. The file is memory-mapped and JavaScriptCore references
+     * the mapped pages directly, so the source never enters Java heap and is shared by all contexts
+     * of this virtual machine. The mapping is kept by the returned script until it is released.
+     * A file that is not pure ASCII is decoded as UTF-8 and copied instead.
+     * Returns null if the file is not a valid JavaScript program. Release the script by JSScriptRelease.
+     */
+    public JSScriptRef loadScript(File file, String sourceURL) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        MappedByteBuffer buffer;
+        try {
+            FileChannel channel = stream.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            stream.close();
+        }
+
+        if (isASCII(buffer)) {
+            // null is a syntax error, no need to parse it again
+            return jsc.JSScriptCreateReferencingImmortalASCIIText(contextGroupRef, sourceURL, 1, buffer);
+        }
+        String source = Charset.forName("UTF-8").decode(buffer).toString();
+        return jsc.JSScriptCreateFromString(contextGroupRef, sourceURL, 1, source);
+    }
+
+    private static boolean isASCII(MappedByteBuffer buffer) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Protects the value and returns the handle that keeps it protected while the handle is reachable.
+     * Values of the collected handles are unprotected by this call or drainManagedValues,
+     * call them from the thread that uses the context.
+     */
+    public JSManagedValue manage(JSContextRef context, JSValueRef value) {
+        return managedValues.manage(context, value);
+    }
+
+    /*
+     * Unprotects values whose handles have been collected, returns the number of values unprotected
+     */
+    public int drainManagedValues() {
+        return managedValues.drain(defaultContext);
+    }
+
+    public int getManagedValueCount() {
+        return managedValues.size();
+    }
+
     public void release() {
+        managedValues.clear();
+        scriptCache.invalidateAll();
+        if (getExecutionTimeLimit() > 0) clearExecutionTimeLimit();
         releaseContexts();
+        JSClassDefinition.releaseContextGroup(contextGroupRef.pointer());
         jsc.JSContextGroupRelease(contextGroupRef);
     }
 
@@ -14,12 +14,16 @@ import com.appcelerator.javascriptcore.opaquetypes.PointerType;
 import com.appcelerator.javascriptcore.opaquetypes.Pointer;
 import com.appcelerator.javascriptcore.opaquetypes.JSPropertyNameArrayRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSPropertyNameAccumulatorRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSPropertyName;
+import com.appcelerator.javascriptcore.opaquetypes.JSScriptRef;
 
 import com.appcelerator.javascriptcore.callbacks.JSObjectCallAsConstructorCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectCallAsFunctionCallback;
+import com.appcelerator.javascriptcore.callbacks.JSShouldTerminateCallback;
 
 import com.appcelerator.javascriptcore.enums.JSType;
 import com.appcelerator.javascriptcore.enums.JSPropertyAttribute;
+import com.appcelerator.javascriptcore.enums.JSTypedArrayType;
 
 public class JavaScriptCoreLibrary {
 
@@ -38,17 +42,42 @@ public class JavaScriptCoreLibrary {
 
     /*
      * Number of buckets for JS object map that is used by callbacks. 
-     * If object map requires more bucket, LongSparseArray realocates the map and GC may be taking place.
+     * If object map requires more bucket, the map is rehashed and GC may be taking place.
      * If you want to avoid GC to handle more JS objects just increase this number.
      */
     public static int numberOfJSObjectBuckets = 16384;
 
     /*
-     * Number of buckets for prototype hierarchy that is used by callbacks.
-     * If hierarchy map requires more space, LongSparseArray reallocates the map.
+     * Maximum depth of class hierarchy built by JSClassDefinition.parentClass.
+     * Callbacks are dispatched by depth through the native dispatch table that has 16 levels,
+     * so larger numbers are limited to 16. JSClassCreate throws JavaScriptException for deeper classes.
      */
     public static int numberOfPrototypeHierarchy = 16;
 
+    /*
+     * Maximum number of property names that are cached by JSPropertyName.intern.
+     * The least recently used name is evicted when the cache is full.
+     */
+    public static int numberOfInternedPropertyNames = 1024;
+
+    /*
+     * Maximum number of precompiled scripts that are cached by each JSVirtualMachine.
+     * The least recently used script is released when the cache is full.
+     */
+    public static int numberOfCachedScripts = 64;
+
+    /*
+     * Argument arrays leased by JSValueArrayRef.lease are pooled per thread in power-of-two
+     * size classes up to this number of arguments. Longer arrays are allocated on each lease.
+     */
+    public static int maxPooledArgumentCount = 64;
+
+    /*
+     * Number of pooled argument arrays kept by each size class of a thread.
+     * Nested leases beyond this number are allocated and dropped on close.
+     */
+    public static int numberOfPooledArgumentArrays = 8;
+
     /*
      * Singleton
      */
@@ -79,11 +108,113 @@ public class JavaScriptCoreLibrary {
         }
     }
 
+    /*
+     * Number of times a native thread has been attached to JVM to fire a callback.
+     * Each thread is attached only once and stays attached until it exits.
+     */
+    public long getThreadAttachCount() {
+        return NativeGetThreadAttachCount();
+    }
+
+    /*
+     * Returns true if scripts are terminated when they exceed the execution time limit.
+     * Only the Mac port of JavaScriptCore has a working watchdog timer, the limit set by
+     * JSContextGroupSetExecutionTimeLimit never fires on the other ports.
+     */
+    public static boolean isExecutionTimeLimitSupported() {
+        return NativeIsExecutionTimeLimitSupported();
+    }
+
+    /*
+     * Native call statistics
+     */
+    private static String[] nativeStatsNames;
+
+    public void setNativeStatsEnabled(boolean enabled) {
+        NativeSetNativeStatsEnabled(enabled);
+    }
+
+    public boolean isNativeStatsEnabled() {
+        return NativeIsNativeStatsEnabled();
+    }
+
+    public void resetNativeStats() {
+        NativeResetNativeStats();
+    }
+
+    public JSNativeStats getNativeStats() {
+        if (nativeStatsNames == null) {
+            nativeStatsNames = NativeGetNativeStatsNames();
+        }
+        return new JSNativeStats(nativeStatsNames, NativeGetNativeStats());
+    }
+
+    /*
+     * Exception out-parameter of the current thread, { thrown, value }. Native functions write the
+     * exception to the array passed by the caller instead of calling back to Java. The value is read
+     * only when the thrown flag is set, the exception of the caller is left untouched on success. The array is owned by Java so that it stays with
+     * the thread, virtual threads may run the native call and read the result on different carriers.
+     */
+    private static final int EXCEPTION_THROWN = 0;
+    private static final int EXCEPTION_VALUE  = 1;
+    private static final ThreadLocal<long[]> exceptionStores = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    private long[] exceptionOut(JSValueRef exception) {
+        return exception == null ? null : exceptionStores.get();
+    }
+
+    private void checkException(JSContextRef context, JSValueRef exception) {
+        if (exception == null) return;
+        long[] store = exceptionStores.get();
+        if (store[EXCEPTION_THROWN] == 0) return;
+        exception.UpdateJSValueRef(context, store[EXCEPTION_VALUE]);
+    }
+    private long checkException(JSContextRef context, JSValueRef exception, long result) {
+        checkException(context, exception);
+        return result;
+    }
+    private int checkException(JSContextRef context, JSValueRef exception, int result) {
+        checkException(context, exception);
+        return result;
+    }
+    private boolean checkException(JSContextRef context, JSValueRef exception, boolean result) {
+        checkException(context, exception);
+        return result;
+    }
+    private double checkException(JSContextRef context, JSValueRef exception, double result) {
+        checkException(context, exception);
+        return result;
+    }
+    private String checkException(JSContextRef context, JSValueRef exception, String result) {
+        checkException(context, exception);
+        return result;
+    }
+
+    /*
+     * Returns true if the last native call on current thread that has asked for exception has thrown one
+     */
+    public boolean isExceptionThrown() {
+        return exceptionStores.get()[EXCEPTION_THROWN] != 0;
+    }
+
     private long p(PointerType p) {
         if (p == null) return 0;
         return p.pointer();
     }
 
+    private long[] p(PointerType[] p) {
+        long[] pointers = new long[p.length];
+        for (int i = 0; i < p.length; i++) {
+            pointers[i] = p(p[i]);
+        }
+        return pointers;
+    }
+
     /*
      * Native method wrappers
      */
@@ -126,7 +257,7 @@ public class JavaScriptCoreLibrary {
     }
 
     public JSValueRef JSEvaluateScript(JSContextRef context, String script, JSValueRef exception) {
-        return new JSValueRef(context, NativeJSEvaluateScriptShort(p(context), script, exception));
+        return new JSValueRef(context, checkException(context, exception, NativeJSEvaluateScriptShort(p(context), script, exceptionOut(exception))));
     }
 
     /**
@@ -154,11 +285,11 @@ public class JavaScriptCoreLibrary {
      *         exception is thrown.
      */
     public JSValueRef JSEvaluateScript(JSContextRef context, String script, JSObjectRef object, String sourceURL, int line, JSValueRef exception) {
-        return new JSValueRef(context, NativeJSEvaluateScriptFull(p(context), script, p(object), sourceURL, line, exception));
+        return new JSValueRef(context, checkException(context, exception, NativeJSEvaluateScriptFull(p(context), script, p(object), sourceURL, line, exceptionOut(exception))));
     }
 
     public boolean JSCheckScriptSyntax(JSContextRef context, String script, JSValueRef exception) {
-        return NativeJSCheckScriptSyntax(p(context), script, exception);
+        return checkException(context, exception, NativeJSCheckScriptSyntax(p(context), script, exceptionOut(exception)));
     }
 
     /**
@@ -186,8 +317,18 @@ public class JavaScriptCoreLibrary {
         NativeJSValueUnprotect(p(context), p(value));
     }
 
+    /*
+     * Unprotects values[0..count) in one native call
+     */
+    public void JSValueUnprotectValues(JSContextRef context, long[] values, int count) {
+        if (count > values.length) {
+            throw new IllegalArgumentException(String.format("count should not be larger than %d", values.length));
+        }
+        NativeJSValueUnprotectValues(p(context), values, count);
+    }
+
     public String JSValueCreateJSONString(JSContextRef context, JSValueRef value, int indent, JSValueRef exception) {
-        return NativeJSValueCreateJSONString(p(context), p(value), indent, exception);
+        return checkException(context, exception, NativeJSValueCreateJSONString(p(context), p(value), indent, exceptionOut(exception)));
     }
 
     public JSValueRef JSValueMakeBoolean(JSContextRef context, boolean value) {
@@ -239,11 +380,11 @@ public class JavaScriptCoreLibrary {
     }
 
     public boolean JSValueIsEqual(JSContextRef context, JSValueRef a, JSValueRef b, JSValueRef exception) {
-        return NativeJSValueIsEqual(p(context), p(a), p(b), exception);
+        return checkException(context, exception, NativeJSValueIsEqual(p(context), p(a), p(b), exceptionOut(exception)));
     }
 
     public boolean JSValueIsInstanceOfConstructor(JSContextRef context, JSValueRef value, JSObjectRef constructor, JSValueRef exception) {
-        return NativeJSValueIsInstanceOfConstructor(p(context), p(value), p(constructor), exception);
+        return checkException(context, exception, NativeJSValueIsInstanceOfConstructor(p(context), p(value), p(constructor), exceptionOut(exception)));
     }
 
     public boolean JSValueIsObjectOfClass(JSContextRef context, JSValueRef value, JSClassRef jsClass) {
@@ -259,15 +400,15 @@ public class JavaScriptCoreLibrary {
     }
 
     public double JSValueToNumber(JSContextRef context, JSValueRef value, JSValueRef exception) {
-        return NativeJSValueToNumber(p(context), p(value), exception);
+        return checkException(context, exception, NativeJSValueToNumber(p(context), p(value), exceptionOut(exception)));
     }
 
     public String JSValueToStringCopy(JSContextRef context, JSValueRef value, JSValueRef exception) {
-        return NativeJSValueToStringCopy(p(context), p(value), exception);
+        return checkException(context, exception, NativeJSValueToStringCopy(p(context), p(value), exceptionOut(exception)));
     }
 
     public JSObjectRef JSValueToObject(JSContextRef context, JSValueRef value, JSValueRef exception) {
-        return new JSObjectRef(context, NativeJSValueToObject(p(context), p(value), exception));
+        return new JSObjectRef(context, checkException(context, exception, NativeJSValueToObject(p(context), p(value), exceptionOut(exception))));
     }
 
     public JSType JSValueGetType(JSContextRef context, JSValueRef value) {
@@ -288,29 +429,108 @@ public class JavaScriptCoreLibrary {
 
     public JSObjectRef JSObjectCallAsConstructor(JSContextRef context, JSObjectRef jsObject, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSObjectRef(context, NativeJSObjectCallAsConstructor(p(context), p(jsObject), 0, null, exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectCallAsConstructor(p(context), p(jsObject), 0, null, exceptionOut(exception))));
         } else {
-            return new JSObjectRef(context, NativeJSObjectCallAsConstructor(p(context), p(jsObject), argv.length(), argv.getByteBuffer(), exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectCallAsConstructor(p(context), p(jsObject), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
         }
     }
 
     public JSValueRef JSObjectCallAsFunction(JSContextRef context, JSObjectRef jsObject,
                                              JSObjectRef thisObject, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSValueRef(context, NativeJSObjectCallAsFunction(p(context), p(jsObject), p(thisObject), 0, null, exception));
+            return new JSValueRef(context, checkException(context, exception, NativeJSObjectCallAsFunction(p(context), p(jsObject), p(thisObject), 0, null, exceptionOut(exception))));
         } else {
-            return new JSValueRef(context, NativeJSObjectCallAsFunction(p(context), p(jsObject), p(thisObject), argv.length(), argv.getByteBuffer(), exception));
+            return new JSValueRef(context, checkException(context, exception, NativeJSObjectCallAsFunction(p(context), p(jsObject), p(thisObject), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
         }
     }
 
+    /*
+     * Same as JSObjectCallAsConstructor and JSObjectCallAsFunction but copies arguments
+     * into an argument array leased from the pool of current thread.
+     */
+    public JSObjectRef JSObjectCallAsConstructorWithValues(JSContextRef context, JSObjectRef jsObject, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectCallAsConstructor(context, jsObject, argv, exception);
+        }
+    }
+
+    public JSValueRef JSObjectCallAsFunctionWithValues(JSContextRef context, JSObjectRef jsObject,
+                                             JSObjectRef thisObject, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectCallAsFunction(context, jsObject, thisObject, argv, exception);
+        }
+    }
+
+    private static JSValueArrayRef leaseArguments(JSValueRef[] arguments) {
+        if (arguments == null) return JSValueArrayRef.EMPTY;
+        JSValueArrayRef argv = JSValueArrayRef.lease(arguments.length);
+        for (int i = 0; i < arguments.length; i++) {
+            argv.set(i, arguments[i]);
+        }
+        return argv;
+    }
+
     public void JSObjectSetProperty(JSContextRef context, JSObjectRef jsObject,
                                     String propertyName, JSValueRef value, JSPropertyAttribute attributes, JSValueRef exception) {
-        NativeJSObjectSetProperty(p(context), p(jsObject), propertyName, p(value), attributes.getValue(), exception);
+        NativeJSObjectSetProperty(p(context), p(jsObject), propertyName, p(value), attributes.getValue(), exceptionOut(exception));
+        checkException(context, exception);
+    }
+
+    public void JSObjectSetProperty(JSContextRef context, JSObjectRef jsObject,
+                                    JSPropertyName propertyName, JSValueRef value, JSPropertyAttribute attributes, JSValueRef exception) {
+        NativeJSObjectSetPropertyWithName(p(context), p(jsObject), propertyName, p(propertyName), p(value), attributes.getValue(), exceptionOut(exception));
+        checkException(context, exception);
     }
 
     public JSValueRef JSObjectGetProperty(JSContextRef context, JSObjectRef jsObject,
                                             String propertyName, JSValueRef exception) {
-        return new JSValueRef(context, NativeJSObjectGetProperty(p(context), p(jsObject), propertyName, exception));
+        return new JSValueRef(context, checkException(context, exception, NativeJSObjectGetProperty(p(context), p(jsObject), propertyName, exceptionOut(exception))));
+    }
+
+    public JSValueRef JSObjectGetProperty(JSContextRef context, JSObjectRef jsObject,
+                                            JSPropertyName propertyName, JSValueRef exception) {
+        return new JSValueRef(context, checkException(context, exception, NativeJSObjectGetPropertyWithName(p(context), p(jsObject), propertyName, p(propertyName), exceptionOut(exception))));
+    }
+
+    /*
+     * Gets multiple properties in one native call. JSValueRef of each property is stored to values
+     * and can be wrapped by new JSValueRef(context, values[i]).
+     * Returns the number of properties that have been got, which is less than propertyNames.length
+     * when an exception is thrown.
+     */
+    public int JSObjectGetProperties(JSContextRef context, JSObjectRef jsObject,
+                                        String[] propertyNames, long[] values, JSValueRef exception) {
+        checkPropertiesLength(propertyNames.length, values);
+        return checkException(context, exception, NativeJSObjectGetProperties(p(context), p(jsObject), propertyNames, values, exceptionOut(exception)));
+    }
+
+    public int JSObjectGetProperties(JSContextRef context, JSObjectRef jsObject,
+                                        JSPropertyName[] propertyNames, long[] values, JSValueRef exception) {
+        checkPropertiesLength(propertyNames.length, values);
+        return checkException(context, exception, NativeJSObjectGetPropertiesWithNames(p(context), p(jsObject), propertyNames, p(propertyNames), values, exceptionOut(exception)));
+    }
+
+    /*
+     * Sets multiple properties in one native call, values contains JSValueRef of each property.
+     * Returns the number of properties that have been set, which is less than propertyNames.length
+     * when an exception is thrown.
+     */
+    public int JSObjectSetProperties(JSContextRef context, JSObjectRef jsObject,
+                                        String[] propertyNames, long[] values, JSPropertyAttribute attributes, JSValueRef exception) {
+        checkPropertiesLength(propertyNames.length, values);
+        return checkException(context, exception, NativeJSObjectSetProperties(p(context), p(jsObject), propertyNames, values, attributes.getValue(), exceptionOut(exception)));
+    }
+
+    public int JSObjectSetProperties(JSContextRef context, JSObjectRef jsObject,
+                                        JSPropertyName[] propertyNames, long[] values, JSPropertyAttribute attributes, JSValueRef exception) {
+        checkPropertiesLength(propertyNames.length, values);
+        return checkException(context, exception, NativeJSObjectSetPropertiesWithNames(p(context), p(jsObject), propertyNames, p(propertyNames), values, attributes.getValue(), exceptionOut(exception)));
+    }
+
+    private void checkPropertiesLength(int length, long[] values) {
+        if (values.length < length) {
+            throw new IllegalArgumentException(String.format("values should have at least %d elements", length));
+        }
     }
     
     public void JSClassRelease(JSClassRef jsClass) {
@@ -335,11 +555,15 @@ public class JavaScriptCoreLibrary {
     }
 
     public boolean JSObjectDeleteProperty(JSContextRef context, JSObjectRef jsObject, String propertyName, JSValueRef exception) {
-        return NativeJSObjectDeleteProperty(p(context), p(jsObject), propertyName, exception);
+        return checkException(context, exception, NativeJSObjectDeleteProperty(p(context), p(jsObject), propertyName, exceptionOut(exception)));
+    }
+
+    public boolean JSObjectDeleteProperty(JSContextRef context, JSObjectRef jsObject, JSPropertyName propertyName, JSValueRef exception) {
+        return checkException(context, exception, NativeJSObjectDeletePropertyWithName(p(context), p(jsObject), propertyName, p(propertyName), exceptionOut(exception)));
     }
 
     public JSValueRef JSObjectGetPropertyAtIndex(JSContextRef context, JSObjectRef jsObject, int propertyIndex, JSValueRef exception) {
-        return new JSValueRef(context, NativeJSObjectGetPropertyAtIndex(p(context), p(jsObject), propertyIndex, exception));
+        return new JSValueRef(context, checkException(context, exception, NativeJSObjectGetPropertyAtIndex(p(context), p(jsObject), propertyIndex, exceptionOut(exception))));
     }
 
     public JSValueRef JSObjectGetPrototype(JSContextRef context, JSObjectRef jsObject) {
@@ -350,6 +574,10 @@ public class JavaScriptCoreLibrary {
         return NativeJSObjectHasProperty(p(context), p(jsObject), propertyName);
     }
 
+    public boolean JSObjectHasProperty(JSContextRef context, JSObjectRef jsObject, JSPropertyName propertyName) {
+        return NativeJSObjectHasPropertyWithName(p(context), p(jsObject), propertyName, p(propertyName));
+    }
+
     public boolean JSObjectIsConstructor(JSContextRef context, JSObjectRef jsObject) {
         return NativeJSObjectIsConstructor(p(context), p(jsObject));
     }
@@ -360,43 +588,131 @@ public class JavaScriptCoreLibrary {
 
     public JSObjectRef JSObjectMakeArray(JSContextRef context, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSObjectRef(context, NativeJSObjectMakeArray(p(context), 0, null, exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeArray(p(context), 0, null, exceptionOut(exception))));
         } else {
-            return new JSObjectRef(context, NativeJSObjectMakeArray(p(context), argv.length(), argv.getByteBuffer(), exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeArray(p(context), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
+        }
+    }
+
+    /*
+     * Creates JS Array from Java primitive array in one native call.
+     * Long values that are larger than 2^53 lose precision because JS numbers are double.
+     */
+    public JSObjectRef JSObjectMakeArrayFromDoubleArray(JSContextRef context, double[] values, JSValueRef exception) {
+        return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeArrayFromDoubleArray(p(context), values, exceptionOut(exception))));
+    }
+
+    public JSObjectRef JSObjectMakeArrayFromIntArray(JSContextRef context, int[] values, JSValueRef exception) {
+        return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeArrayFromIntArray(p(context), values, exceptionOut(exception))));
+    }
+
+    public JSObjectRef JSObjectMakeArrayFromLongArray(JSContextRef context, long[] values, JSValueRef exception) {
+        return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeArrayFromLongArray(p(context), values, exceptionOut(exception))));
+    }
+
+    /*
+     * Converts JS Array (or any object that has length and indexed elements) to Java primitive array
+     * in one native call. Elements are converted by JSValueToNumber; NaN becomes 0 for int and long,
+     * and values out of range are clamped.
+     */
+    public double[] JSObjectToDoubleArray(JSContextRef context, JSObjectRef jsObject, JSValueRef exception) {
+        double[] values = NativeJSObjectToDoubleArray(p(context), p(jsObject), exceptionOut(exception));
+        checkException(context, exception);
+        return values;
+    }
+
+    public int[] JSObjectToIntArray(JSContextRef context, JSObjectRef jsObject, JSValueRef exception) {
+        int[] values = NativeJSObjectToIntArray(p(context), p(jsObject), exceptionOut(exception));
+        checkException(context, exception);
+        return values;
+    }
+
+    public long[] JSObjectToLongArray(JSContextRef context, JSObjectRef jsObject, JSValueRef exception) {
+        long[] values = NativeJSObjectToLongArray(p(context), p(jsObject), exceptionOut(exception));
+        checkException(context, exception);
+        return values;
+    }
+
+    /*
+     * Creates typed array view that shares memory with Java direct ByteBuffer, no data is copied
+     * in either direction. Whole capacity of the buffer is used regardless of its position and limit,
+     * and elements are stored in native byte order, so use buffer.order(ByteOrder.nativeOrder())
+     * to access them from Java. The buffer is kept alive while the JS object is alive.
+     */
+    public JSObjectRef JSObjectMakeTypedArrayWithBuffer(JSContextRef context, JSTypedArrayType type, ByteBuffer buffer) {
+        if (type == JSTypedArrayType.None) {
+            throw new IllegalArgumentException("Typed array type should not be None");
         }
+        if (buffer == null || !buffer.isDirect()) {
+            throw new IllegalArgumentException("Typed array buffer should be direct ByteBuffer");
+        }
+        return new JSObjectRef(context, NativeJSObjectMakeTypedArrayWithBuffer(p(context), type.getValue(), buffer));
+    }
+
+    /*
+     * Returns ByteBuffer that backs the typed array view, or null if the object is not created by
+     * JSObjectMakeTypedArrayWithBuffer
+     */
+    public ByteBuffer JSObjectGetTypedArrayBuffer(JSContextRef context, JSObjectRef jsObject) {
+        return NativeJSObjectGetTypedArrayBuffer(p(context), p(jsObject));
+    }
+
+    public JSTypedArrayType JSObjectGetTypedArrayType(JSContextRef context, JSObjectRef jsObject) {
+        return JSTypedArrayType.request(NativeJSObjectGetTypedArrayType(p(context), p(jsObject)));
     }
 
     public JSObjectRef JSObjectMakeDate(JSContextRef context, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSObjectRef(context, NativeJSObjectMakeDate(p(context), 0, null, exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeDate(p(context), 0, null, exceptionOut(exception))));
         } else {
-            return new JSObjectRef(context, NativeJSObjectMakeDate(p(context), argv.length(), argv.getByteBuffer(), exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeDate(p(context), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
         }
     }
     public JSObjectRef JSObjectMakeError(JSContextRef context, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSObjectRef(context, NativeJSObjectMakeError(p(context), 0, null, exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeError(p(context), 0, null, exceptionOut(exception))));
         } else {
-            return new JSObjectRef(context, NativeJSObjectMakeError(p(context), argv.length(), argv.getByteBuffer(), exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeError(p(context), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
         }
     }
     public JSObjectRef JSObjectMakeRegExp(JSContextRef context, JSValueArrayRef argv, JSValueRef exception) {
         if (argv == null) {
-            return new JSObjectRef(context, NativeJSObjectMakeRegExp(p(context), 0, null, exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeRegExp(p(context), 0, null, exceptionOut(exception))));
         } else {
-            return new JSObjectRef(context, NativeJSObjectMakeRegExp(p(context), argv.length(), argv.getByteBuffer(), exception));
+            return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeRegExp(p(context), argv.length(), argv.getByteBuffer(), exceptionOut(exception))));
+        }
+    }
+    public JSObjectRef JSObjectMakeArrayWithValues(JSContextRef context, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectMakeArray(context, argv, exception);
+        }
+    }
+    public JSObjectRef JSObjectMakeDateWithValues(JSContextRef context, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectMakeDate(context, argv, exception);
+        }
+    }
+    public JSObjectRef JSObjectMakeErrorWithValues(JSContextRef context, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectMakeError(context, argv, exception);
+        }
+    }
+    public JSObjectRef JSObjectMakeRegExpWithValues(JSContextRef context, JSValueRef[] arguments, JSValueRef exception) {
+        try (JSValueArrayRef argv = leaseArguments(arguments)) {
+            return JSObjectMakeRegExp(context, argv, exception);
         }
     }
     public JSObjectRef JSObjectMakeFunction(JSContextRef context, String name, int paramCount,
                                             String paramNames[], String body, String sourceURL,
                                             int line, JSValueRef exception) {
-        return new JSObjectRef(context, NativeJSObjectMakeFunction(p(context), name, paramCount,
-                                            paramNames, body, sourceURL, line, exception));
+        return new JSObjectRef(context, checkException(context, exception, NativeJSObjectMakeFunction(p(context), name, paramCount,
+                                            paramNames, body, sourceURL, line, exceptionOut(exception))));
     }
 
     public void JSObjectSetPropertyAtIndex(JSContextRef context, JSObjectRef jsObject,
                                             int propertyIndex, JSValueRef value, JSValueRef exception) {
-        NativeJSObjectSetPropertyAtIndex(p(context), p(jsObject), propertyIndex, p(value), exception);
+        NativeJSObjectSetPropertyAtIndex(p(context), p(jsObject), propertyIndex, p(value), exceptionOut(exception));
+        checkException(context, exception);
     }
 
     public void JSObjectSetPrototype(JSContextRef context, JSObjectRef jsObject, JSValueRef value) {
@@ -407,6 +723,10 @@ public class JavaScriptCoreLibrary {
         NativeJSPropertyNameAccumulatorAddName(p(accumulator), propertyName);
     }
 
+    public void JSPropertyNameAccumulatorAddName(JSPropertyNameAccumulatorRef accumulator, JSPropertyName propertyName) {
+        NativeJSPropertyNameAccumulatorAddNameWithName(p(accumulator), propertyName, p(propertyName));
+    }
+
     public int JSPropertyNameArrayGetCount(JSPropertyNameArrayRef names) {
         return NativeJSPropertyNameArrayGetCount(p(names));
     }
@@ -468,7 +788,7 @@ public class JavaScriptCoreLibrary {
             jsClassDefinition.callAsConstructor = callback;
         }
         long constructor = NativeJSObjectMakeConstructor(p(context), p(jsClass), jsClassDefinition);
-        JSClassDefinition.registerMakeConstructorCallback(constructor, callback);
+        JSClassDefinition.registerMakeConstructorCallback(NativeJSContextGetGroup(p(context)), constructor, callback);
         return new JSObjectRef(context, constructor);
     }
 
@@ -478,7 +798,7 @@ public class JavaScriptCoreLibrary {
     public JSObjectRef JSObjectMakeFunctionWithCallback(JSContextRef context, String name,
                                                         JSObjectCallAsFunctionCallback callback) {
         long function = NativeJSObjectMakeFunctionWithCallback(p(context), name);
-        JSClassDefinition.registerMakeFunctionCallback(function, callback);
+        JSClassDefinition.registerMakeFunctionCallback(NativeJSContextGetGroup(p(context)), function, callback);
         return new JSObjectRef(context, function);
     }
 
@@ -493,18 +813,82 @@ public class JavaScriptCoreLibrary {
         return NativeJSContextCreateBacktrace(p(ctx), maxStackSize);
     }
 
+    /*
+     * Sets the script execution time limit of the group in seconds. When a script has run longer,
+     * the callback decides if it is terminated, null callback terminates it unconditionally.
+     * The callback is invoked on the thread that runs the script.
+     * The limit has no effect where isExecutionTimeLimitSupported() returns false.
+     */
+    public void JSContextGroupSetExecutionTimeLimit(JSContextGroupRef group, double limit, JSShouldTerminateCallback callback) {
+        JSClassDefinition.registerShouldTerminateCallback(p(group), callback);
+        NativeJSContextGroupSetExecutionTimeLimit(p(group), limit, callback != null);
+    }
+
+    public void JSContextGroupClearExecutionTimeLimit(JSContextGroupRef group) {
+        NativeJSContextGroupClearExecutionTimeLimit(p(group));
+        JSClassDefinition.registerShouldTerminateCallback(p(group), null);
+    }
+
     public boolean JSObjectSetPrivateProperty(JSContextRef ctx, JSObjectRef object, String propertyName, JSValueRef value) {
         return NativeJSObjectSetPrivateProperty(p(ctx), p(object), propertyName, p(value));
     }
 
+    public boolean JSObjectSetPrivateProperty(JSContextRef ctx, JSObjectRef object, JSPropertyName propertyName, JSValueRef value) {
+        return NativeJSObjectSetPrivatePropertyWithName(p(ctx), p(object), propertyName, p(propertyName), p(value));
+    }
+
     public JSValueRef JSObjectGetPrivateProperty(JSContextRef ctx, JSObjectRef object, String propertyName) {
         return new JSValueRef(ctx, NativeJSObjectGetPrivateProperty(p(ctx), p(object), propertyName));
     }
 
+    public JSValueRef JSObjectGetPrivateProperty(JSContextRef ctx, JSObjectRef object, JSPropertyName propertyName) {
+        return new JSValueRef(ctx, NativeJSObjectGetPrivatePropertyWithName(p(ctx), p(object), propertyName, p(propertyName)));
+    }
+
     public boolean JSObjectDeletePrivateProperty(JSContextRef ctx, JSObjectRef object, String propertyName) {
         return NativeJSObjectDeletePrivateProperty(p(ctx), p(object), propertyName);
     }
 
+    public boolean JSObjectDeletePrivateProperty(JSContextRef ctx, JSObjectRef object, JSPropertyName propertyName) {
+        return NativeJSObjectDeletePrivatePropertyWithName(p(ctx), p(object), propertyName, p(propertyName));
+    }
+
+
+    /*
+     * Creates precompiled script, returns null if the source is not a valid JavaScript program
+     */
+    public JSScriptRef JSScriptCreateFromString(JSContextGroupRef group, String sourceURL, int startingLineNumber, String script) {
+        long pointer = NativeJSScriptCreateFromString(p(group), sourceURL, startingLineNumber, script);
+        return pointer == 0 ? null : new JSScriptRef(sourceURL, pointer);
+    }
+
+    /*
+     * Creates precompiled script that references the source in direct ByteBuffer without copying it.
+     * The source should be pure ASCII. The returned script keeps the buffer until it is released,
+     * functions defined by the script refer to the text after that, so keep the script while they are used.
+     * Returns null if the source is not ASCII or not a valid JavaScript program.
+     */
+    public JSScriptRef JSScriptCreateReferencingImmortalASCIIText(JSContextGroupRef group, String sourceURL, int startingLineNumber, ByteBuffer script) {
+        if (script == null || !script.isDirect()) {
+            throw new IllegalArgumentException("Script buffer should be direct ByteBuffer");
+        }
+        long pointer = NativeJSScriptCreateReferencingImmortalASCIIText(p(group), sourceURL, startingLineNumber, script);
+        return pointer == 0 ? null : new JSScriptRef(sourceURL, pointer, script);
+    }
+
+    public void JSScriptRetain(JSScriptRef script) {
+        NativeJSScriptRetain(p(script));
+        script.retained();
+    }
+
+    public void JSScriptRelease(JSScriptRef script) {
+        NativeJSScriptRelease(p(script));
+        script.released();
+    }
+
+    public JSValueRef JSScriptEvaluate(JSContextRef context, JSScriptRef script, JSValueRef thisValue, JSValueRef exception) {
+        return new JSValueRef(context, checkException(context, exception, NativeJSScriptEvaluate(p(context), p(script), p(thisValue), exceptionOut(exception))));
+    }
 
     /*
      * Native methods
@@ -517,6 +901,13 @@ public class JavaScriptCoreLibrary {
     public static native short NativeSizeOfJSStaticValue();
     public static native long[] NativeAllocateCharacterBuffer(String[] values);
     public static native void  NativeReleasePointers(long[] pointers);
+    public static native long NativeGetThreadAttachCount();
+    public static native boolean NativeIsExecutionTimeLimitSupported();
+    public static native void NativeSetNativeStatsEnabled(boolean enabled);
+    public static native boolean NativeIsNativeStatsEnabled();
+    public static native void NativeResetNativeStats();
+    public static native String[] NativeGetNativeStatsNames();
+    public static native long[] NativeGetNativeStats();
 
     public native long NativeJSContextGetGlobalObject(long jsContextRef);
     public native long NativeJSContextGetGroup(long jsContextRef);
@@ -527,13 +918,14 @@ public class JavaScriptCoreLibrary {
     public native long NativeJSGlobalContextCreateInGroup(long jsContextGroupRef, long jsClassRef, JSClassDefinition callback);
     public native void NativeJSGlobalContextRelease(long jsContextRef);
     public native long NativeJSGlobalContextRetain(long jsContextRef);
-    public native long NativeJSEvaluateScriptShort(long jsContextRef, String script, JSValueRef exception);
-    public native long NativeJSEvaluateScriptFull(long jsContextRef, String script, long jsObjectRef, String sourceURL, int line, JSValueRef exception);
-    public native boolean NativeJSCheckScriptSyntax(long jsContextRef, String script, JSValueRef exception);
+    public native long NativeJSEvaluateScriptShort(long jsContextRef, String script, long[] exceptionOut);
+    public native long NativeJSEvaluateScriptFull(long jsContextRef, String script, long jsObjectRef, String sourceURL, int line, long[] exceptionOut);
+    public native boolean NativeJSCheckScriptSyntax(long jsContextRef, String script, long[] exceptionOut);
     public native long NativeJSGarbageCollect(long jsContextRef);
     public native void NativeJSValueProtect(long jsContextRef, long jsValueRef);
     public native void NativeJSValueUnprotect(long jsContextRef, long jsValueRef);
-    public native String NativeJSValueCreateJSONString(long jsContextRef, long jsValueRef, int indent, JSValueRef exception);
+    public native void NativeJSValueUnprotectValues(long jsContextRef, long[] values, int count);
+    public native String NativeJSValueCreateJSONString(long jsContextRef, long jsValueRef, int indent, long[] exceptionOut);
     public native long NativeJSValueMakeNull(long jsContextRef);
     public native long NativeJSValueMakeUndefined(long jsContextRef);
     public native long NativeJSValueMakeBoolean(long jsContextRef, boolean value);
@@ -541,45 +933,46 @@ public class JavaScriptCoreLibrary {
     public native long NativeJSValueMakeString(long jsContextRef, String string);
     public native long NativeJSValueMakeFromJSONString(long jsContextRef, String string);
     public native boolean NativeJSValueIsObjectOfClass(long jsContextRef, long jsValueRef, long jsClassRef);
-    public native boolean NativeJSValueIsInstanceOfConstructor(long jsContextRef, long jsValueRef, long jsObjectRef, JSValueRef exception);
+    public native boolean NativeJSValueIsInstanceOfConstructor(long jsContextRef, long jsValueRef, long jsObjectRef, long[] exceptionOut);
     public native boolean NativeJSValueIsUndefined(long jsContextRef, long jsValueRef);
     public native boolean NativeJSValueIsNull(long jsContextRef, long jsValueRef);
     public native boolean NativeJSValueIsNumber(long jsContextRef, long jsValueRef);
     public native boolean NativeJSValueIsBoolean(long jsContextRef, long jsValueRef);
     public native boolean NativeJSValueIsString(long jsContextRef, long jsValueRef);
     public native boolean NativeJSValueIsObject(long jsContextRef, long jsValueRef);
-    public native boolean NativeJSValueIsEqual(long jsContextRef, long jsValueRefA, long jsValueRefB, JSValueRef exception);
+    public native boolean NativeJSValueIsEqual(long jsContextRef, long jsValueRefA, long jsValueRefB, long[] exceptionOut);
     public native boolean NativeJSValueIsStrictEqual(long jsContextRef, long jsValueRefA, long jsValueRefB);
     public native boolean NativeJSValueToBoolean(long jsContextRef, long jsValueRef);
-    public native double NativeJSValueToNumber(long jsContextRef, long jsValueRef, JSValueRef exception);
-    public native long NativeJSValueToObject(long jsContextRef, long jsValueRef, JSValueRef exception);
-    public native String NativeJSValueToStringCopy(long jsContextRef, long jsValueRef, JSValueRef exception);
+    public native double NativeJSValueToNumber(long jsContextRef, long jsValueRef, long[] exceptionOut);
+    public native long NativeJSValueToObject(long jsContextRef, long jsValueRef, long[] exceptionOut);
+    public native String NativeJSValueToStringCopy(long jsContextRef, long jsValueRef, long[] exceptionOut);
+    public native int NativeJSValueUnbox(long jsContextRef, long jsValueRef, ByteBuffer slot);
     public native int NativeJSValueGetType(long jsContextRef, long jsValueRef);
 
     public native long NativeJSClassCreate(ByteBuffer definition, String className, ByteBuffer staticValues, ByteBuffer staticFunctions);
 
     public native void NativeJSClassRelease(long jsClassRef);
     public native long NativeJSClassRetain(long jsClassRef);
-    public native long NativeJSObjectCallAsConstructor(long jsContextRef, long jsObjectRef, int argc, ByteBuffer argv, JSValueRef exception);
-    public native long NativeJSObjectCallAsFunction(long jsContextRef, long jsObjectRef, long thisObjectRef, int argc, ByteBuffer argv, JSValueRef exception);
+    public native long NativeJSObjectCallAsConstructor(long jsContextRef, long jsObjectRef, int argc, ByteBuffer argv, long[] exceptionOut);
+    public native long NativeJSObjectCallAsFunction(long jsContextRef, long jsObjectRef, long thisObjectRef, int argc, ByteBuffer argv, long[] exceptionOut);
     public native long NativeJSObjectCopyPropertyNames(long jsContextRef, long jsObjectRef);
-    public native boolean NativeJSObjectDeleteProperty(long jsContextRef, long jsObjectRef, String propertyName, JSValueRef exception);
+    public native boolean NativeJSObjectDeleteProperty(long jsContextRef, long jsObjectRef, String propertyName, long[] exceptionOut);
     public native Object NativeJSObjectGetPrivate(long jsObjectRef);
     public native boolean NativeJSObjectSetPrivate(long jsObjectRef, Object object);
-    public native long NativeJSObjectGetProperty(long jsContextRef, long jsObjectRef, String propertyName, JSValueRef exception);
-    public native long NativeJSObjectGetPropertyAtIndex(long jsContextRef, long jsObjectRef, int propertyIndex, JSValueRef exception);
+    public native long NativeJSObjectGetProperty(long jsContextRef, long jsObjectRef, String propertyName, long[] exceptionOut);
+    public native long NativeJSObjectGetPropertyAtIndex(long jsContextRef, long jsObjectRef, int propertyIndex, long[] exceptionOut);
     public native long NativeJSObjectGetPrototype(long jsContextRef, long jsObjectRef);
     public native boolean NativeJSObjectHasProperty(long jsContextRef, long jsObjectRef, String propertyName);
     public native boolean NativeJSObjectIsConstructor(long jsContextRef, long jsObjectRef);
     public native boolean NativeJSObjectIsFunction(long jsContextRef, long jsObjectRef);
     public native long NativeJSObjectMake(long jsContextRef, long jsClassRef, JSClassDefinition definition, Object object);
-    public native long NativeJSObjectMakeArray(long jsContextRef, int argc, ByteBuffer argv, JSValueRef exception);
-    public native long NativeJSObjectMakeDate(long jsContextRef, int argc, ByteBuffer argv, JSValueRef exception);
-    public native long NativeJSObjectMakeError(long jsContextRef, int argc, ByteBuffer argv, JSValueRef exception);
-    public native long NativeJSObjectMakeFunction(long jsContextRef, String name, int paramCount, String paramNames[], String body, String sourceURL, int line, JSValueRef exception);
-    public native long NativeJSObjectMakeRegExp(long jsContextRef, int argc, ByteBuffer argv, JSValueRef exception);
-    public native void NativeJSObjectSetProperty(long jsContextRef, long jsObjectRef, String propertyName, long jsValueRef, int attributes, JSValueRef exception);
-    public native void NativeJSObjectSetPropertyAtIndex(long jsContextRef, long jsObjectRef, int propertyIndex, long jsValueRef, JSValueRef exception);
+    public native long NativeJSObjectMakeArray(long jsContextRef, int argc, ByteBuffer argv, long[] exceptionOut);
+    public native long NativeJSObjectMakeDate(long jsContextRef, int argc, ByteBuffer argv, long[] exceptionOut);
+    public native long NativeJSObjectMakeError(long jsContextRef, int argc, ByteBuffer argv, long[] exceptionOut);
+    public native long NativeJSObjectMakeFunction(long jsContextRef, String name, int paramCount, String paramNames[], String body, String sourceURL, int line, long[] exceptionOut);
+    public native long NativeJSObjectMakeRegExp(long jsContextRef, int argc, ByteBuffer argv, long[] exceptionOut);
+    public native void NativeJSObjectSetProperty(long jsContextRef, long jsObjectRef, String propertyName, long jsValueRef, int attributes, long[] exceptionOut);
+    public native void NativeJSObjectSetPropertyAtIndex(long jsContextRef, long jsObjectRef, int propertyIndex, long jsValueRef, long[] exceptionOut);
     public native void NativeJSObjectSetPrototype(long jsContextRef, long jsObjectRef, long jsValueRef);
     public native void NativeJSPropertyNameAccumulatorAddName(long accumulator, String propertyName);
     public native int NativeJSPropertyNameArrayGetCount(long jsPropertyNameArrayRef);
@@ -588,11 +981,39 @@ public class JavaScriptCoreLibrary {
     public native long NativeJSPropertyNameArrayRetain(long jsPropertyNameArrayRef);
     public native long NativeJSObjectMakeConstructor(long jsContextRef, long jsClassRef, JSClassDefinition definition);
     public native long NativeJSObjectMakeFunctionWithCallback(long jsContextRef, String name);
+    public native void NativeJSObjectSetPropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef, long jsValueRef, int attributes, long[] exceptionOut);
+    public native long NativeJSObjectGetPropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef, long[] exceptionOut);
+    public native long NativeJSObjectMakeArrayFromDoubleArray(long jsContextRef, double[] values, long[] exceptionOut);
+    public native long NativeJSObjectMakeArrayFromIntArray(long jsContextRef, int[] values, long[] exceptionOut);
+    public native long NativeJSObjectMakeArrayFromLongArray(long jsContextRef, long[] values, long[] exceptionOut);
+    public native double[] NativeJSObjectToDoubleArray(long jsContextRef, long jsObjectRef, long[] exceptionOut);
+    public native int[] NativeJSObjectToIntArray(long jsContextRef, long jsObjectRef, long[] exceptionOut);
+    public native long[] NativeJSObjectToLongArray(long jsContextRef, long jsObjectRef, long[] exceptionOut);
+    public native long NativeJSObjectMakeTypedArrayWithBuffer(long jsContextRef, int type, ByteBuffer buffer);
+    public native ByteBuffer NativeJSObjectGetTypedArrayBuffer(long jsContextRef, long jsObjectRef);
+    public native int NativeJSObjectGetTypedArrayType(long jsContextRef, long jsObjectRef);
+    public native int NativeJSObjectGetProperties(long jsContextRef, long jsObjectRef, String[] propertyNames, long[] values, long[] exceptionOut);
+    public native int NativeJSObjectGetPropertiesWithNames(long jsContextRef, long jsObjectRef, JSPropertyName[] propertyNames, long[] jsStringRefs, long[] values, long[] exceptionOut);
+    public native int NativeJSObjectSetProperties(long jsContextRef, long jsObjectRef, String[] propertyNames, long[] values, int attributes, long[] exceptionOut);
+    public native int NativeJSObjectSetPropertiesWithNames(long jsContextRef, long jsObjectRef, JSPropertyName[] propertyNames, long[] jsStringRefs, long[] values, int attributes, long[] exceptionOut);
+    public native boolean NativeJSObjectHasPropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef);
+    public native boolean NativeJSObjectDeletePropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef, long[] exceptionOut);
+    public native void NativeJSPropertyNameAccumulatorAddNameWithName(long accumulator, JSPropertyName propertyName, long jsStringRef);
 
     /* Private API */
     public native long NativeJSContextGetGlobalContext(long jsContextRef);
     public native String NativeJSContextCreateBacktrace(long jsContextRef, int maxStackSize);
+    public native void NativeJSContextGroupSetExecutionTimeLimit(long jsContextGroupRef, double limit, boolean hasCallback);
+    public native void NativeJSContextGroupClearExecutionTimeLimit(long jsContextGroupRef);
+    public native long NativeJSScriptCreateFromString(long jsContextGroupRef, String sourceURL, int startingLineNumber, String script);
+    public native long NativeJSScriptCreateReferencingImmortalASCIIText(long jsContextGroupRef, String sourceURL, int startingLineNumber, ByteBuffer script);
+    public native void NativeJSScriptRetain(long jsScriptRef);
+    public native void NativeJSScriptRelease(long jsScriptRef);
+    public native long NativeJSScriptEvaluate(long jsContextRef, long jsScriptRef, long thisValueRef, long[] exceptionOut);
     public native boolean NativeJSObjectSetPrivateProperty(long jsContextRef, long jsObjectRef, String propertyName, long jsValueRef);
     public native long NativeJSObjectGetPrivateProperty(long jsContextRef, long jsObjectRef, String propertyName);
     public native boolean NativeJSObjectDeletePrivateProperty(long jsContextRef, long jsObjectRef, String propertyName);
+    public native boolean NativeJSObjectSetPrivatePropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef, long jsValueRef);
+    public native long NativeJSObjectGetPrivatePropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef);
+    public native boolean NativeJSObjectDeletePrivatePropertyWithName(long jsContextRef, long jsObjectRef, JSPropertyName propertyName, long jsStringRef);
 }
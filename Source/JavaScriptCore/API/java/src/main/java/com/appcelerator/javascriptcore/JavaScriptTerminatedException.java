@@ -0,0 +1,13 @@
+package com.appcelerator.javascriptcore;
+
+/*
+ * Thrown when the script has been terminated by the execution time limit.
+ * The context is not damaged by termination and can evaluate scripts again.
+ */
+public class JavaScriptTerminatedException extends JavaScriptException {
+    private static final long serialVersionUID = 1L;
+
+    public JavaScriptTerminatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.appcelerator.javascriptcore.callbacks;
+
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+
+/**
+ * The callback invoked when script execution has exceeded the allowed time
+ * limit previously specified via JSContextGroupSetExecutionTimeLimit.
+ * The callback is invoked on the thread that is running the script.
+ * 
+ * If you return true, the timed out script will terminate. If you return
+ * false, the script will run for another period of the allowed time limit.
+ * Within this callback, you may call JSContextGroupSetExecutionTimeLimit to
+ * set a new time limit, or JSContextGroupClearExecutionTimeLimit to cancel
+ * the timeout.
+ * 
+ * @param ctx
+ *            The execution context to use.
+ */
+public interface JSShouldTerminateCallback {
+    boolean shouldTerminate(JSContextRef ctx);
+}
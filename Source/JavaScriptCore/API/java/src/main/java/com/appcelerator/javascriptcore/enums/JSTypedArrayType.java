@@ -0,0 +1,60 @@
+package com.appcelerator.javascriptcore.enums;
+
+import com.appcelerator.javascriptcore.JavaScriptException;
+/**
+ * A constant identifying the element type of a typed array view.
+ * 
+ * Values are the same as JSC::TypedArrayType in runtime/TypedArrayDescriptor.h
+ */
+public enum JSTypedArrayType {
+    /**
+     * Not a typed array view.
+     */
+    None(0, 0),
+
+    Int8(1, 1),
+    Int16(2, 2),
+    Int32(3, 4),
+    Uint8(4, 1),
+
+    /**
+     * Unsigned 8 bit integer, values are clamped to 0..255 when set.
+     */
+    Uint8Clamped(5, 1),
+    Uint16(6, 2),
+    Uint32(7, 4),
+    Float32(8, 4),
+    Float64(9, 8);
+
+    private final int value;
+    private final int bytesPerElement;
+
+    private JSTypedArrayType(int value, int bytesPerElement) {
+        this.value = value;
+        this.bytesPerElement = bytesPerElement;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getBytesPerElement() {
+        return bytesPerElement;
+    }
+
+    public static JSTypedArrayType request(int value) {
+        switch(value) {
+            case 0: return None;
+            case 1: return Int8;
+            case 2: return Int16;
+            case 3: return Int32;
+            case 4: return Uint8;
+            case 5: return Uint8Clamped;
+            case 6: return Uint16;
+            case 7: return Uint32;
+            case 8: return Float32;
+            case 9: return Float64;
+            default: throw new JavaScriptException(java.lang.String.format("Unsupported JSTypedArrayType: %d", value));
+        }
+    }
+}
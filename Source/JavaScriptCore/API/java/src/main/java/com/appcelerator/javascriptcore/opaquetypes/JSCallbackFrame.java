@@ -0,0 +1,143 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Handles passed to the Java callbacks of a JSClassDefinition during one upcall.
+ *
+ * A reusable frame belongs to the current thread and owns mutable handles that are
+ * reset on every upcall, so no handle is allocated for the callback arguments.
+ * Frames are stacked by depth because a callback may re-enter JavaScript and fire
+ * another callback on the same thread. The handles are cleared to NULL when the
+ * upcall returns, so callbacks using reusable frames must not retain any argument.
+ *
+ * The ALLOCATING frame creates new handles for every upcall, which is the default.
+ */
+class JSCallbackFrame {
+
+    static final JSCallbackFrame ALLOCATING = new JSCallbackFrame(null);
+
+    private static class Stack {
+        private JSCallbackFrame[] frames = new JSCallbackFrame[4];
+        private int depth = 0;
+    }
+
+    private static final ThreadLocal<Stack> stacks = new ThreadLocal<Stack>() {
+        @Override
+        protected Stack initialValue() {
+            return new Stack();
+        }
+    };
+
+    private final Stack stack;
+    private final JSContextRef context;
+    private final JSObjectRef object;
+    private final JSObjectRef thisObject;
+    private final JSValueRef value;
+    private final JSValueArrayRef arguments;
+    private final Pointer exception;
+    private final JSPropertyNameAccumulatorRef accumulator;
+
+    private JSCallbackFrame(Stack stack) {
+        this.stack = stack;
+        if (stack == null) {
+            this.context = null;
+            this.object = null;
+            this.thisObject = null;
+            this.value = null;
+            this.arguments = null;
+            this.exception = null;
+            this.accumulator = null;
+        } else {
+            this.context = new JSContextRef(0);
+            this.object = new JSObjectRef(context, 0);
+            this.thisObject = new JSObjectRef(context, 0);
+            this.value = new JSValueRef(context, 0);
+            this.arguments = new JSValueArrayRef(0, null);
+            this.exception = new Pointer(0);
+            this.accumulator = new JSPropertyNameAccumulatorRef(0);
+        }
+    }
+
+    /*
+     * Returns the frame for an upcall. leave() must be called when the upcall returns.
+     */
+    static JSCallbackFrame enter(boolean reuse) {
+        if (!reuse) return ALLOCATING;
+
+        Stack stack = stacks.get();
+        if (stack.depth == stack.frames.length) {
+            JSCallbackFrame[] frames = new JSCallbackFrame[stack.frames.length * 2];
+            System.arraycopy(stack.frames, 0, frames, 0, stack.frames.length);
+            stack.frames = frames;
+        }
+        JSCallbackFrame frame = stack.frames[stack.depth];
+        if (frame == null) {
+            frame = new JSCallbackFrame(stack);
+            stack.frames[stack.depth] = frame;
+        }
+        stack.depth++;
+        return frame;
+    }
+
+    void leave() {
+        if (stack == null) return;
+
+        context.peer = 0;
+        object.peer = 0;
+        thisObject.peer = 0;
+        value.peer = 0;
+        arguments.reset(0, null);
+        exception.peer = 0;
+        accumulator.peer = 0;
+        stack.depth--;
+    }
+
+    /*
+     * Returns the context handle. Must be called before the other handles of the same upcall.
+     */
+    JSContextRef context(long ctx) {
+        if (stack == null) return new JSContextRef(ctx);
+        context.peer = ctx;
+        return context;
+    }
+
+    JSObjectRef object(JSContextRef context, long pointer) {
+        if (stack == null) return new JSObjectRef(context, pointer);
+        object.context = context;
+        object.peer = pointer;
+        return object;
+    }
+
+    JSObjectRef thisObject(JSContextRef context, long pointer) {
+        if (stack == null) return new JSObjectRef(context, pointer);
+        thisObject.context = context;
+        thisObject.peer = pointer;
+        return thisObject;
+    }
+
+    JSValueRef value(JSContextRef context, long pointer) {
+        if (stack == null) return new JSValueRef(context, pointer);
+        value.context = context;
+        value.peer = pointer;
+        return value;
+    }
+
+    JSValueArrayRef arguments(int argc, ByteBuffer argv) {
+        if (stack == null) return new JSValueArrayRef(argc, argv);
+        arguments.reset(argc, argv);
+        return arguments;
+    }
+
+    Pointer exception(long pointer) {
+        if (stack == null) return new Pointer(pointer);
+        exception.peer = pointer;
+        return exception;
+    }
+
+    JSPropertyNameAccumulatorRef accumulator(long pointer) {
+        if (stack == null) return new JSPropertyNameAccumulatorRef(pointer);
+        accumulator.peer = pointer;
+        return accumulator;
+    }
+}
@@ -0,0 +1,42 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import com.appcelerator.javascriptcore.util.ConcurrentLongObjectMap;
+
+/*
+ * Java callbacks of JS objects, partitioned by the context group that owns the objects.
+ *
+ * Lookups do not lock, so upcalls from VMs running on different threads do not contend.
+ * Releasing a context group drops its partition at once without touching other groups.
+ */
+class JSCallbackRegistry<E> {
+
+    private final ConcurrentLongObjectMap<ConcurrentLongObjectMap<E>> partitions = new ConcurrentLongObjectMap<ConcurrentLongObjectMap<E>>();
+
+    void put(long group, long object, E callback) {
+        ConcurrentLongObjectMap<E> partition = partitions.get(group);
+        if (partition == null) {
+            synchronized (partitions) {
+                partition = partitions.get(group);
+                if (partition == null) {
+                    partition = new ConcurrentLongObjectMap<E>();
+                    partitions.put(group, partition);
+                }
+            }
+        }
+        partition.put(object, callback);
+    }
+
+    E get(long group, long object) {
+        ConcurrentLongObjectMap<E> partition = partitions.get(group);
+        return partition == null ? null : partition.get(object);
+    }
+
+    void releaseGroup(long group) {
+        partitions.remove(group);
+    }
+
+    int size(long group) {
+        ConcurrentLongObjectMap<E> partition = partitions.get(group);
+        return partition == null ? 0 : partition.size();
+    }
+}
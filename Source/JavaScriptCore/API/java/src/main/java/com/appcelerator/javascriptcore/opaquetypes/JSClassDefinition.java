@@ -2,9 +2,6 @@ package com.appcelerator.javascriptcore.opaquetypes;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.HashMap;
-
-import com.appcelerator.javascriptcore.util.LongSparseArray;
 
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
 import com.appcelerator.javascriptcore.JavaScriptException;
@@ -22,6 +19,8 @@ import com.appcelerator.javascriptcore.callbacks.JSObjectHasPropertyCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectInitializeCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectSetPropertyCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectGetPropertyCallback;
+import com.appcelerator.javascriptcore.callbacks.JSShouldTerminateCallback;
+import com.appcelerator.javascriptcore.util.ConcurrentLongObjectMap;
 
 /**
  * This structure contains properties and callbacks that define a type of
@@ -131,17 +130,12 @@ public class JSClassDefinition {
     private static final short INT      = JavaScriptCoreLibrary.SizeOfInt;
     private static final short UNSIGNED = JavaScriptCoreLibrary.SizeOfUnsigned;
 
+    static {
+        NativeInitializeCallbackMethods();
+    }
+
     private static long initializeFunction;
     private static long finalizeFunction;
-    private static long hasPropertyFunction;
-    private static long getPropertyFunction;
-    private static long setPropertyFunction;
-    private static long deletePropertyFunction;
-    private static long getPropertyNamesFunction;
-    private static long callAsFunctionFunction;
-    private static long callAsConstructorFunction;
-    private static long hasInstanceFunction;
-    private static long convertToTypeFunction;
 
     private static int versionIndex = 0;
     private static int attributesIndex;
@@ -164,10 +158,29 @@ public class JSClassDefinition {
     private static final ByteOrder nativeOrder = ByteOrder.nativeOrder();
     private static ByteBuffer bufferTemplate = null;
 
+    /*
+     * Rows of the native dispatch table, one callback for each depth of class hierarchy
+     */
+    private static final int HAS_PROPERTY_HOOK        = 0;
+    private static final int GET_PROPERTY_HOOK        = 1;
+    private static final int SET_PROPERTY_HOOK        = 2;
+    private static final int DELETE_PROPERTY_HOOK     = 3;
+    private static final int GET_PROPERTY_NAMES_HOOK  = 4;
+    private static final int CALL_AS_FUNCTION_HOOK    = 5;
+    private static final int CALL_AS_CONSTRUCTOR_HOOK = 6;
+    private static final int HAS_INSTANCE_HOOK        = 7;
+    private static final int CONVERT_TO_TYPE_HOOK     = 8;
+    private static final int NUMBER_OF_HOOKS          = 9;
+
+    private static ByteBuffer dispatchTable = null;
+    private static int dispatchTableDepth;
+
     private ByteBuffer buffer;
+    private JSClassDefinition[] hierarchy;
     private boolean hasParent = false;
     private boolean forceCallAsConstructor = false;
     private boolean forceFinaizeCall       = true;
+    private boolean reuseCallbackFrames    = false;
 
     public JSClassDefinition() {
         constructBufferTemplate();
@@ -177,6 +190,7 @@ public class JSClassDefinition {
         if (staticValues == null) {
             return null;
         } else {
+            staticValues.bind(this);
             return staticValues.commit();
         }
     }
@@ -185,6 +199,7 @@ public class JSClassDefinition {
         if (staticFunctions == null) {
             return null;
         } else {
+            staticFunctions.bind(this);
             return staticFunctions.commit();
         }
     }
@@ -204,17 +219,21 @@ public class JSClassDefinition {
             buffer.putInt(versionIndex, version);
             buffer.putInt(attributesIndex, attributes.getValue());
 
+            hasParent = (parentClass != null && parentClass.getDefinition() != null);
+            buildHierarchy();
+            int level = hierarchy.length - 1;
+
             if (parentClass != null) JavaScriptCoreLibrary.putLong(buffer, parentClassIndex, parentClass.p());
             if (initialize  != null) JavaScriptCoreLibrary.putLong(buffer, initializeIndex, initializeFunction);
-            if (hasProperty != null) JavaScriptCoreLibrary.putLong(buffer, hasPropertyIndex, hasPropertyFunction);
-            if (getProperty != null) JavaScriptCoreLibrary.putLong(buffer, getPropertyIndex, getPropertyFunction);
-            if (setProperty != null) JavaScriptCoreLibrary.putLong(buffer, setPropertyIndex, setPropertyFunction);
-            if (deleteProperty    != null) JavaScriptCoreLibrary.putLong(buffer, deletePropertyIndex, deletePropertyFunction);
-            if (getPropertyNames  != null) JavaScriptCoreLibrary.putLong(buffer, getPropertyNamesIndex, getPropertyNamesFunction);
-            if (callAsFunction    != null) JavaScriptCoreLibrary.putLong(buffer, callAsFunctionIndex, callAsFunctionFunction);
-            if (forceCallAsConstructor || callAsConstructor != null) JavaScriptCoreLibrary.putLong(buffer, callAsConstructorIndex, callAsConstructorFunction);
-            if (hasInstance   != null) JavaScriptCoreLibrary.putLong(buffer, hasInstanceIndex, hasInstanceFunction);
-            if (convertToType != null) JavaScriptCoreLibrary.putLong(buffer, convertToTypeIndex, convertToTypeFunction);
+            if (hasProperty != null) JavaScriptCoreLibrary.putLong(buffer, hasPropertyIndex, levelFunction(HAS_PROPERTY_HOOK, level));
+            if (getProperty != null) JavaScriptCoreLibrary.putLong(buffer, getPropertyIndex, levelFunction(GET_PROPERTY_HOOK, level));
+            if (setProperty != null) JavaScriptCoreLibrary.putLong(buffer, setPropertyIndex, levelFunction(SET_PROPERTY_HOOK, level));
+            if (deleteProperty    != null) JavaScriptCoreLibrary.putLong(buffer, deletePropertyIndex, levelFunction(DELETE_PROPERTY_HOOK, level));
+            if (getPropertyNames  != null) JavaScriptCoreLibrary.putLong(buffer, getPropertyNamesIndex, levelFunction(GET_PROPERTY_NAMES_HOOK, level));
+            if (callAsFunction    != null) JavaScriptCoreLibrary.putLong(buffer, callAsFunctionIndex, levelFunction(CALL_AS_FUNCTION_HOOK, level));
+            if (forceCallAsConstructor || callAsConstructor != null) JavaScriptCoreLibrary.putLong(buffer, callAsConstructorIndex, levelFunction(CALL_AS_CONSTRUCTOR_HOOK, level));
+            if (hasInstance   != null) JavaScriptCoreLibrary.putLong(buffer, hasInstanceIndex, levelFunction(HAS_INSTANCE_HOOK, level));
+            if (convertToType != null) JavaScriptCoreLibrary.putLong(buffer, convertToTypeIndex, levelFunction(CONVERT_TO_TYPE_HOOK, level));
 
             // finalize callback should be fired on every objects (other than global object)
             // to release all associated Java object. Note that firing finalize callback 
@@ -222,14 +241,38 @@ public class JSClassDefinition {
             if (forceFinaizeCall) {
                 JavaScriptCoreLibrary.putLong(buffer, finalizeIndex, finalizeFunction);
             }
-
-            hasParent = (parentClass != null && parentClass.getDefinition() != null);
         }
 
         return buffer;
 
     }
 
+    /*
+     * Flattens the parentClass chain into the hierarchy, root class first. Upcalls carry
+     * the depth of the class that owns the callback so that they are dispatched to the
+     * definition at that depth without any lookup.
+     */
+    private void buildHierarchy() {
+        JSClassDefinition[] parents = new JSClassDefinition[0];
+        if (hasParent) {
+            JSClassDefinition parent = parentClass.getDefinition();
+            parent.commit();
+            parents = parent.hierarchy;
+        }
+        int maxDepth = Math.min(JavaScriptCoreLibrary.numberOfPrototypeHierarchy, dispatchTableDepth);
+        if (parents.length >= maxDepth) {
+            buffer = null;
+            throw new JavaScriptException(String.format("Class hierarchy of %s is deeper than %d", className, maxDepth));
+        }
+        hierarchy = new JSClassDefinition[parents.length + 1];
+        System.arraycopy(parents, 0, hierarchy, 0, parents.length);
+        hierarchy[parents.length] = this;
+    }
+
+    private static long levelFunction(int hook, int level) {
+        return JavaScriptCoreLibrary.getLong(dispatchTable, (hook * dispatchTableDepth + level) * LONG);
+    }
+
     public void registerStaticFunctionCallback(long ctx, long object) {
         if (staticFunctions != null) {
             staticFunctions.registerFunctions(object, NativeGetStaticFunctions(ctx, object, staticFunctions.size(), staticFunctions.commit()));
@@ -241,82 +284,67 @@ public class JSClassDefinition {
         }
     }
 
+    /*
+     * Returns the definition at the depth of the class hierarchy, the root class is 0
+     */
+    private JSClassDefinition definitionAt(int level) {
+        JSClassDefinition[] definitions = hierarchy;
+        if (definitions == null || level < 0 || level >= definitions.length) return null;
+        return definitions[level];
+    }
+
+    /*
+     * Native fires initialize and finalize only once for the object,
+     * initializers run from the root class and finalizers from this class.
+     */
     public void JSObjectInitializeCallback(long ctx, long object) {
-        if (hasParent) {
-            parentClass.getDefinition().JSObjectInitializeCallback(ctx, object);
-        }
-        if (initialize != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            initialize.initialize(context, new JSObjectRef(context, object));
+        if (hierarchy == null) return;
+        for (int i = 0; i < hierarchy.length; i++) {
+            JSClassDefinition definition = hierarchy[i];
+            if (definition.initialize == null) continue;
+            JSCallbackFrame frame = JSCallbackFrame.enter(definition.reuseCallbackFrames);
+            try {
+                JSContextRef context = frame.context(ctx);
+                definition.initialize.initialize(context, frame.object(context, object));
+            } finally {
+                frame.leave();
+            }
         }
     }
 
     public void JSObjectFinalizeCallback(long object) {
-        if (finalize != null) {
-            finalize.finalize(new JSObjectRef(object));
-            if (hasParent) {
-                parentClass.getDefinition().JSObjectFinalizeCallback(object);
+        if (hierarchy != null) {
+            for (int i = hierarchy.length - 1; i >= 0; i--) {
+                JSClassDefinition definition = hierarchy[i];
+                if (definition.finalize != null) {
+                    JSCallbackFrame frame = JSCallbackFrame.enter(definition.reuseCallbackFrames);
+                    try {
+                        definition.finalize.finalize(frame.object(null, object));
+                    } finally {
+                        frame.leave();
+                    }
+                }
+                definition.clearStaticFunctions(object);
             }
         }
-        clearPrototypeChain(object);
-        clearStaticFunctions(object);
     }
 
-    private static LongSparseArray<JSClassDefinition> setPropertyChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public boolean JSObjectSetPropertyCallback(long ctx, long object, String propertyName, long value, long exception) {
-        if (setPropertyChain.get(object) != null && !this.equals(setPropertyChain.get(object))) {
-            return setPropertyChain.get(object).JSObjectSetPropertyCallback(ctx, object, propertyName, value, exception);
-        }
-        JSContextRef context = new JSContextRef(ctx);
-        if (setProperty != null && setProperty.setProperty(context, new JSObjectRef(context, object), propertyName,
-                                        new JSValueRef(context, value), new Pointer(exception))) {
-            setPropertyChain.remove(object);
-            return true;
-        }
-        if (hasParent) {
-            setPropertyChain.put(object, parentClass.getDefinition());
-            if (setProperty == null) {
-                return JSObjectSetPropertyCallback(ctx, object, propertyName, value, exception);
-            }
-        } else {
-            setPropertyChain.remove(object);
-        }
-        return false;
+    public boolean JSObjectSetPropertyCallback(long ctx, long object, String propertyName, long value, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        if (definition == null || definition.setProperty == null) return false;
+        return definition.invokeSetProperty(definition.setProperty, ctx, object, propertyName, value, exception);
     }
 
-    private static LongSparseArray<JSClassDefinition> getPropertyChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public long JSObjectGetPropertyCallback(long ctx, long object, String propertyName, long exception) {
-        if (getPropertyChain.get(object) != null && !this.equals(getPropertyChain.get(object))) {
-            return getPropertyChain.get(object).JSObjectGetPropertyCallback(ctx, object, propertyName, exception);
-        }
-        if (getProperty != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            JSValueRef prop = getProperty.getProperty(context, new JSObjectRef(context, object), propertyName, new Pointer(exception));
-            if (p(prop) != 0) {
-                getPropertyChain.remove(object);
-                return p(prop);
-            }
-        }
-        if (hasParent) {
-            getPropertyChain.put(object, parentClass.getDefinition());
-            if (getProperty == null) {
-                return JSObjectGetPropertyCallback(ctx, object, propertyName, exception);
-            }
-        } else {
-            getPropertyChain.remove(object);
-        }
-        return 0;
+    public long JSObjectGetPropertyCallback(long ctx, long object, String propertyName, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        if (definition == null || definition.getProperty == null) return 0;
+        return definition.invokeGetProperty(definition.getProperty, ctx, object, propertyName, exception);
     }
 
-    public long JSObjectCallAsFunctionCallback(long ctx, long func, long thisObject, int argc, ByteBuffer argv, long exception) {
-        if (callAsFunction != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            JSValueArrayRef jargv = new JSValueArrayRef(argc, argv);
-            return p(callAsFunction.callAsFunction(context, new JSObjectRef(context, func), new JSObjectRef(context, thisObject),
-                                        argc, jargv, new Pointer(exception)));
-        }
-        if (hasParent) {
-            return parentClass.getDefinition().JSObjectCallAsFunctionCallback(ctx, func, thisObject, argc, argv, exception);
+    public long JSObjectCallAsFunctionCallback(long ctx, long func, long thisObject, int argc, ByteBuffer argv, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        if (definition != null && definition.callAsFunction != null) {
+            return definition.invokeCallAsFunction(definition.callAsFunction, ctx, func, thisObject, argc, argv, exception);
         }
         throw new JavaScriptException(String.format("CallAsFunction callback is not found for %d", thisObject));
     }
@@ -326,11 +354,8 @@ public class JSClassDefinition {
             if (staticFunctions.requestFunctions(thisObject)) {
                 registerStaticFunctionCallback(ctx, thisObject);
             }
-            JSContextRef context = new JSContextRef(ctx);
-            JSValueArrayRef jargv = new JSValueArrayRef(argc, argv);
             JSObjectCallAsFunctionCallback callback = staticFunctions.getFunction(thisObject, func);
-            if (callback != null) return p(callback.callAsFunction(context, new JSObjectRef(context, func),
-                                     new JSObjectRef(context, thisObject), argc, jargv, new Pointer(exception)));
+            if (callback != null) return invokeCallAsFunction(callback, ctx, func, thisObject, argc, argv, exception);
         }
         if (hasParent) {
             return parentClass.getDefinition().JSObjectStaticFunctionCallback(ctx, func, thisObject, argc, argv, exception);
@@ -338,43 +363,48 @@ public class JSClassDefinition {
         throw new JavaScriptException(String.format("Static function callback is not found for %d", thisObject));
     }
 
-    private static LongSparseArray<JSClassDefinition> callAsConstructorChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public long JSObjectCallAsConstructorCallback(long ctx, long constructor, int argc, ByteBuffer argv, long exception) {
-        if (callAsConstructorChain.get(constructor) != null && !this.equals(callAsConstructorChain.get(constructor))) {
-            return callAsConstructorChain.get(constructor).JSObjectCallAsConstructorCallback(ctx, constructor, argc, argv, exception);
-        }
-        if (callAsConstructor != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            JSValueArrayRef jargv = new JSValueArrayRef(argc, argv);
-            JSValueRef object = callAsConstructor.callAsConstructor(context, 
-                                            new JSObjectRef(context, constructor),
-                                             argc, jargv, new Pointer(exception));
-            callAsConstructorChain.remove(constructor);
-            return p(object);
-        }
-        if (hasParent) {
-            callAsConstructorChain.put(constructor, parentClass.getDefinition());
-            if (callAsConstructor == null) {
-                return JSObjectCallAsConstructorCallback(ctx, constructor, argc, argv, exception);
+    /*
+     * Upcall of the static function that has a slot, see JSStaticFunctions.commit()
+     */
+    public static long JSObjectStaticFunctionSlotCallback(long ctx, long func, long thisObject, int argc, ByteBuffer argv, long exception, int slot) {
+        JSStaticFunctions.JSStaticFunction function = JSStaticFunctions.getFunctionAt(slot);
+        if (function != null && function.callback != null && function.owner != null) {
+            return function.owner.invokeCallAsFunction(function.callback, ctx, func, thisObject, argc, argv, exception);
+        }
+        throw new JavaScriptException(String.format("Static function callback is not found for slot %d", slot));
+    }
+
+    public long JSObjectCallAsConstructorCallback(long ctx, long constructor, int argc, ByteBuffer argv, long exception, int level) {
+        // enableConstructor(true) fires the callback on the class without callAsConstructor,
+        // fall back to the nearest parent that has one
+        for (int i = Math.min(level, hierarchy == null ? -1 : hierarchy.length - 1); i >= 0; i--) {
+            JSClassDefinition definition = hierarchy[i];
+            if (definition.callAsConstructor == null) continue;
+            JSCallbackFrame frame = JSCallbackFrame.enter(definition.reuseCallbackFrames);
+            try {
+                JSContextRef context = frame.context(ctx);
+                return p(definition.callAsConstructor.callAsConstructor(context, frame.object(context, constructor),
+                                             argc, frame.arguments(argc, argv), frame.exception(exception)));
+            } finally {
+                frame.leave();
             }
-        } else {
-            callAsConstructorChain.remove(constructor);
         }
         throw new JavaScriptException(String.format("CallAsConstructor callback is not found for %d", constructor));
     }
 
     /*
-     * Static CallAsFunction callbacks for JSObjectMakeFunctionWithCallback
+     * Static CallAsFunction callbacks for JSObjectMakeFunctionWithCallback, partitioned by context group
      */
-    private static HashMap<Long, JSObjectCallAsFunctionCallback> functionCallbacks = new HashMap<Long, JSObjectCallAsFunctionCallback>(JavaScriptCoreLibrary.numberOfJSObjectBuckets);
-    public static void registerMakeFunctionCallback(long function, JSObjectCallAsFunctionCallback callback) {
-        functionCallbacks.put(function, callback);
+    private static final JSCallbackRegistry<JSObjectCallAsFunctionCallback> functionCallbacks = new JSCallbackRegistry<JSObjectCallAsFunctionCallback>();
+    public static void registerMakeFunctionCallback(long group, long function, JSObjectCallAsFunctionCallback callback) {
+        functionCallbacks.put(group, function, callback);
     }
-    public static long JSObjectMakeFunctionCallback(long ctx, long function, long thisObject, int argc, ByteBuffer argv, long exception) {
-        if (functionCallbacks.get(function) != null) {
+    public static long JSObjectMakeFunctionCallback(long ctx, long group, long function, long thisObject, int argc, ByteBuffer argv, long exception) {
+        JSObjectCallAsFunctionCallback callback = functionCallbacks.get(group, function);
+        if (callback != null) {
             JSContextRef context = new JSContextRef(ctx);
             JSValueArrayRef jargv = new JSValueArrayRef(argc, argv);
-            return p(functionCallbacks.get(function).callAsFunction(
+            return p(callback.callAsFunction(
                                             context, new JSObjectRef(context, function),
                                             new JSObjectRef(context, thisObject),
                                             argc, jargv, new Pointer(exception)));
@@ -383,132 +413,95 @@ public class JSClassDefinition {
     }
 
     /* 
-     * Static CallAsConstructor callbacks for JSObjectMakeConstructor
+     * Static CallAsConstructor callbacks for JSObjectMakeConstructor, partitioned by context group
      */
-    private static HashMap<Long, JSObjectCallAsConstructorCallback> constructorCallbacks = new HashMap<Long, JSObjectCallAsConstructorCallback>(JavaScriptCoreLibrary.numberOfJSObjectBuckets);
-    public static void registerMakeConstructorCallback(long constructor, JSObjectCallAsConstructorCallback callback) {
-        constructorCallbacks.put(constructor, callback);
+    private static final JSCallbackRegistry<JSObjectCallAsConstructorCallback> constructorCallbacks = new JSCallbackRegistry<JSObjectCallAsConstructorCallback>();
+    public static void registerMakeConstructorCallback(long group, long constructor, JSObjectCallAsConstructorCallback callback) {
+        constructorCallbacks.put(group, constructor, callback);
     }
-    public static long JSObjectMakeConstructorCallback(long ctx, long constructor, int argc, ByteBuffer argv, long exception) {
-        if (constructorCallbacks.get(constructor) != null) {
+    public static long JSObjectMakeConstructorCallback(long ctx, long group, long constructor, int argc, ByteBuffer argv, long exception) {
+        JSObjectCallAsConstructorCallback callback = constructorCallbacks.get(group, constructor);
+        if (callback != null) {
             JSContextRef context = new JSContextRef(ctx);
             JSValueArrayRef jargv = new JSValueArrayRef(argc, argv);
-            return p(constructorCallbacks.get(constructor).callAsConstructor(
+            return p(callback.callAsConstructor(
                                             context, new JSObjectRef(context, constructor),
                                             argc, jargv, new Pointer(exception)));
         }
         throw new JavaScriptException(String.format("JSObjectMakeConstructor callback is not found for %d", constructor));
     }
 
-    private static LongSparseArray<JSClassDefinition> convertToTypeChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public long JSObjectConvertToTypeCallback(long ctx, long object, int type, long exception) {
-        if (convertToTypeChain.get(object) != null && !this.equals(convertToTypeChain.get(object))) {
-            return convertToTypeChain.get(object).JSObjectConvertToTypeCallback(ctx, object, type, exception);
-        }
-        if (convertToType != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            JSValueRef prop = convertToType.convertToType(context, new JSObjectRef(context, object), JSType.request(type), new Pointer(exception));
-            if (p(prop) != 0) {
-                convertToTypeChain.remove(object);
-                return p(prop);
-            }
-        }
-        if (hasParent) {
-            convertToTypeChain.put(object, parentClass.getDefinition());
-            if (convertToType == null) {
-                return JSObjectConvertToTypeCallback(ctx, object, type, exception);
-            }
+    /*
+     * Callbacks of JSContextGroupSetExecutionTimeLimit, one for each context group
+     */
+    private static final ConcurrentLongObjectMap<JSShouldTerminateCallback> terminateCallbacks = new ConcurrentLongObjectMap<JSShouldTerminateCallback>();
+    public static void registerShouldTerminateCallback(long group, JSShouldTerminateCallback callback) {
+        if (callback == null) {
+            terminateCallbacks.remove(group);
         } else {
-            convertToTypeChain.remove(object);
+            terminateCallbacks.put(group, callback);
         }
-        return 0;
     }
-    
-    private static LongSparseArray<JSClassDefinition> deletePropertyChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public boolean JSObjectDeletePropertyCallback(long ctx, long object, String name, long exception) {
-        if (deletePropertyChain.get(object) != null && !this.equals(deletePropertyChain.get(object))) {
-            return deletePropertyChain.get(object).JSObjectDeletePropertyCallback(ctx, object, name, exception);
-        }
-        JSContextRef context = new JSContextRef(ctx);
-        if (deleteProperty != null && deleteProperty.deleteProperty(context, new JSObjectRef(context, object), name, new Pointer(exception))) {
-            deletePropertyChain.remove(object);
-            return true;
-        }
-        if (hasParent) {
-            deletePropertyChain.put(object, parentClass.getDefinition());
-            if (deleteProperty == null) {
-                return JSObjectDeletePropertyCallback(ctx, object, name, exception);
-            }
-        } else {
-            deletePropertyChain.remove(object);
-        }
-        return false;
+    /*
+     * Fired by the watchdog of the group, terminates the script if the callback has gone
+     */
+    public static boolean JSShouldTerminateCallback(long ctx, long group) {
+        JSShouldTerminateCallback callback = terminateCallbacks.get(group);
+        if (callback == null) return true;
+        return callback.shouldTerminate(new JSContextRef(ctx));
     }
 
-    private static LongSparseArray<JSClassDefinition> getPropertyNamesChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public void JSObjectGetPropertyNamesCallback(long ctx, long object, long propertyNames) {
-        if (getPropertyNamesChain.get(object) != null && !this.equals(getPropertyNamesChain.get(object))) {
-            getPropertyNamesChain.get(object).JSObjectGetPropertyNamesCallback(ctx, object, propertyNames);
-            return;
-        }
-        if (getPropertyNames != null) {
-            JSContextRef context = new JSContextRef(ctx);
-            getPropertyNames.getPropertyNames(context, new JSObjectRef(context, object),
-                                              new JSPropertyNameAccumulatorRef(propertyNames));
-        }
-        if (hasParent) {
-            getPropertyNamesChain.put(object, parentClass.getDefinition());
-            if (getPropertyNames == null) {
-                JSObjectGetPropertyNamesCallback(ctx, object, propertyNames);
-                return;
-            }
-        } else {
-            getPropertyNamesChain.remove(object);
-        }
-        return;
+    /*
+     * Drops callbacks of JSObjectMakeFunctionWithCallback and JSObjectMakeConstructor made in the group
+     */
+    public static void releaseContextGroup(long group) {
+        functionCallbacks.releaseGroup(group);
+        constructorCallbacks.releaseGroup(group);
+        terminateCallbacks.remove(group);
     }
 
-    private static LongSparseArray<JSClassDefinition> hasInstanceChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public boolean JSObjectHasInstanceCallback(long ctx, long constructor, long possibleInstance, long exception) {
-        if (hasInstanceChain.get(constructor) != null && !this.equals(hasInstanceChain.get(constructor))) {
-            return hasInstanceChain.get(constructor).JSObjectHasInstanceCallback(ctx, constructor, possibleInstance, exception);
-        }
-        JSContextRef context = new JSContextRef(ctx);
-        if (hasInstance != null && hasInstance.hasInstance(context, new JSObjectRef(context, constructor),
-                                            new JSValueRef(context, possibleInstance), new Pointer(exception))) {
-            hasInstanceChain.remove(constructor);
-            return true;
-        }
-        if (hasParent) {
-            hasInstanceChain.put(constructor, parentClass.getDefinition());
-            if (hasInstance == null) {
-                return JSObjectHasInstanceCallback(ctx, constructor, possibleInstance, exception);
-            }
-        } else {
-            hasInstanceChain.remove(constructor);
-        }
-        return false;
+    public static int getMakeCallbackCount(long group) {
+        return functionCallbacks.size(group) + constructorCallbacks.size(group);
     }
 
-    private static LongSparseArray<JSClassDefinition> hasPropertyChain = new LongSparseArray<JSClassDefinition>(JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
-    public boolean JSObjectHasPropertyCallback(long ctx, long object, String name) {
-        if (hasPropertyChain.get(object) != null && !this.equals(hasPropertyChain.get(object))) {
-            return hasPropertyChain.get(object).JSObjectHasPropertyCallback(ctx, object, name);
+    public long JSObjectConvertToTypeCallback(long ctx, long object, int type, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        if (definition == null || definition.convertToType == null) return 0;
+        JSCallbackFrame frame = JSCallbackFrame.enter(definition.reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return p(definition.convertToType.convertToType(context, frame.object(context, object), JSType.request(type), frame.exception(exception)));
+        } finally {
+            frame.leave();
         }
-        JSContextRef context = new JSContextRef(ctx);
-        if (hasProperty != null && hasProperty.hasProperty(context, new JSObjectRef(context, object), name)) {
-            hasPropertyChain.remove(object);
-            return true;
-        }
-        if (hasParent) {
-            hasPropertyChain.put(object, parentClass.getDefinition());
-            if (hasProperty == null) {
-                return JSObjectHasPropertyCallback(ctx, object, name);
-            }
-        } else {
-            hasPropertyChain.remove(object);
+    }
+    
+    public boolean JSObjectDeletePropertyCallback(long ctx, long object, String name, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        return definition != null && definition.deleteProperty != null && definition.invokeDeleteProperty(ctx, object, name, exception);
+    }
+
+    public void JSObjectGetPropertyNamesCallback(long ctx, long object, long propertyNames, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        if (definition == null || definition.getPropertyNames == null) return;
+        JSCallbackFrame frame = JSCallbackFrame.enter(definition.reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            definition.getPropertyNames.getPropertyNames(context, frame.object(context, object),
+                                                         frame.accumulator(propertyNames));
+        } finally {
+            frame.leave();
         }
-        return false;
+    }
+
+    public boolean JSObjectHasInstanceCallback(long ctx, long constructor, long possibleInstance, long exception, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        return definition != null && definition.hasInstance != null && definition.invokeHasInstance(ctx, constructor, possibleInstance, exception);
+    }
+
+    public boolean JSObjectHasPropertyCallback(long ctx, long object, String name, int level) {
+        JSClassDefinition definition = definitionAt(level);
+        return definition != null && definition.hasProperty != null && definition.invokeHasProperty(ctx, object, name);
     }
 
     public boolean JSObjectSetStaticValueCallback(long ctx, long object, String propertyName, long value, long exception) {
@@ -517,9 +510,7 @@ public class JSClassDefinition {
             if (callback == null) {
                 return false;
             }
-            JSContextRef context = new JSContextRef(ctx);
-            return callback.setProperty(context, new JSObjectRef(context, object), propertyName,
-                new JSValueRef(context, value), new Pointer(exception));
+            return invokeSetProperty(callback, ctx, object, propertyName, value, exception);
         }
         if (hasParent) {
             return parentClass.getDefinition().JSObjectSetStaticValueCallback(ctx, object, propertyName, value, exception);
@@ -533,9 +524,7 @@ public class JSClassDefinition {
             if (callback == null) {
                 return 0;
             }
-            JSContextRef context = new JSContextRef(ctx);
-            return p(callback.getProperty(context, new JSObjectRef(context, object),
-                        propertyName, new Pointer(exception)));
+            return invokeGetProperty(callback, ctx, object, propertyName, exception);
         }
         if (hasParent) {
             return parentClass.getDefinition().JSObjectGetStaticValueCallback(ctx, object, propertyName, exception);
@@ -543,6 +532,91 @@ public class JSClassDefinition {
         throw new JavaScriptException(String.format("Static value '%s' callback is not found for %d", propertyName, object));
     }
 
+    /*
+     * Upcalls of the static value that has a slot, see JSStaticValues.commit().
+     * The property name is the name of the value so that native does not convert it.
+     */
+    public static boolean JSObjectSetStaticValueSlotCallback(long ctx, long object, long value, long exception, int slot) {
+        JSStaticValues.JSStaticValue staticValue = JSStaticValues.getValueAt(slot);
+        if (staticValue == null || staticValue.setter == null || staticValue.owner == null) return false;
+        return staticValue.owner.invokeSetProperty(staticValue.setter, ctx, object, staticValue.name, value, exception);
+    }
+
+    public static long JSObjectGetStaticValueSlotCallback(long ctx, long object, long exception, int slot) {
+        JSStaticValues.JSStaticValue staticValue = JSStaticValues.getValueAt(slot);
+        if (staticValue != null && staticValue.getter != null && staticValue.owner != null) {
+            return staticValue.owner.invokeGetProperty(staticValue.getter, ctx, object, staticValue.name, exception);
+        }
+        throw new JavaScriptException(String.format("Static value callback is not found for slot %d", slot));
+    }
+
+    /*
+     * Invokes Java callbacks with the handles of a callback frame. Return values are
+     * read before the frame is left because reusable handles are cleared on leave.
+     */
+    private boolean invokeSetProperty(JSObjectSetPropertyCallback callback, long ctx, long object, String propertyName, long value, long exception) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return callback.setProperty(context, frame.object(context, object), propertyName,
+                                        frame.value(context, value), frame.exception(exception));
+        } finally {
+            frame.leave();
+        }
+    }
+
+    private long invokeGetProperty(JSObjectGetPropertyCallback callback, long ctx, long object, String propertyName, long exception) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return p(callback.getProperty(context, frame.object(context, object), propertyName, frame.exception(exception)));
+        } finally {
+            frame.leave();
+        }
+    }
+
+    private long invokeCallAsFunction(JSObjectCallAsFunctionCallback callback, long ctx, long func, long thisObject, int argc, ByteBuffer argv, long exception) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return p(callback.callAsFunction(context, frame.object(context, func), frame.thisObject(context, thisObject),
+                                             argc, frame.arguments(argc, argv), frame.exception(exception)));
+        } finally {
+            frame.leave();
+        }
+    }
+
+    private boolean invokeDeleteProperty(long ctx, long object, String name, long exception) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return deleteProperty.deleteProperty(context, frame.object(context, object), name, frame.exception(exception));
+        } finally {
+            frame.leave();
+        }
+    }
+
+    private boolean invokeHasInstance(long ctx, long constructor, long possibleInstance, long exception) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return hasInstance.hasInstance(context, frame.object(context, constructor),
+                                           frame.value(context, possibleInstance), frame.exception(exception));
+        } finally {
+            frame.leave();
+        }
+    }
+
+    private boolean invokeHasProperty(long ctx, long object, String name) {
+        JSCallbackFrame frame = JSCallbackFrame.enter(reuseCallbackFrames);
+        try {
+            JSContextRef context = frame.context(ctx);
+            return hasProperty.hasProperty(context, frame.object(context, object), name);
+        } finally {
+            frame.leave();
+        }
+    }
+
     public JSClassDefinition copy() {
         JSClassDefinition copy = new JSClassDefinition();
         copy.version = this.version;
@@ -562,6 +636,7 @@ public class JSClassDefinition {
         copy.callAsConstructor = this.callAsConstructor;
         copy.hasInstance = this.hasInstance;
         copy.convertToType = this.convertToType;
+        copy.reuseCallbackFrames = this.reuseCallbackFrames;
         return copy;
     }
 
@@ -573,6 +648,22 @@ public class JSClassDefinition {
         this.forceFinaizeCall = enabled;
     }
 
+    /*
+     * Passes reusable handles to the callbacks of this class instead of allocating
+     * new ones on every upcall. Enable this only when no callback retains its
+     * arguments (context, objects, values, arguments array, exception pointer or
+     * property name accumulator) after it returns, because the handles are cleared
+     * and reused by the next upcall on the same thread. Values that must outlive the
+     * callback should be copied, e.g. new JSValueRef(context, value.p()).
+     */
+    public void enableCallbackFrameReuse(boolean enabled) {
+        this.reuseCallbackFrames = enabled;
+    }
+
+    public boolean isCallbackFrameReuseEnabled() {
+        return reuseCallbackFrames;
+    }
+
     public void dispose() {
         if (buffer != null) {
             buffer.clear();
@@ -586,18 +677,8 @@ public class JSClassDefinition {
             staticValues.dispose();
             staticValues = null;
         }
-        
-        setPropertyChain.clear();
-        getPropertyChain.clear();
-        convertToTypeChain.clear();
-        deletePropertyChain.clear();
-        getPropertyNamesChain.clear();
-        hasPropertyChain.clear();
-        functionCallbacks.clear();
-        hasInstanceChain.clear();
-        constructorCallbacks.clear();
-        functionCallbacks.clear();
-        callAsConstructorChain.clear();
+
+        hierarchy = null;
 
         parentClass = null;
         initialize  = null;
@@ -615,6 +696,7 @@ public class JSClassDefinition {
         hasParent = false;
         forceCallAsConstructor = false;
         forceFinaizeCall       = true;
+        reuseCallbackFrames    = false;
     }
 
     private void constructBufferTemplate() {
@@ -639,15 +721,9 @@ public class JSClassDefinition {
 
             initializeFunction  = JavaScriptCoreLibrary.getLong(bufferTemplate, initializeIndex);
             finalizeFunction    = JavaScriptCoreLibrary.getLong(bufferTemplate, finalizeIndex);
-            hasPropertyFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, hasPropertyIndex);
-            getPropertyFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, getPropertyIndex);
-            setPropertyFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, setPropertyIndex);
-            deletePropertyFunction    = JavaScriptCoreLibrary.getLong(bufferTemplate, deletePropertyIndex);
-            getPropertyNamesFunction  = JavaScriptCoreLibrary.getLong(bufferTemplate, getPropertyNamesIndex);
-            callAsFunctionFunction    = JavaScriptCoreLibrary.getLong(bufferTemplate, callAsFunctionIndex);
-            callAsConstructorFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, callAsConstructorIndex);
-            hasInstanceFunction   = JavaScriptCoreLibrary.getLong(bufferTemplate, hasInstanceIndex);
-            convertToTypeFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, convertToTypeIndex);
+
+            dispatchTable = NativeGetClassDispatchTable().order(nativeOrder);
+            dispatchTableDepth = dispatchTable.capacity() / (NUMBER_OF_HOOKS * LONG);
         }
     }
 
@@ -656,22 +732,8 @@ public class JSClassDefinition {
         return p.pointer();
     }
 
-    /*
-     * Just in case make sure to remove all references associated with the object
-     */
-    private static void clearPrototypeChain(long object) {
-        setPropertyChain.remove(object);
-        getPropertyChain.remove(object);
-        convertToTypeChain.remove(object);
-        deletePropertyChain.remove(object);
-        getPropertyNamesChain.remove(object);
-        hasPropertyChain.remove(object);
-        hasInstanceChain.remove(object);
-        callAsConstructorChain.remove(object);
-        functionCallbacks.remove(object);
-        constructorCallbacks.remove(object);
-    }
-
+    private static native void NativeInitializeCallbackMethods();
     private static native ByteBuffer NativeGetClassDefinitionTemplate();
+    private static native ByteBuffer NativeGetClassDispatchTable();
     private native long[] NativeGetStaticFunctions(long context, long object, int size, ByteBuffer functions);
 }
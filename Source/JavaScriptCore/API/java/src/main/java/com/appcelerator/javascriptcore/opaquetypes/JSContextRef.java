@@ -1,11 +1,14 @@
 package com.appcelerator.javascriptcore.opaquetypes;
 
+import java.util.concurrent.CompletableFuture;
+
+import com.appcelerator.javascriptcore.JSExecutor;
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
 import com.appcelerator.javascriptcore.JavaScriptException;
 
 public class JSContextRef extends PointerType {
 
-    private JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    private static final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
 
     public JSContextRef(long pointer) {
         super(pointer);
@@ -19,6 +22,18 @@ public class JSContextRef extends PointerType {
         return jsc.JSEvaluateScript(this, script, thisObject, null, 1, exception);
     }
 
+    /*
+     * Evaluates the script on the worker of the executor that owns this context,
+     * see JSExecutor.evaluateScript
+     */
+    public CompletableFuture<Object> evaluateScript(JSExecutor executor, Object affinityKey, String script) {
+        return evaluateScript(executor, affinityKey, script, null);
+    }
+
+    public CompletableFuture<Object> evaluateScript(JSExecutor executor, Object affinityKey, String script, String sourceURL) {
+        return executor.evaluateScript(affinityKey, this, script, sourceURL);
+    }
+
     public boolean checkScriptSyntax(String script) {
         return checkScriptSyntax(script, null);
     }
@@ -0,0 +1,14 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+/*
+ * JS value that is protected from JavaScriptCore GC while this object is reachable from Java.
+ * Created by JSVirtualMachine.manage, the value is unprotected after this object becomes
+ * unreachable, on the next call of JSVirtualMachine.manage or drainManagedValues.
+ * Handles derived from this value (such as castToObject) do not keep it protected.
+ */
+public class JSManagedValue extends JSValueRef {
+
+    public JSManagedValue(JSContextRef context, long pointer) {
+        super(context, pointer);
+    }
+}
@@ -0,0 +1,131 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+
+/*
+ * Property name that holds retained JSStringRef so that it can be passed to
+ * property functions many times without string conversion.
+ * JSStringRef is released after this object is garbage collected, by the next thread that
+ * creates a property name or calls releaseCollected.
+ */
+public class JSPropertyName extends PointerType {
+
+    private static class NameReference extends PhantomReference<JSPropertyName> {
+        private final long string;
+
+        NameReference(JSPropertyName referent, ReferenceQueue<JSPropertyName> queue) {
+            super(referent, queue);
+            this.string = referent.pointer();
+        }
+    }
+
+    private static final ReferenceQueue<JSPropertyName> queue = new ReferenceQueue<JSPropertyName>();
+    // Phantom references have to be reachable until they are enqueued
+    private static final Set<NameReference> references = new HashSet<NameReference>();
+
+    /*
+     * Recently used property names, bounded by JavaScriptCoreLibrary.numberOfInternedPropertyNames.
+     * Evicted names are still valid while someone holds them.
+     */
+    private static final Map<String, JSPropertyName> internedNames =
+        new LinkedHashMap<String, JSPropertyName>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JSPropertyName> eldest) {
+                return size() > JavaScriptCoreLibrary.numberOfInternedPropertyNames;
+            }
+        };
+
+    private final String name;
+
+    private JSPropertyName(String name) {
+        super(NativeJSStringCreate(name));
+        this.name = name;
+        synchronized (references) {
+            references.add(new NameReference(this, queue));
+        }
+    }
+
+    /*
+     * Create property name that is not shared with anyone
+     */
+    public static JSPropertyName create(String name) {
+        if (name == null) throw new IllegalArgumentException("Property name should not be null");
+        releaseCollected();
+        return new JSPropertyName(name);
+    }
+
+    /*
+     * Returns shared property name for the name, creates one if it is not cached yet
+     */
+    public static JSPropertyName intern(String name) {
+        if (name == null) throw new IllegalArgumentException("Property name should not be null");
+        releaseCollected();
+        synchronized (internedNames) {
+            JSPropertyName propertyName = internedNames.get(name);
+            if (propertyName == null) {
+                propertyName = new JSPropertyName(name);
+                internedNames.put(name, propertyName);
+            }
+            return propertyName;
+        }
+    }
+
+    public static int getInternedCount() {
+        synchronized (internedNames) {
+            return internedNames.size();
+        }
+    }
+
+    public static void clearInterned() {
+        synchronized (internedNames) {
+            internedNames.clear();
+        }
+    }
+
+    /*
+     * Releases JSStringRef of the property names that have been garbage collected,
+     * returns the number of strings released
+     */
+    public static int releaseCollected() {
+        int count = 0;
+        Reference<? extends JSPropertyName> reference;
+        while ((reference = queue.poll()) != null) {
+            NameReference collected = (NameReference)reference;
+            synchronized (references) {
+                references.remove(collected);
+            }
+            if (collected.string != 0) NativeJSStringRelease(collected.string);
+            count++;
+        }
+        return count;
+    }
+
+    /*
+     * Number of property names whose JSStringRef has not been released yet
+     */
+    public static int getLiveCount() {
+        synchronized (references) {
+            return references.size();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static native long NativeJSStringCreate(String name);
+    private static native void NativeJSStringRelease(long jsStringRef);
+}
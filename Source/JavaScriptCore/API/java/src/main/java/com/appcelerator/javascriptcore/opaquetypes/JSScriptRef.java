@@ -0,0 +1,51 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Precompiled script that can be evaluated many times in any context of the group
+ * without parsing the source again. Ownership follows the Create Rule,
+ * release it by JavaScriptCoreLibrary.JSScriptRelease.
+ *
+ * Script created from a direct buffer keeps the buffer until its last retain has been released.
+ * Functions defined by the script refer to the text, do not release the script while they are used.
+ */
+public class JSScriptRef extends PointerType {
+
+    private final String sourceURL;
+    // Text referenced by JavaScriptCore, null if the source has been copied
+    private ByteBuffer text;
+    private int retainCount = 1;
+
+    public JSScriptRef(String sourceURL, long pointer) {
+        this(sourceURL, pointer, null);
+    }
+
+    public JSScriptRef(String sourceURL, long pointer, ByteBuffer text) {
+        super(pointer);
+        this.sourceURL = sourceURL;
+        this.text = text;
+    }
+
+    public String getSourceURL() {
+        return sourceURL;
+    }
+
+    /*
+     * Returns the buffer referenced by JavaScriptCore, null if there is none or the script has been released
+     */
+    public synchronized ByteBuffer getReferencedText() {
+        return text;
+    }
+
+    public synchronized void retained() {
+        retainCount++;
+    }
+
+    /*
+     * Drops the referenced text when the last retain has been released
+     */
+    public synchronized void released() {
+        if (--retainCount <= 0) text = null;
+    }
+}
@@ -4,10 +4,10 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import java.util.List;
-import java.util.HashMap;
 import java.util.ArrayList;
 
-import com.appcelerator.javascriptcore.util.LongSparseArray;
+import com.appcelerator.javascriptcore.util.LongIntMap;
+import com.appcelerator.javascriptcore.util.LongObjectMap;
 
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
 import com.appcelerator.javascriptcore.JavaScriptException;
@@ -27,20 +27,30 @@ public class JSStaticFunctions {
     private static final ByteOrder nativeOrder = ByteOrder.nativeOrder();
     private static ByteBuffer bufferTemplate = null;
     private static long callAsFunction;
+    private static JSStaticSlots<JSStaticFunction> slots = null;
 
     private ByteBuffer buffer = null;
     private long[] addressForNames;
+    // True once the functions have been passed to JSClassCreate
+    private boolean bound = false;
 
     public JSStaticFunctions() {
         if (bufferTemplate == null) {
             bufferTemplate = NativeGetStaticFunctionTemplate().order(nativeOrder);
             callAsFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, LONG);
         }
+        if (slots == null) {
+            slots = new JSStaticSlots<JSStaticFunction>(NativeGetStaticFunctionSlots(), 1);
+        }
     }
 
     /*
      * Commit the changes.
      * Note that buffer allocation is done only once.
+     *
+     * Each function takes a slot so that its upcall is dispatched by the slot, see
+     * JSClassDefinition.JSObjectStaticFunctionSlotCallback. Functions that can not get
+     * a slot fall back to the callback that looks up the function on each object.
      */
     public ByteBuffer commit() {
         if (buffer == null) {
@@ -61,7 +71,12 @@ public class JSStaticFunctions {
         if (function.callback == null) {
             JavaScriptCoreLibrary.putLong(buffer, bindex+LONG, 0);
         } else {
-            JavaScriptCoreLibrary.putLong(buffer, bindex+LONG, callAsFunction);
+            function.slot = slots.allocate(function);
+            if (function.slot < 0) {
+                JavaScriptCoreLibrary.putLong(buffer, bindex+LONG, callAsFunction);
+            } else {
+                JavaScriptCoreLibrary.putLong(buffer, bindex+LONG, slots.callback(function.slot, 0));
+            }
         }
         buffer.putInt(bindex +LONG2, function.attributes);
     }
@@ -73,7 +88,40 @@ public class JSStaticFunctions {
         buffer.putInt(index+LONG2, 0);
     }
 
+    /*
+     * Sets the definition whose settings apply to the upcalls of the functions
+     */
+    void bind(JSClassDefinition owner) {
+        bound = true;
+        for (JSStaticFunction function : functions) {
+            function.owner = owner;
+        }
+    }
+
+    static JSStaticFunction getFunctionAt(int slot) {
+        return slots == null ? null : slots.get(slot);
+    }
+
+    /*
+     * Returns the number of functions that can still be dispatched by slot
+     */
+    public static int getAvailableSlotCount() {
+        return slots == null ? 0 : slots.available();
+    }
+
+    /*
+     * Slots are released only if the functions have never been passed to JSClassCreate.
+     * JSClassRef copies the callbacks of the slots and lives as long as any object of the class,
+     * and JavaScriptCore does not tell when it is destroyed, so the slots of a created class
+     * are kept for the objects of that class instead of being dispatched to another class.
+     */
     public void dispose() {
+        if (functions != null && !bound) {
+            for (JSStaticFunction function : functions) {
+                if (function.slot >= 0) slots.release(function.slot);
+                function.slot = -1;
+            }
+        }
         if (functionPointers != null) {
             functionPointers.clear();
             functionPointers = null;
@@ -101,39 +149,50 @@ public class JSStaticFunctions {
         namesCache.add(name);
     }
 
-    private HashMap<Long, LongSparseArray<Integer>> functionPointers = new HashMap<Long, LongSparseArray<Integer>>(JavaScriptCoreLibrary.numberOfJSObjectBuckets);
+    // Created on first use, only functions without slot are looked up on each object
+    private LongObjectMap<LongIntMap> functionPointers = null;
     public void registerFunctions(long object, long[] pointers) {
+        if (functionPointers == null) {
+            functionPointers = new LongObjectMap<LongIntMap>(JavaScriptCoreLibrary.numberOfJSObjectBuckets);
+        }
         removeObject(object);
-        LongSparseArray<Integer> funcs = new LongSparseArray<Integer>(pointers.length);
+        LongIntMap funcs = new LongIntMap(pointers.length);
         for (int i = 0; i < pointers.length; i++) {
             funcs.put(pointers[i], i);
         }
-        functionPointers.put(object, funcs);       
+        functionPointers.put(object, funcs);
     }
     
     public void removeObject(long object) {
-        functionPointers.remove(object);
+        if (functionPointers != null) functionPointers.remove(object);
     }
 
     public boolean requestFunctions(long object) {
-        return functionPointers.get(object) == null;
+        return functionPointers == null || functionPointers.get(object) == null;
     }
 
     public JSObjectCallAsFunctionCallback getFunction(long object, long pointer) {
-        if (functionPointers.get(object) == null) return null;
-        if (functionPointers.get(object).get(pointer) == null) return null;
-        return functions.get(functionPointers.get(object).get(pointer)).callback;
+        LongIntMap funcs = functionPointers == null ? null : functionPointers.get(object);
+        if (funcs == null) return null;
+        int index = funcs.get(pointer, -1);
+        if (index < 0) return null;
+        return functions.get(index).callback;
+    }
+
+    static class JSStaticFunction {
+        public JSObjectCallAsFunctionCallback callback;
+        public int attributes;
+        // Slot of the native callback, -1 if the function is looked up on each object
+        int slot = -1;
+        JSClassDefinition owner;
+        public JSStaticFunction(JSObjectCallAsFunctionCallback callback, int attributes) {
+            this.callback = callback;
+            this.attributes = attributes;
+        }
     }
 
     private static native ByteBuffer NativeGetStaticFunctionTemplate();
+    private static native ByteBuffer NativeGetStaticFunctionSlots();
 
 }
-class JSStaticFunction {
-    public JSObjectCallAsFunctionCallback callback;
-    public int attributes;
-    public JSStaticFunction(JSObjectCallAsFunctionCallback callback, int attributes) {
-        this.callback = callback;
-        this.attributes = attributes;
-    }        
-}
 
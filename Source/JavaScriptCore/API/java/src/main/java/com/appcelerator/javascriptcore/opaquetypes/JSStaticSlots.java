@@ -0,0 +1,79 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+
+/*
+ * Fixed set of native callbacks that pass their own slot number to Java.
+ *
+ * Static functions and values take a free slot at commit() and use the callback of the slot,
+ * so that the upcall finds its entry by slot without any lookup. get() does not lock,
+ * allocate() and release() are serialized by the slots monitor.
+ */
+class JSStaticSlots<E> {
+
+    private static final short LONG = JavaScriptCoreLibrary.SizeOfLong;
+
+    private final ByteBuffer callbacks;
+    private final int callbacksPerSlot;
+    private final AtomicReferenceArray<E> entries;
+    private final int[] freeSlots;
+    private int freeCount = 0;
+    private int nextSlot  = 0;
+
+    /*
+     * Callbacks of a slot are laid out next to each other, such as getter and setter of a value
+     */
+    JSStaticSlots(ByteBuffer callbacks, int callbacksPerSlot) {
+        this.callbacks = callbacks.order(ByteOrder.nativeOrder());
+        this.callbacksPerSlot = callbacksPerSlot;
+        int capacity   = callbacks.capacity() / (LONG * callbacksPerSlot);
+        this.entries   = new AtomicReferenceArray<E>(capacity);
+        this.freeSlots = new int[capacity];
+    }
+
+    /*
+     * Takes a free slot for the entry, returns -1 if all slots are in use
+     */
+    synchronized int allocate(E entry) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (nextSlot < entries.length()) {
+            slot = nextSlot++;
+        } else {
+            return -1;
+        }
+        entries.set(slot, entry);
+        return slot;
+    }
+
+    synchronized void release(int slot) {
+        if (slot < 0 || slot >= entries.length() || entries.get(slot) == null) return;
+        entries.set(slot, null);
+        freeSlots[freeCount++] = slot;
+    }
+
+    E get(int slot) {
+        if (slot < 0 || slot >= entries.length()) return null;
+        return entries.get(slot);
+    }
+
+    /*
+     * Returns pointer to the native callback of the slot
+     */
+    long callback(int slot, int index) {
+        return JavaScriptCoreLibrary.getLong(callbacks, (slot * callbacksPerSlot + index) * LONG);
+    }
+
+    int capacity() {
+        return entries.length();
+    }
+
+    synchronized int available() {
+        return entries.length() - nextSlot + freeCount;
+    }
+}
@@ -24,10 +24,13 @@ public class JSStaticValues {
     private static ByteBuffer bufferTemplate = null;
     private static long getterFunction;
     private static long setterFunction;
+    private static JSStaticSlots<JSStaticValue> slots = null;
 
     private ByteBuffer buffer = null;
     private long[] addressForNames;
     private boolean frozen = false;
+    // True once the values have been passed to JSClassCreate
+    private boolean bound = false;
     private HashMap<String, JSStaticValue> values = new HashMap<String, JSStaticValue>();
     private ArrayList<String> namesCache = new ArrayList<String>();
 
@@ -37,11 +40,18 @@ public class JSStaticValues {
             getterFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, LONG);
             setterFunction = JavaScriptCoreLibrary.getLong(bufferTemplate, LONG2);
         }
+        if (slots == null) {
+            slots = new JSStaticSlots<JSStaticValue>(NativeGetStaticValueSlots(), 2);
+        }
     }
 
     /*
      * Commit the changes.
      * Note that buffer allocation is done only once.
+     *
+     * Each value takes a slot so that its getter and setter are dispatched by the slot without
+     * converting the property name, see JSClassDefinition.JSObjectGetStaticValueSlotCallback.
+     * Values that can not get a slot fall back to the callbacks that look up the name.
      */
     public ByteBuffer commit() {
         if (!frozen) {
@@ -58,7 +68,38 @@ public class JSStaticValues {
         return buffer;
     }
 
+    /*
+     * Sets the definition whose settings apply to the upcalls of the values
+     */
+    void bind(JSClassDefinition owner) {
+        bound = true;
+        for (JSStaticValue value : values.values()) {
+            value.owner = owner;
+        }
+    }
+
+    static JSStaticValue getValueAt(int slot) {
+        return slots == null ? null : slots.get(slot);
+    }
+
+    /*
+     * Returns the number of values that can still be dispatched by slot
+     */
+    public static int getAvailableSlotCount() {
+        return slots == null ? 0 : slots.available();
+    }
+
+    /*
+     * Slots are released only if the values have never been passed to JSClassCreate,
+     * see JSStaticFunctions.dispose()
+     */
     public void dispose() {
+        if (values != null && !bound) {
+            for (JSStaticValue value : values.values()) {
+                if (value.slot >= 0) slots.release(value.slot);
+                value.slot = -1;
+            }
+        }
         if (bufferTemplate != null) {
             bufferTemplate.clear();
             bufferTemplate = null;
@@ -73,18 +114,27 @@ public class JSStaticValues {
     }
 
     private void update(String name, int index, long addressForNames) {
+        JSStaticValue value = values.get(name);
+        // the name may be added twice, the value keeps the slot it took first
+        if (value.slot < 0 && (value.getter != null || value.setter != null)) {
+            value.slot = slots.allocate(value);
+        }
         JavaScriptCoreLibrary.putLong(buffer, index, addressForNames);
-        if (values.get(name).getter == null) {
+        if (value.getter == null) {
             JavaScriptCoreLibrary.putLong(buffer, index+LONG, 0);
-        } else {
+        } else if (value.slot < 0) {
             JavaScriptCoreLibrary.putLong(buffer, index+LONG, getterFunction);
+        } else {
+            JavaScriptCoreLibrary.putLong(buffer, index+LONG, slots.callback(value.slot, 0));
         }
-        if (values.get(name).setter == null) {
+        if (value.setter == null) {
             JavaScriptCoreLibrary.putLong(buffer, index+LONG2, 0);
-        } else {
+        } else if (value.slot < 0) {
             JavaScriptCoreLibrary.putLong(buffer, index+LONG2, setterFunction);
+        } else {
+            JavaScriptCoreLibrary.putLong(buffer, index+LONG2, slots.callback(value.slot, 1));
         }
-        buffer.putInt(index +LONG3, values.get(name).attributes);
+        buffer.putInt(index +LONG3, value.attributes);
     }
 
     private void updateLast(int last) {
@@ -96,18 +146,20 @@ public class JSStaticValues {
     }
 
     public boolean containsGetter(String name) {
-        return values.containsKey(name);
+        JSStaticValue value = values.get(name);
+        return value != null && value.getter != null;
     }
 
     public boolean containsSetter(String name) {
-        return values.containsKey(name);
+        JSStaticValue value = values.get(name);
+        return value != null && value.setter != null;
     }
 
     public void add(String name, JSObjectGetPropertyCallback getter, JSObjectSetPropertyCallback setter, JSPropertyAttribute attrs) {
         if (frozen) {
             throw new JavaScriptException("No changes can be done after commit()");
         }
-        values.put(name, new JSStaticValue(getter, setter, attrs.getValue()));
+        values.put(name, new JSStaticValue(name, getter, setter, attrs.getValue()));
         namesCache.add(name);
     }
 
@@ -120,13 +172,17 @@ public class JSStaticValues {
         return values.get(name).setter;
     }
 
-
-    private class JSStaticValue {
+    static class JSStaticValue {
+        public String name;
         public JSObjectGetPropertyCallback getter;
         public JSObjectSetPropertyCallback setter;
         public int attributes;
-        public JSStaticValue(JSObjectGetPropertyCallback getter,
+        // Slot of the native getter and setter, -1 if the value is looked up by name
+        int slot = -1;
+        JSClassDefinition owner;
+        public JSStaticValue(String name, JSObjectGetPropertyCallback getter,
                              JSObjectSetPropertyCallback setter, int attributes) {
+            this.name = name;
             this.getter = getter;
             this.setter = setter;
             this.attributes = attributes;
@@ -134,5 +190,6 @@ public class JSStaticValues {
     }
 
     private static native ByteBuffer NativeGetStaticValueTemplate();
+    private static native ByteBuffer NativeGetStaticValueSlots();
 
 }
@@ -0,0 +1,72 @@
+package com.appcelerator.javascriptcore.opaquetypes;
+
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+
+/*
+ * Per-thread pool of argument arrays used by JSValueArrayRef.lease.
+ *
+ * Arrays are grouped in power-of-two size classes, each class keeps up to
+ * numberOfPooledArgumentArrays free arrays so that nested leases (e.g. a callback
+ * calling another function) are served from the pool too. The direct buffer of a
+ * pooled array is allocated once and never becomes garbage.
+ */
+class JSValueArrayPool {
+
+    private static final ThreadLocal<JSValueArrayPool> pools = new ThreadLocal<JSValueArrayPool>() {
+        @Override
+        protected JSValueArrayPool initialValue() {
+            return new JSValueArrayPool(Thread.currentThread());
+        }
+    };
+
+    private final Thread owner;
+    private final int maxLength;
+    private final JSValueArrayRef[][] free;
+    private final int[] freeCount;
+
+    private JSValueArrayPool(Thread owner) {
+        this.owner = owner;
+        this.maxLength = Math.max(1, JavaScriptCoreLibrary.maxPooledArgumentCount);
+        int classes = sizeClass(maxLength) + 1;
+        int capacity = Math.max(0, JavaScriptCoreLibrary.numberOfPooledArgumentArrays);
+        this.free = new JSValueArrayRef[classes][capacity];
+        this.freeCount = new int[classes];
+    }
+
+    static JSValueArrayPool get() {
+        return pools.get();
+    }
+
+    /*
+     * Returns index of the smallest size class that holds length values
+     */
+    private static int sizeClass(int length) {
+        return length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    JSValueArrayRef lease(int length) {
+        if (length <= 0) return JSValueArrayRef.EMPTY;
+        if (length > maxLength) return new JSValueArrayRef(length);
+
+        int index = sizeClass(length);
+        JSValueArrayRef array;
+        if (freeCount[index] > 0) {
+            array = free[index][--freeCount[index]];
+            free[index][freeCount[index]] = null;
+        } else {
+            array = new JSValueArrayRef(1 << index);
+        }
+        array.lease(this, length);
+        return array;
+    }
+
+    void release(JSValueArrayRef array, int capacity) {
+        // Pool is not synchronized, arrays closed by other threads are dropped
+        if (Thread.currentThread() != owner) return;
+
+        int index = sizeClass(capacity);
+        if (freeCount[index] < free[index].length) {
+            free[index][freeCount[index]++] = array;
+        }
+    }
+}
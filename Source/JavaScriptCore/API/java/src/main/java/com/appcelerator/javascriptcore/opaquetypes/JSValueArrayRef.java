@@ -5,7 +5,21 @@ import java.nio.ByteBuffer;
 
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
 
-public class JSValueArrayRef {
+/*
+ * Array of JSValueRef that is passed to functions and constructors as arguments.
+ *
+ * Arrays returned by lease(int) are taken from a per-thread pool and must be closed,
+ * preferably with try-with-resources, to return them to the pool:
+ *
+ *   try (JSValueArrayRef argv = JSValueArrayRef.lease(2)) {
+ *       argv.set(0, a);
+ *       argv.set(1, b);
+ *       result = jsc.JSObjectCallAsFunction(context, function, null, argv, null);
+ *   }
+ *
+ * A closed array may be leased again by the same thread, so it must not be used after close.
+ */
+public class JSValueArrayRef implements AutoCloseable {
     public static final short sizeOfPointer = JavaScriptCoreLibrary.SizeOfLong;
     public static final ByteOrder nativeOrder = ByteOrder.nativeOrder();
 
@@ -13,6 +27,8 @@ public class JSValueArrayRef {
 
     private int length; 
     private ByteBuffer buffer;
+    private JSValueArrayPool pool;
+    private boolean leased = false;
 
     public JSValueArrayRef(int length, ByteBuffer buffer) {
         this.length  = length;
@@ -31,6 +47,45 @@ public class JSValueArrayRef {
         }
     }
 
+    /*
+     * Leases an array of length values from the pool of current thread
+     */
+    public static JSValueArrayRef lease(int length) {
+        return JSValueArrayPool.get().lease(length);
+    }
+
+    void lease(JSValueArrayPool pool, int length) {
+        this.pool   = pool;
+        this.length = length;
+        this.leased = true;
+    }
+
+    /*
+     * Returns leased array to the pool, or disposes array that is not leased
+     */
+    public void close() {
+        if (this == EMPTY) return;
+
+        if (pool != null) {
+            // Pooled array keeps its buffer, closing it twice must not return it twice
+            if (leased) {
+                leased = false;
+                length = 0;
+                pool.release(this, buffer.capacity() / sizeOfPointer);
+            }
+        } else {
+            dispose();
+        }
+    }
+
+    /*
+     * Points this array to another argument list, used by reusable callback frames
+     */
+    void reset(int length, ByteBuffer buffer) {
+        this.length = length;
+        this.buffer = buffer == null ? null : buffer.order(nativeOrder);
+    }
+
     private int getByteIndex(int index) {
         return index * sizeOfPointer;
     }
@@ -56,6 +111,11 @@ public class JSValueArrayRef {
     public void dispose() {
         if (this == EMPTY) return;
 
+        if (pool != null) {
+            close();
+            return;
+        }
+
         if (this.buffer != null) {
             this.buffer.clear();
         }
@@ -65,6 +125,6 @@ public class JSValueArrayRef {
     }
 
     public static JSValueArrayRef noArg() {
-        return new JSValueArrayRef(0);
+        return EMPTY;
     }
 }
\ No newline at end of file
@@ -1,11 +1,12 @@
 package com.appcelerator.javascriptcore.opaquetypes;
 
+import com.appcelerator.javascriptcore.JSValueDecoder;
 import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
 import com.appcelerator.javascriptcore.JavaScriptException;
 
 public class JSValueRef extends PointerType {
 
-    protected JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+    protected static final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
     protected JSContextRef context = null;
 
     public JSValueRef(JSContextRef context, long pointer) {
@@ -70,6 +71,17 @@ public class JSValueRef extends PointerType {
         return new JSObjectRef(context, pointer());
     }
 
+    /*
+     * Decodes type and primitive payload in one native call.
+     * Returned decoder is shared by current thread, read it before unboxing another value.
+     */
+    public JSValueDecoder unbox() {
+        checkContext();
+        JSValueDecoder decoder = JSValueDecoder.getInstance();
+        decoder.decode(context, this);
+        return decoder;
+    }
+
     public boolean isUndefined() {
         checkContext();
         return jsc.JSValueIsUndefined(context, this);
@@ -132,7 +144,15 @@ public class JSValueRef extends PointerType {
 
     public void UpdateJSValueRef(long jsContextRef, long jsValueRef) {
         this.context = new JSContextRef(jsContextRef);
-        this.pointer = new Pointer(jsValueRef);
+        this.peer = jsValueRef;
+    }
+
+    /*
+     * Update exception value without creating new objects
+     */
+    public void UpdateJSValueRef(JSContextRef context, long jsValueRef) {
+        this.context = context;
+        this.peer = jsValueRef;
     }
 
     private void checkContext() {
@@ -2,48 +2,58 @@ package com.appcelerator.javascriptcore.opaquetypes;
 
 public abstract class PointerType {
 
-    protected Pointer pointer;
+    /** Address of the native pointer, 0 for NULL. Use long to be 64-bit safe. */
+    protected long peer;
+
+    /** Compatibility view of the address, created only when getPointer() is called. */
+    private Pointer pointerView;
 
     /** The default constructor wraps a NULL pointer. */
     protected PointerType() {
-        this.pointer = Pointer.NULL;
+        this.peer = 0;
     }
 
     protected PointerType(long l) {
-        this.pointer = new Pointer(l);
+        this.peer = l;
     }
     
     protected PointerType(Pointer p) {
-        this.pointer = p;
+        this.peer = p == null ? 0 : p.value();
+        this.pointerView = p;
     }   
 
     /** Returns the associated native {@link Pointer}. */
     public Pointer getPointer() {
-        return pointer;
+        Pointer view = pointerView;
+        if (view == null || view.value() != peer) {
+            view = new Pointer(peer);
+            pointerView = view;
+        }
+        return view;
     }
     
     public void setPointer(Pointer p) {
-        this.pointer = p;
+        this.peer = p == null ? 0 : p.value();
+        this.pointerView = p;
     }
 
     public long pointer() {
-        if (pointer == Pointer.NULL) return 0;
-        return pointer.value();
+        return peer;
     }
 
     public long p() {
-        return pointer();
+        return peer;
     }
 
     public boolean isNullPointer(){
-        return pointer() == 0;
+        return peer == 0;
     }
 
     /** The hash code for a <code>PointerType</code> is the same as that for
      * its pointer.
      */
     public int hashCode() {
-        return pointer != null ? pointer.hashCode() : 0;
+        return (int)((peer >>> 32) + (peer & 0xFFFFFFFF));
     }
     
     /** Instances of <code>PointerType</code> with identical pointers compare
@@ -52,15 +62,12 @@ public abstract class PointerType {
     public boolean equals(Object o) {
         if (o == this) return true;
         if (o instanceof PointerType) {
-            Pointer p = ((PointerType)o).getPointer();
-            if (pointer == null)
-                return p == null;
-            return pointer.equals(p);
+            return peer == ((PointerType)o).peer;
         }
         return false;
     }
 
     public String toString() {
-        return pointer == null ? "NULL" : pointer.toString() + " (" + super.toString() + ")";
+        return "native@0x" + Long.toHexString(peer) + " (" + super.toString() + ")";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package com.appcelerator.javascriptcore.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open-addressing map from long to Object that is safe for concurrent use.
+ * Keys are not boxed. get() does not lock and never blocks, put() and remove()
+ * are serialized by the map monitor.
+ *
+ * <p>A key stays in its slot once it is inserted into the table, removal only
+ * replaces the value with a marker. This keeps probe sequences valid for readers
+ * running concurrently with writers. Removed slots are dropped when the table is
+ * rehashed.</p>
+ */
+public class ConcurrentLongObjectMap<E> {
+
+    private static final Object REMOVED = new Object();
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private static final class Table {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<Object> values;
+        final int mask;
+        // Number of slots that have a key, including removed ones
+        int used;
+
+        Table(int capacity) {
+            keys   = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<Object>(capacity);
+            mask   = capacity - 1;
+        }
+    }
+
+    private volatile Table table;
+    // Value of key 0, that marks empty slots in the table
+    private volatile Object zeroValue;
+    private volatile int size;
+
+    public ConcurrentLongObjectMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a map that holds the expected number of mappings without rehashing.
+     */
+    public ConcurrentLongObjectMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < (1 << 30) && capacity * 3 / 4 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+
+    /**
+     * Gets the value mapped from the key, or null if there is no such mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long key) {
+        if (key == 0) return (E)zeroValue;
+
+        Table t = table;
+        int index = hash(key) & t.mask;
+        while (true) {
+            long k = t.keys.get(index);
+            if (k == key) {
+                Object value = t.values.get(index);
+                return value == REMOVED ? null : (E)value;
+            }
+            if (k == 0) return null;
+            index = (index + 1) & t.mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Adds a mapping from the key to the value, replacing the previous mapping if there was one.
+     * Null value removes the mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized E put(long key, E value) {
+        if (value == null) return remove(key);
+        if (key == 0) {
+            Object old = zeroValue;
+            zeroValue = value;
+            if (old == null) size++;
+            return (E)old;
+        }
+
+        Table t = table;
+        int index = hash(key) & t.mask;
+        while (true) {
+            long k = t.keys.get(index);
+            if (k == key) {
+                Object old = t.values.getAndSet(index, value);
+                if (old == REMOVED) {
+                    size++;
+                    return null;
+                }
+                return (E)old;
+            }
+            if (k == 0) {
+                // Value is stored before the key so that readers never see a key without value
+                t.values.set(index, value);
+                t.keys.set(index, key);
+                t.used++;
+                size++;
+                if (t.used > (t.mask + 1) * 3 / 4) {
+                    rehash();
+                }
+                return null;
+            }
+            index = (index + 1) & t.mask;
+        }
+    }
+
+    /**
+     * Removes the mapping from the key, returns the removed value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized E remove(long key) {
+        if (key == 0) {
+            Object old = zeroValue;
+            zeroValue = null;
+            if (old != null) size--;
+            return (E)old;
+        }
+
+        Table t = table;
+        int index = hash(key) & t.mask;
+        while (true) {
+            long k = t.keys.get(index);
+            if (k == key) {
+                Object old = t.values.get(index);
+                if (old == REMOVED) return null;
+                t.values.set(index, REMOVED);
+                size--;
+                return (E)old;
+            }
+            if (k == 0) return null;
+            index = (index + 1) & t.mask;
+        }
+    }
+
+    /*
+     * Copies live mappings into a new table, sized for the live mappings only,
+     * and publishes it. Readers of the old table still see a consistent table.
+     */
+    private void rehash() {
+        Table old = table;
+        Table t = new Table(capacityFor(size * 2));
+        for (int i = 0; i <= old.mask; i++) {
+            long key = old.keys.get(i);
+            Object value = old.values.get(i);
+            if (key == 0 || value == REMOVED) continue;
+            int index = hash(key) & t.mask;
+            while (t.keys.get(index) != 0) {
+                index = (index + 1) & t.mask;
+            }
+            t.values.set(index, value);
+            t.keys.set(index, key);
+            t.used++;
+        }
+        table = t;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MINIMUM_CAPACITY);
+        zeroValue = null;
+        size = 0;
+    }
+}
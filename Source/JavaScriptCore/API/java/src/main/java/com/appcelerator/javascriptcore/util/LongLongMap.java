@@ -0,0 +1,193 @@
+package com.appcelerator.javascriptcore.util;
+
+/**
+ * Open-addressing map from long to long. Neither keys nor values are boxed and
+ * there is no entry object for each mapping.
+ *
+ * <p>Collisions are resolved by linear probing. Removal shifts the following
+ * entries of the probe sequence back instead of leaving a deleted marker, so
+ * lookups never walk over removed entries and the table does not need to be
+ * compacted. get, put and remove take constant time on average regardless of
+ * the number of mappings.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public class LongLongMap {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    // Key 0 marks empty slots so that its value is stored out of the table
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a map that holds the expected number of mappings without rehashing.
+     */
+    public LongLongMap(int expectedSize) {
+        allocate(LongObjectMap.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys   = new long[capacity];
+        values = new long[capacity];
+        mask   = capacity - 1;
+    }
+
+    /**
+     * Gets the value mapped from the key, or the specified value if there is no such mapping.
+     */
+    public long get(long key, long valueIfKeyNotFound) {
+        if (key == 0) return hasZeroKey ? zeroValue : valueIfKeyNotFound;
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) return values[index];
+            if (k == 0) return valueIfKeyNotFound;
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) return true;
+            if (k == 0) return false;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a mapping from the key to the value, replacing the previous mapping if there was one.
+     * Returns the previous value or 0.
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long old = zeroValue;
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue  = value;
+            return old;
+        }
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) {
+                long old = values[index];
+                values[index] = value;
+                return old;
+            }
+            if (k == 0) {
+                keys[index]   = key;
+                values[index] = value;
+                if (++size > (mask + 1) * 3 / 4) {
+                    rehash((mask + 1) << 1);
+                }
+                return 0;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the mapping from the key, returns the removed value or 0.
+     */
+    public long remove(long key) {
+        if (key == 0) {
+            long old = zeroValue;
+            if (hasZeroKey) size--;
+            hasZeroKey = false;
+            zeroValue  = 0;
+            return old;
+        }
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) {
+                long old = values[index];
+                removeAt(index);
+                size--;
+                return old;
+            }
+            if (k == 0) return 0;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /*
+     * Empties the slot and moves back the entries that would not be found across the empty slot
+     */
+    private void removeAt(int gap) {
+        int index = (gap + 1) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == 0) break;
+            int home = ConcurrentLongObjectMap.hash(k) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap]   = k;
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap]   = 0;
+        values[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+            int index = ConcurrentLongObjectMap.hash(key) & mask;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            keys[index]   = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        allocate(MINIMUM_CAPACITY);
+        hasZeroKey = false;
+        zeroValue  = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the keys of the mappings in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZeroKey) result[n++] = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) result[n++] = keys[i];
+        }
+        return result;
+    }
+}
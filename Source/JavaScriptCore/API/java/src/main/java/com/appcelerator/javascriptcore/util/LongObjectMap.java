@@ -0,0 +1,221 @@
+package com.appcelerator.javascriptcore.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressing map from long to Object. Keys are not boxed and there is no
+ * entry object for each mapping.
+ *
+ * <p>Collisions are resolved by linear probing. Removal shifts the following
+ * entries of the probe sequence back instead of leaving a deleted marker, so
+ * lookups never walk over removed entries and the table does not need to be
+ * compacted. Unlike {@link LongSparseArray}, get, put and remove take constant
+ * time on average regardless of the number of mappings.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public class LongObjectMap<E> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    // Key 0 marks empty slots so that its value is stored out of the table
+    private boolean hasZeroKey;
+    private Object zeroValue;
+
+    public LongObjectMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a map that holds the expected number of mappings without rehashing.
+     */
+    public LongObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < (1 << 30) && capacity * 3 / 4 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys   = new long[capacity];
+        values = new Object[capacity];
+        mask   = capacity - 1;
+    }
+
+    /**
+     * Gets the value mapped from the key, or null if there is no such mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long key) {
+        if (key == 0) return (E)zeroValue;
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) return (E)values[index];
+            if (k == 0) return null;
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) return true;
+            if (k == 0) return false;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a mapping from the key to the value, replacing the previous mapping if there was one.
+     * Returns the previous value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public E put(long key, E value) {
+        if (key == 0) {
+            Object old = zeroValue;
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue  = value;
+            return (E)old;
+        }
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) {
+                Object old = values[index];
+                values[index] = value;
+                return (E)old;
+            }
+            if (k == 0) {
+                keys[index]   = key;
+                values[index] = value;
+                if (++size > (mask + 1) * 3 / 4) {
+                    rehash((mask + 1) << 1);
+                }
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the mapping from the key, returns the removed value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(long key) {
+        if (key == 0) {
+            Object old = zeroValue;
+            if (hasZeroKey) size--;
+            hasZeroKey = false;
+            zeroValue  = null;
+            return (E)old;
+        }
+
+        int index = ConcurrentLongObjectMap.hash(key) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == key) {
+                Object old = values[index];
+                removeAt(index);
+                size--;
+                return (E)old;
+            }
+            if (k == 0) return null;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /*
+     * Empties the slot and moves back the entries that would not be found across the empty slot
+     */
+    private void removeAt(int gap) {
+        int index = (gap + 1) & mask;
+        while (true) {
+            long k = keys[index];
+            if (k == 0) break;
+            int home = ConcurrentLongObjectMap.hash(k) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap]   = k;
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap]   = 0;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+            int index = ConcurrentLongObjectMap.hash(key) & mask;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            keys[index]   = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        allocate(MINIMUM_CAPACITY);
+        hasZeroKey = false;
+        zeroValue  = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the keys of the mappings in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZeroKey) result[n++] = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) result[n++] = keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of the mappings in no particular order. The list is a copy
+     * so that the map can be modified while the values are iterated.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> values() {
+        List<E> result = new ArrayList<E>(size);
+        if (hasZeroKey) result.add((E)zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) result.add((E)values[i]);
+        }
+        return result;
+    }
+}
@@ -1,10 +1,23 @@
 package com.appcelerator.javascriptcore;
 
 import java.io.IOException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.appcelerator.javascriptcore.opaquetypes.JSContextGroupRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
@@ -16,12 +29,16 @@ import com.appcelerator.javascriptcore.opaquetypes.JSClassRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSClassDefinition;
 import com.appcelerator.javascriptcore.opaquetypes.JSPropertyNameArrayRef;
 import com.appcelerator.javascriptcore.opaquetypes.JSPropertyNameAccumulatorRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSPropertyName;
+import com.appcelerator.javascriptcore.opaquetypes.JSScriptRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSManagedValue;
 import com.appcelerator.javascriptcore.opaquetypes.JSStaticValues;
 import com.appcelerator.javascriptcore.opaquetypes.JSStaticFunctions;
 import com.appcelerator.javascriptcore.opaquetypes.Pointer;
 
 import com.appcelerator.javascriptcore.enums.JSPropertyAttribute;
 import com.appcelerator.javascriptcore.enums.JSType;
+import com.appcelerator.javascriptcore.enums.JSTypedArrayType;
 
 import com.appcelerator.javascriptcore.callbacks.JSObjectCallAsConstructorCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectCallAsFunctionCallback;
@@ -35,8 +52,10 @@ import com.appcelerator.javascriptcore.callbacks.JSObjectHasPropertyCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectInitializeCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectSetPropertyCallback;
 import com.appcelerator.javascriptcore.callbacks.JSObjectGetPropertyCallback;
+import com.appcelerator.javascriptcore.callbacks.JSShouldTerminateCallback;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 import org.junit.Test;
 import org.junit.Before;
@@ -875,6 +894,1099 @@ public class JSVirtualMachineTest {
         assertTrue(jsc.JSValueToNumber(context, jsObj, null) == 1);
     }
 
+    @Test
+    public void testNativeStats() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        jsc.setNativeStatsEnabled(true);
+        jsc.resetNativeStats();
+        try {
+            jsc.JSEvaluateScript(context, "1 + 1", null);
+            jsc.JSEvaluateScript(context, "2 + 2", null);
+            JSNativeStats stats = jsc.getNativeStats();
+            assertTrue(stats.getCallCount("JSEvaluateScriptShort") == 2);
+            assertTrue(stats.getTotalNanos("JSEvaluateScriptShort") > 0);
+            long histogramCount = 0;
+            for (long count : stats.getHistogram("JSEvaluateScriptShort")) {
+                histogramCount += count;
+            }
+            assertTrue(histogramCount == 2);
+        } finally {
+            jsc.setNativeStatsEnabled(false);
+        }
+        jsc.resetNativeStats();
+        jsc.JSEvaluateScript(context, "1 + 1", null);
+        assertTrue(jsc.getNativeStats().getCallCount("JSEvaluateScriptShort") == 0);
+    }
+
+    @Test
+    public void testThreadAttachCount() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef globalObject = jsc.JSContextGetGlobalObject(context);
+        final List<Thread> callers = new ArrayList<Thread>();
+        JSObjectRef func = jsc.JSObjectMakeFunctionWithCallback(context, "func", new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
+                                                int argumentCount, JSValueArrayRef arguments, Pointer exception) {
+                callers.add(Thread.currentThread());
+                return jsc.JSValueMakeNumber(ctx, 1);
+            }
+        });
+        jsc.JSObjectSetProperty(context, globalObject, "func", func, JSPropertyAttribute.DontEnum, null);
+
+        // callbacks on Java threads never attach
+        long attachCount = jsc.getThreadAttachCount();
+        for (int i = 0; i < 100; i++) {
+            jsc.JSEvaluateScript(context, "func()", null);
+        }
+        assertTrue(jsc.getThreadAttachCount() == attachCount);
+
+        // a pthread is attached as daemon by its first callback only
+        callers.clear();
+        assertTrue(NativeThreadCaller.call(context, func, 3));
+        assertTrue(jsc.getThreadAttachCount() == attachCount + 1);
+        assertEquals(3, callers.size());
+        assertTrue(callers.get(0) != Thread.currentThread());
+        assertTrue(callers.get(0).isDaemon());
+        assertTrue(callers.get(0) == callers.get(2));
+
+        // the thread has been detached on exit, the next pthread is attached again
+        assertFalse(callers.get(0).isAlive());
+        assertTrue(NativeThreadCaller.call(context, func, 1));
+        assertTrue(jsc.getThreadAttachCount() == attachCount + 2);
+    }
+
+    @Test
+    public void testNonBMPString() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        String text = "a\uD83D\uDE00b\u0000c";
+        JSValueRef value = jsc.JSValueMakeString(context, text);
+        assertTrue(text.equals(jsc.JSValueToStringCopy(context, value, null)));
+
+        JSValueRef length = jsc.JSEvaluateScript(context, "'\uD83D\uDE00'.length", null);
+        assertTrue(jsc.JSValueToNumber(context, length, null) == 2);
+
+        JSValueRef json = jsc.JSEvaluateScript(context, "({ face: '\uD83D\uDE00' })", null);
+        assertTrue("{\"face\":\"\uD83D\uDE00\"}".equals(jsc.JSValueCreateJSONString(context, json, 0, null)));
+    }
+
+    @Test
+    public void testJSPropertyName() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef object = jsc.JSObjectMake(context, null, null);
+        JSPropertyName name = JSPropertyName.intern("name");
+        assertTrue(name == JSPropertyName.intern("name"));
+        assertTrue("name".equals(name.getName()));
+
+        jsc.JSObjectSetProperty(context, object, name, jsc.JSValueMakeNumber(context, 123), JSPropertyAttribute.None, null);
+        assertTrue(jsc.JSObjectHasProperty(context, object, name));
+        assertTrue(jsc.JSObjectHasProperty(context, object, "name"));
+        assertTrue(jsc.JSValueToNumber(context, jsc.JSObjectGetProperty(context, object, name, null), null) == 123);
+        assertTrue(jsc.JSObjectDeleteProperty(context, object, name, null));
+        assertFalse(jsc.JSObjectHasProperty(context, object, name));
+
+        int count = JavaScriptCoreLibrary.numberOfInternedPropertyNames;
+        for (int i = 0; i < count * 2; i++) {
+            JSPropertyName.intern("name" + i);
+        }
+        assertTrue(JSPropertyName.getInternedCount() == count);
+        JSPropertyName.clearInterned();
+        assertTrue(JSPropertyName.getInternedCount() == 0);
+    }
+
+    @Test
+    public void testReleaseCollectedPropertyNames() throws InterruptedException {
+        JSPropertyName.clearInterned();
+        JSPropertyName.releaseCollected();
+        int live = JSPropertyName.getLiveCount();
+        JSPropertyName name = JSPropertyName.create("collected");
+        assertTrue(JSPropertyName.getLiveCount() == live + 1);
+
+        name = null;
+        for (int i = 0; i < 10 && JSPropertyName.getLiveCount() > live; i++) {
+            System.gc();
+            Thread.sleep(10);
+            JSPropertyName.releaseCollected();
+        }
+        assertTrue(JSPropertyName.getLiveCount() <= live);
+    }
+
+    @Test
+    public void testReuseException() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSValueRef exception = JSValueRef.Null();
+        jsc.JSEvaluateScript(context, "throw new Error('test');", exception);
+        assertTrue(jsc.isExceptionThrown());
+        assertTrue(jsc.JSValueIsObject(context, exception));
+
+        // exception of the caller is left untouched on success
+        long thrown = exception.p();
+        jsc.JSEvaluateScript(context, "var a = 0;", exception);
+        assertFalse(jsc.isExceptionThrown());
+        assertEquals(thrown, exception.p());
+
+        JSValueRef none = JSValueRef.Null();
+        jsc.JSEvaluateScript(context, "var b = 0;", none);
+        assertTrue(jsc.JSValueIsNull(context, none));
+    }
+
+    @Test
+    public void testJSObjectGetSetProperties() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef object = jsc.JSObjectMake(context, null, null);
+        String[] names = new String[] { "a", "b", "c" };
+        long[] values = new long[] {
+            jsc.JSValueMakeNumber(context, 1).p(),
+            jsc.JSValueMakeNumber(context, 2).p(),
+            jsc.JSValueMakeNumber(context, 3).p() };
+        assertTrue(jsc.JSObjectSetProperties(context, object, names, values, JSPropertyAttribute.None, null) == 3);
+        assertTrue("{\"a\":1,\"b\":2,\"c\":3}".equals(jsc.JSValueCreateJSONString(context, object, 0, null)));
+
+        long[] result = new long[3];
+        assertTrue(jsc.JSObjectGetProperties(context, object, names, result, null) == 3);
+        assertTrue(jsc.JSValueToNumber(context, new JSValueRef(context, result[2]), null) == 3);
+
+        JSPropertyName[] propertyNames = new JSPropertyName[] { JSPropertyName.intern("c"), JSPropertyName.intern("a") };
+        assertTrue(jsc.JSObjectGetProperties(context, object, propertyNames, result, null) == 2);
+        assertTrue(jsc.JSValueToNumber(context, new JSValueRef(context, result[0]), null) == 3);
+        assertTrue(jsc.JSValueToNumber(context, new JSValueRef(context, result[1]), null) == 1);
+
+        JSObjectRef thrower = context.evaluateScript("({ a: 1, get b() { throw new Error('b'); }, c: 3 })").toObject();
+        JSValueRef exception = JSValueRef.Null();
+        assertTrue(jsc.JSObjectGetProperties(context, thrower, names, result, exception) == 1);
+        assertTrue(jsc.JSValueIsObject(context, exception));
+    }
+
+    @Test
+    public void testJSObjectPrimitiveArrays() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef array = jsc.JSObjectMakeArrayFromDoubleArray(context, new double[] { 1.5, 2.5, 3.5 }, null);
+        assertTrue("[1.5,2.5,3.5]".equals(jsc.JSValueCreateJSONString(context, array, 0, null)));
+        double[] doubles = jsc.JSObjectToDoubleArray(context, array, null);
+        assertTrue(doubles.length == 3 && doubles[2] == 3.5);
+
+        array = jsc.JSObjectMakeArrayFromIntArray(context, new int[] { 1, -2, 3 }, null);
+        assertTrue("[1,-2,3]".equals(jsc.JSValueCreateJSONString(context, array, 0, null)));
+
+        array = jsc.JSObjectMakeArrayFromLongArray(context, new long[] { 1L << 40 }, null);
+        long[] longs = jsc.JSObjectToLongArray(context, array, null);
+        assertTrue(longs.length == 1 && longs[0] == 1L << 40);
+
+        JSObjectRef values = context.evaluateScript("[1.9, 'abc', -1e20, 7]").toObject();
+        int[] ints = jsc.JSObjectToIntArray(context, values, null);
+        assertTrue(ints.length == 4 && ints[0] == 1 && ints[1] == 0 && ints[2] == Integer.MIN_VALUE && ints[3] == 7);
+
+        assertTrue(jsc.JSObjectToDoubleArray(context, jsc.JSObjectMakeArrayFromDoubleArray(context, new double[0], null), null).length == 0);
+    }
+
+    @Test
+    public void testJSObjectMakeTypedArrayWithBuffer() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef globalObject = jsc.JSContextGetGlobalObject(context);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * 8).order(ByteOrder.nativeOrder());
+        buffer.putDouble(0, 1.5);
+
+        JSObjectRef array = jsc.JSObjectMakeTypedArrayWithBuffer(context, JSTypedArrayType.Float64, buffer);
+        assertTrue(jsc.JSObjectGetTypedArrayType(context, array) == JSTypedArrayType.Float64);
+        assertTrue(jsc.JSObjectGetTypedArrayBuffer(context, array) == buffer);
+        jsc.JSObjectSetProperty(context, globalObject, "data", array, JSPropertyAttribute.None, null);
+
+        assertTrue(context.evaluateScript("data.length").toInt() == 4);
+        assertTrue(context.evaluateScript("data[0]").toDouble() == 1.5);
+        context.evaluateScript("data[3] = 2.5;");
+        assertTrue(buffer.getDouble(3 * 8) == 2.5);
+
+        JSObjectRef bytes = jsc.JSObjectMakeTypedArrayWithBuffer(context, JSTypedArrayType.Uint8Clamped, ByteBuffer.allocateDirect(2));
+        jsc.JSObjectSetProperty(context, globalObject, "bytes", bytes, JSPropertyAttribute.None, null);
+        assertTrue(context.evaluateScript("bytes[0] = 300; bytes[1] = -1; bytes[0] + bytes[1];").toInt() == 255);
+
+        assertTrue(jsc.JSObjectGetTypedArrayType(context, globalObject) == JSTypedArrayType.None);
+        assertTrue(jsc.JSObjectGetTypedArrayBuffer(context, globalObject) == null);
+    }
+
+    @Test
+    public void testJSScriptEvaluate() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSScriptRef script = jsc.JSScriptCreateFromString(vm.getContextGroupRef(), "test.js", 1, "1 + 2");
+        assertTrue(script != null);
+        assertTrue(jsc.JSScriptEvaluate(context, script, null, null).toInt() == 3);
+        JSGlobalContextRef other = vm.createContext();
+        assertTrue(jsc.JSScriptEvaluate(other, script, null, null).toInt() == 3);
+        vm.releaseContext(other);
+        jsc.JSScriptRelease(script);
+
+        assertTrue(jsc.JSScriptCreateFromString(vm.getContextGroupRef(), "test.js", 1, "{#@%){") == null);
+    }
+
+    @Test
+    public void testScriptCache() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        String script = "var count = (typeof count == 'undefined') ? 1 : count + 1; count;";
+        assertTrue(vm.evaluateCachedScript(context, script, "count.js", null, null).toInt() == 1);
+        assertTrue(vm.evaluateCachedScript(context, script, "count.js", null, null).toInt() == 2);
+        assertTrue(vm.getScriptCacheMissCount() == 1);
+        assertTrue(vm.getScriptCacheHitCount() == 1);
+        assertTrue(vm.getCachedScriptCount() == 1);
+
+        assertTrue(vm.invalidateCachedScript(script, "count.js"));
+        assertTrue(vm.getCachedScriptCount() == 0);
+        assertTrue(vm.evaluateCachedScript(context, script, "count.js", null, null).toInt() == 3);
+        assertTrue(vm.getScriptCacheMissCount() == 2);
+
+        int count = JavaScriptCoreLibrary.numberOfCachedScripts;
+        for (int i = 0; i < count + 10; i++) {
+            vm.evaluateCachedScript(context, "" + i, null, null, null);
+        }
+        assertTrue(vm.getCachedScriptCount() == count);
+
+        JSValueRef exception = JSValueRef.Null();
+        vm.evaluateCachedScript(context, "{#@%){", null, null, exception);
+        assertTrue(jsc.JSValueIsObject(context, exception));
+
+        vm.invalidateCachedScripts();
+        assertTrue(vm.getCachedScriptCount() == 0);
+
+        // scripts compiled for the group are not evaluated in other groups
+        JSGlobalContextRef other = jsc.JSGlobalContextCreate(null);
+        try {
+            vm.evaluateCachedScript(other, script, "count.js", null, null);
+            fail("Context of other group should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(vm.getCachedScriptCount() == 0);
+        } finally {
+            jsc.JSGlobalContextRelease(other);
+        }
+    }
+
+    @Test
+    public void testLoadScript() throws IOException {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        File ascii = createTempScript("var ascii = 'Hello'; ascii + ', World';");
+        JSScriptRef script = vm.loadScript(ascii, "ascii.js");
+        assertTrue(script != null);
+        assertTrue("Hello, World".equals(jsc.JSScriptEvaluate(context, script, null, null).toString()));
+        // mapping is kept by the script until its last retain is released
+        assertTrue(script.getReferencedText() != null);
+        jsc.JSScriptRetain(script);
+        jsc.JSScriptRelease(script);
+        assertTrue(script.getReferencedText() != null);
+        jsc.JSScriptRelease(script);
+        assertTrue(script.getReferencedText() == null);
+
+        File unicode = createTempScript("'\u3053\u3093\u306b\u3061\u306f';");
+        script = vm.loadScript(unicode, "unicode.js");
+        assertTrue(script != null);
+        assertTrue("\u3053\u3093\u306b\u3061\u306f".equals(jsc.JSScriptEvaluate(context, script, null, null).toString()));
+        // source is copied, no mapping is referenced
+        assertTrue(script.getReferencedText() == null);
+        jsc.JSScriptRelease(script);
+
+        assertTrue(vm.loadScript(createTempScript("{#@%){"), "invalid.js") == null);
+    }
+
+    private File createTempScript(String script) throws IOException {
+        File file = File.createTempFile("script", ".js");
+        file.deleteOnExit();
+        OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(script);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testJSValueUnbox() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSValueDecoder decoder = context.evaluateScript("1.5").unbox();
+        assertTrue(decoder.getType() == JSType.Number);
+        assertTrue(decoder.getDouble() == 1.5);
+
+        decoder = context.evaluateScript("true").unbox();
+        assertTrue(decoder.isBoolean() && decoder.getBoolean());
+
+        decoder = context.evaluateScript("'Hello'").unbox();
+        assertTrue(decoder.isString());
+        assertTrue("Hello".equals(decoder.getString()));
+
+        assertTrue(decoder.decode(context, context.evaluateScript("({})")) == JSType.Object);
+        assertTrue(decoder.getString() == null);
+        assertTrue(decoder.decode(context, context.evaluateScript("null")) == JSType.Null);
+        assertTrue(decoder.decode(context, context.evaluateScript("undefined")) == JSType.Undefined);
+        assertTrue(decoder == JSValueDecoder.getInstance());
+    }
+
+    @Test
+    public void testManagedValue() throws Exception {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSManagedValue value = vm.manage(context, context.evaluateScript("({ name: 'managed' })"));
+        jsc.JSGarbageCollect(context);
+        assertTrue("managed".equals(jsc.JSObjectGetProperty(context, value.castToObject(), "name", null).toString()));
+        assertTrue(vm.getManagedValueCount() == 1);
+
+        value = null;
+        for (int i = 0; i < 10 && vm.getManagedValueCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            vm.drainManagedValues();
+        }
+        assertTrue(vm.getManagedValueCount() == 0);
+    }
+
+    @Test
+    public void testReuseCallbackFrames() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        final JSContextRef[] handles = new JSContextRef[2];
+        JSClassDefinition definition = new JSClassDefinition();
+        definition.enableCallbackFrameReuse(true);
+        definition.callAsFunction = new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                int n = arguments.get(ctx, 0).toInt();
+                long functionPointer = function.p();
+                handles[n > 0 ? 0 : 1] = ctx;
+                if (n == 0) return jsc.JSValueMakeNumber(ctx, 0);
+                // nested upcall uses another frame, so handles of this frame are not changed
+                JSValueArrayRef argv = new JSValueArrayRef(1);
+                argv.set(0, jsc.JSValueMakeNumber(ctx, n - 1));
+                int nested = jsc.JSObjectCallAsFunction(ctx, function, thisObject, argv, null).toInt();
+                argv.dispose();
+                assertEquals(functionPointer, function.p());
+                assertEquals(n, arguments.get(ctx, 0).toInt());
+                return jsc.JSValueMakeNumber(ctx, n + nested);
+            }
+        };
+        JSClassRef jsClass = jsc.JSClassCreate(definition);
+        JSObjectRef jsObj = jsc.JSObjectMake(context, jsClass);
+        JSValueArrayRef argv = new JSValueArrayRef(1);
+        argv.set(0, jsc.JSValueMakeNumber(context, 3));
+        assertEquals(6, jsc.JSObjectCallAsFunction(context, jsObj, jsObj, argv, null).toInt());
+        assertTrue(handles[0] != handles[1]);
+        // handles are cleared after upcall
+        assertEquals(0, handles[0].p());
+
+        JSContextRef first = handles[0];
+        assertEquals(6, jsc.JSObjectCallAsFunction(context, jsObj, jsObj, argv, null).toInt());
+        assertTrue(first == handles[0]);
+        argv.dispose();
+    }
+
+    @Test
+    public void testLeaseJSValueArrayRef() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSObjectRef sum = context.evaluateScript("(function(a, b, c) { return a + b + c; })").toObject();
+
+        JSValueArrayRef leased;
+        try (JSValueArrayRef argv = JSValueArrayRef.lease(3)) {
+            assertEquals(3, argv.length());
+            argv.set(0, jsc.JSValueMakeNumber(context, 1));
+            argv.set(1, jsc.JSValueMakeNumber(context, 2));
+            argv.set(2, jsc.JSValueMakeNumber(context, 3));
+            assertEquals(6, jsc.JSObjectCallAsFunction(context, sum, null, argv, null).toInt());
+            leased = argv;
+
+            // nested lease of the same size class gets another array
+            try (JSValueArrayRef nested = JSValueArrayRef.lease(4)) {
+                assertTrue(nested != argv);
+            }
+        }
+        assertEquals(0, leased.length());
+
+        // closed array is reused by the next lease of the same size class
+        try (JSValueArrayRef argv = JSValueArrayRef.lease(4)) {
+            assertTrue(argv == leased);
+        }
+
+        JSValueRef[] values = new JSValueRef[] {
+            jsc.JSValueMakeNumber(context, 10),
+            jsc.JSValueMakeNumber(context, 20),
+            jsc.JSValueMakeNumber(context, 30)
+        };
+        assertEquals(60, jsc.JSObjectCallAsFunctionWithValues(context, sum, null, values, null).toInt());
+        JSObjectRef array = jsc.JSObjectMakeArrayWithValues(context, values, null);
+        assertEquals("10,20,30", array.toString());
+    }
+
+    @Test
+    public void testClassHierarchyDispatch() {
+        // context of its own group, so that releasing it finalizes the object
+        JSGlobalContextRef context = jsc.JSGlobalContextCreate(null);
+        final StringBuilder initialized = new StringBuilder();
+        final StringBuilder finalized = new StringBuilder();
+        StringBuilder expectedInitialized = new StringBuilder();
+        StringBuilder expectedFinalized = new StringBuilder();
+        JSClassRef parentClass = null;
+        for (int depth = 0; depth < JavaScriptCoreLibrary.numberOfPrototypeHierarchy; depth++) {
+            final int level = depth;
+            JSClassDefinition definition = new JSClassDefinition();
+            definition.className = "Level" + depth;
+            definition.parentClass = parentClass;
+            definition.initialize = new JSObjectInitializeCallback() {
+                public void initialize(JSContextRef ctx, JSObjectRef object) {
+                    initialized.append(level).append(' ');
+                }
+            };
+            definition.finalize = new JSObjectFinalizeCallback() {
+                public void finalize(JSObjectRef object) {
+                    finalized.append(level).append(' ');
+                }
+            };
+            // parents are initialized first and finalized last
+            expectedInitialized.append(depth).append(' ');
+            expectedFinalized.insert(0, depth + " ");
+            // every other class handles its own property, others fall back to the parent
+            if (depth % 2 == 0) {
+                definition.getProperty = new JSObjectGetPropertyCallback() {
+                    public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                                String propertyName, Pointer exception) {
+                        if (propertyName.equals("level" + level)) {
+                            return jsc.JSValueMakeNumber(ctx, level);
+                        }
+                        return null;
+                    }
+                };
+            }
+            parentClass = jsc.JSClassCreate(definition);
+        }
+
+        JSObjectRef object = jsc.JSObjectMake(context, parentClass);
+        assertEquals(expectedInitialized.toString(), initialized.toString());
+        assertEquals(0,  jsc.JSObjectGetProperty(context, object, "level0", null).toInt());
+        assertEquals(4,  jsc.JSObjectGetProperty(context, object, "level4", null).toInt());
+        assertEquals(14, jsc.JSObjectGetProperty(context, object, "level14", null).toInt());
+        assertTrue(jsc.JSValueIsUndefined(context, jsc.JSObjectGetProperty(context, object, "level1", null)));
+        assertEquals("", finalized.toString());
+        jsc.JSGlobalContextRelease(context);
+        assertEquals(expectedFinalized.toString(), finalized.toString());
+
+        JSClassDefinition tooDeep = new JSClassDefinition();
+        tooDeep.parentClass = parentClass;
+        try {
+            jsc.JSClassCreate(tooDeep);
+            fail("class hierarchy deeper than numberOfPrototypeHierarchy should not be created");
+        } catch (JavaScriptException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testClassHierarchyDispatchAtMaximumDepth() {
+        // the deepest class is dispatched by the last level of the native dispatch table
+        assertEquals(16, JavaScriptCoreLibrary.numberOfPrototypeHierarchy);
+        final int deepest = JavaScriptCoreLibrary.numberOfPrototypeHierarchy - 1;
+        JSGlobalContextRef context = jsc.JSGlobalContextCreate(null);
+        final StringBuilder calls = new StringBuilder();
+        JSClassRef parentClass = null;
+        for (int depth = 0; depth <= deepest; depth++) {
+            JSClassDefinition definition = new JSClassDefinition();
+            definition.className = "Depth" + depth;
+            definition.parentClass = parentClass;
+            if (depth == deepest) {
+                definition.initialize = new JSObjectInitializeCallback() {
+                    public void initialize(JSContextRef ctx, JSObjectRef object) {
+                        calls.append("initialize ");
+                    }
+                };
+                definition.getProperty = new JSObjectGetPropertyCallback() {
+                    public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                                String propertyName, Pointer exception) {
+                        calls.append("getProperty ");
+                        return propertyName.equals("depth") ? jsc.JSValueMakeNumber(ctx, deepest) : null;
+                    }
+                };
+                definition.finalize = new JSObjectFinalizeCallback() {
+                    public void finalize(JSObjectRef object) {
+                        calls.append("finalize");
+                    }
+                };
+            }
+            parentClass = jsc.JSClassCreate(definition);
+        }
+
+        JSObjectRef object = jsc.JSObjectMake(context, parentClass);
+        assertEquals(deepest, jsc.JSObjectGetProperty(context, object, "depth", null).toInt());
+        jsc.JSGlobalContextRelease(context);
+        assertEquals("initialize getProperty finalize", calls.toString());
+    }
+
+    @Test
+    public void testMakeCallbacksPartitionedByContextGroup() throws Exception {
+        final JSObjectCallAsFunctionCallback callback = new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, argumentCount);
+            }
+        };
+        final JSVirtualMachine[] vms = new JSVirtualMachine[4];
+        final Throwable[] errors = new Throwable[vms.length];
+        Thread[] threads = new Thread[vms.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        JSVirtualMachine worker = new JSVirtualMachine();
+                        JSGlobalContextRef context = worker.getDefaultContext();
+                        JSObjectRef globalObject = jsc.JSContextGetGlobalObject(context);
+                        for (int n = 0; n < 100; n++) {
+                            JSObjectRef f = jsc.JSObjectMakeFunctionWithCallback(context, "f" + n, callback);
+                            jsc.JSObjectSetProperty(context, globalObject, "f" + n, f, JSPropertyAttribute.None, null);
+                        }
+                        assertEquals(3, context.evaluateScript("f99(1, 2, 3)").toInt());
+                        vms[index] = worker;
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            if (errors[i] != null) throw new AssertionError(errors[i]);
+        }
+
+        long group = vms[0].getContextGroupRef().pointer();
+        assertTrue(JSClassDefinition.getMakeCallbackCount(group) >= 100);
+        vms[0].release();
+        assertEquals(0, JSClassDefinition.getMakeCallbackCount(group));
+
+        // other virtual machines keep their callbacks
+        assertEquals(2, vms[1].getDefaultContext().evaluateScript("f0(1, 2)").toInt());
+        for (int i = 1; i < vms.length; i++) {
+            vms[i].release();
+        }
+    }
+
+    @Test
+    public void testStaticFunctionSlots() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JSClassDefinition definition = new JSClassDefinition();
+        JSStaticFunctions staticFunctions = new JSStaticFunctions();
+        int available = JSStaticFunctions.getAvailableSlotCount();
+        staticFunctions.add("one", new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, 1);
+            }
+        }, JSPropertyAttribute.None);
+        staticFunctions.add("two", new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, 2);
+            }
+        }, JSPropertyAttribute.None);
+        definition.staticFunctions = staticFunctions;
+
+        JSClassRef jsClass = jsc.JSClassCreate(definition);
+        assertEquals(available - 2, JSStaticFunctions.getAvailableSlotCount());
+
+        // every new object dispatches to the function of its slot
+        for (int i = 0; i < 100; i++) {
+            JSObjectRef jsObj = jsc.JSObjectMake(context, jsClass);
+            JSObjectRef one = jsc.JSValueToObject(context, jsc.JSObjectGetProperty(context, jsObj, "one", null), null);
+            JSObjectRef two = jsc.JSValueToObject(context, jsc.JSObjectGetProperty(context, jsObj, "two", null), null);
+            assertEquals(2, jsc.JSObjectCallAsFunction(context, two, jsObj, JSValueArrayRef.EMPTY, null).toInt());
+            assertEquals(1, jsc.JSObjectCallAsFunction(context, one, jsObj, JSValueArrayRef.EMPTY, null).toInt());
+        }
+
+        // slots of a created class are kept for its objects, they are not reused by another class
+        JSObjectRef jsObj = jsc.JSObjectMake(context, jsClass);
+        staticFunctions.dispose();
+        assertEquals(available - 2, JSStaticFunctions.getAvailableSlotCount());
+        JSStaticFunctions otherFunctions = new JSStaticFunctions();
+        otherFunctions.add("one", new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, 100);
+            }
+        }, JSPropertyAttribute.None);
+        JSClassDefinition otherDefinition = new JSClassDefinition();
+        otherDefinition.staticFunctions = otherFunctions;
+        JSClassRef otherClass = jsc.JSClassCreate(otherDefinition);
+        JSObjectRef one = jsc.JSValueToObject(context, jsc.JSObjectGetProperty(context, jsObj, "one", null), null);
+        assertEquals(1, jsc.JSObjectCallAsFunction(context, one, jsObj, JSValueArrayRef.EMPTY, null).toInt());
+        JSObjectRef otherObj = jsc.JSObjectMake(context, otherClass);
+        JSObjectRef otherOne = jsc.JSValueToObject(context, jsc.JSObjectGetProperty(context, otherObj, "one", null), null);
+        assertEquals(100, jsc.JSObjectCallAsFunction(context, otherOne, otherObj, JSValueArrayRef.EMPTY, null).toInt());
+
+        // functions that have never been passed to JSClassCreate release their slots
+        JSStaticFunctions unused = new JSStaticFunctions();
+        unused.add("unused", new JSObjectCallAsFunctionCallback() {
+            public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef function,
+                        JSObjectRef thisObject, int argumentCount,
+                        JSValueArrayRef arguments, Pointer exception) {
+                return null;
+            }
+        }, JSPropertyAttribute.None);
+        unused.commit();
+        assertEquals(available - 4, JSStaticFunctions.getAvailableSlotCount());
+        unused.dispose();
+        assertEquals(available - 3, JSStaticFunctions.getAvailableSlotCount());
+    }
+
+    @Test
+    public void testStaticValueSlots() {
+        JSGlobalContextRef context = vm.getDefaultContext();
+        final double[] fields = new double[2];
+        JSClassDefinition definition = new JSClassDefinition();
+        JSStaticValues staticValues = new JSStaticValues();
+        int available = JSStaticValues.getAvailableSlotCount();
+        for (int i = 0; i < fields.length; i++) {
+            final int index = i;
+            final String name = "field" + i;
+            staticValues.add(name, new JSObjectGetPropertyCallback() {
+                public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                        String propertyName, Pointer exception) {
+                    assertEquals(name, propertyName);
+                    return jsc.JSValueMakeNumber(ctx, fields[index]);
+                }
+            }, new JSObjectSetPropertyCallback() {
+                public boolean setProperty(JSContextRef ctx, JSObjectRef object,
+                            String propertyName, JSValueRef value, Pointer exception) {
+                    assertEquals(name, propertyName);
+                    fields[index] = value.toDouble();
+                    return true;
+                }
+            }, JSPropertyAttribute.None);
+        }
+        definition.staticValues = staticValues;
+
+        JSClassRef jsClass = jsc.JSClassCreate(definition);
+        assertEquals(available - 2, JSStaticValues.getAvailableSlotCount());
+
+        JSObjectRef jsObj = jsc.JSObjectMake(context, jsClass);
+        jsc.JSObjectSetProperty(context, jsObj, "field0", jsc.JSValueMakeNumber(context, 10), JSPropertyAttribute.None, null);
+        jsc.JSObjectSetProperty(context, jsObj, "field1", jsc.JSValueMakeNumber(context, 20), JSPropertyAttribute.None, null);
+        assertEquals(10, jsc.JSObjectGetProperty(context, jsObj, "field0", null).toInt());
+        assertEquals(20, jsc.JSObjectGetProperty(context, jsObj, "field1", null).toInt());
+
+        // slots of a created class are kept for its objects, they are not reused by another class
+        staticValues.dispose();
+        assertEquals(available - 2, JSStaticValues.getAvailableSlotCount());
+        JSStaticValues otherValues = new JSStaticValues();
+        otherValues.add("field0", new JSObjectGetPropertyCallback() {
+            public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                    String propertyName, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, -1);
+            }
+        }, null, JSPropertyAttribute.None);
+        JSClassDefinition otherDefinition = new JSClassDefinition();
+        otherDefinition.staticValues = otherValues;
+        JSObjectRef otherObj = jsc.JSObjectMake(context, jsc.JSClassCreate(otherDefinition));
+        assertEquals(10, jsc.JSObjectGetProperty(context, jsObj, "field0", null).toInt());
+        assertEquals(-1, jsc.JSObjectGetProperty(context, otherObj, "field0", null).toInt());
+
+        // values that have never been passed to JSClassCreate release their slots
+        JSStaticValues unused = new JSStaticValues();
+        unused.add("unused", new JSObjectGetPropertyCallback() {
+            public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                    String propertyName, Pointer exception) {
+                return null;
+            }
+        }, null, JSPropertyAttribute.None);
+        unused.commit();
+        assertEquals(available - 4, JSStaticValues.getAvailableSlotCount());
+        unused.dispose();
+        assertEquals(available - 3, JSStaticValues.getAvailableSlotCount());
+    }
+
+    @Test
+    public void testContextPool() throws Exception {
+        JSContextPool pool = new JSContextPool(vm, null, 2, "var bootstrapped = 42;");
+        assertEquals(2, pool.getIdleCount());
+        pool.setMaxUses(2);
+
+        JSGlobalContextRef context = pool.lease();
+        assertEquals(42, jsc.JSEvaluateScript(context, "bootstrapped", null).toInt());
+        jsc.JSEvaluateScript(context, "leaked = 1; var declared = 2;", null);
+        assertEquals(1, pool.getLeasedCount());
+        pool.release(context);
+
+        // globals defined by the previous lease are reset
+        JSGlobalContextRef again = pool.lease();
+        assertEquals(context.pointer(), again.pointer());
+        assertTrue(jsc.JSEvaluateScript(again, "typeof leaked", null).toString().equals("undefined"));
+        assertTrue(jsc.JSEvaluateScript(again, "typeof declared", null).toString().equals("undefined"));
+        assertEquals(42, jsc.JSEvaluateScript(again, "bootstrapped", null).toInt());
+        pool.release(again);
+
+        // context has been retired after maxUses
+        assertEquals(1, pool.getRetiredCount());
+        assertEquals(2, pool.getIdleCount());
+        JSGlobalContextRef first  = pool.lease();
+        JSGlobalContextRef second = pool.lease();
+        assertNull(pool.lease(10, TimeUnit.MILLISECONDS));
+        assertTrue(pool.getOccupancy() == 1.0);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(5, pool.getLeaseCount());
+        assertTrue(pool.getMaxLeaseWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+        pool.close();
+
+        // closed pool fails at once instead of waiting for a context
+        long start = System.nanoTime();
+        try {
+            pool.lease();
+            fail("Closed pool should not lease contexts");
+        } catch (IllegalStateException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        }
+    }
+
+    @Test
+    public void testContextPoolRecreatesRetiredContext() throws Exception {
+        final boolean[] failBootstrap = new boolean[1];
+        JSClassDefinition definition = new JSClassDefinition();
+        definition.getProperty = new JSObjectGetPropertyCallback() {
+            public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object,
+                                        String propertyName, Pointer exception) {
+                if (propertyName.equals("failBootstrap")) return jsc.JSValueMakeBoolean(ctx, failBootstrap[0]);
+                return null;
+            }
+        };
+        JSClassRef globalClass = jsc.JSClassCreate(definition);
+        JSContextPool pool = new JSContextPool(vm, globalClass, 1, "if (failBootstrap) throw 'failed';");
+        pool.setMaxUses(1);
+
+        // replacement of the retired context fails to bootstrap
+        JSGlobalContextRef context = pool.lease();
+        failBootstrap[0] = true;
+        try {
+            pool.release(context);
+            fail("Bootstrap should fail");
+        } catch (JavaScriptException e) {
+            // expected
+        }
+        assertEquals(0, pool.getIdleCount());
+        try {
+            pool.lease(10, TimeUnit.MILLISECONDS);
+            fail("Bootstrap should fail");
+        } catch (JavaScriptException e) {
+            // expected
+        }
+
+        // the next lease creates the missing context
+        failBootstrap[0] = false;
+        context = pool.lease();
+        assertEquals(1, pool.getLeasedCount());
+        pool.release(context);
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(2, pool.getRetiredCount());
+        pool.close();
+    }
+
+    @Test
+    public void testExecutorAffinityAndLoadBalancing() throws Exception {
+        JSExecutor executor = new JSExecutor(4, new JSExecutor.Task<Void>() {
+            public Void run(JSVirtualMachine vm) {
+                jsc.JSEvaluateScript(vm.getDefaultContext(), "var counter = 0;", null);
+                return null;
+            }
+        });
+        JSExecutor.Task<Integer> increment = new JSExecutor.Task<Integer>() {
+            public Integer run(JSVirtualMachine vm) {
+                assertTrue(Thread.currentThread().getName().startsWith("JSExecutor-"));
+                return jsc.JSEvaluateScript(vm.getDefaultContext(), "++counter", null).toInt();
+            }
+        };
+
+        // tasks of the same key share the state of one virtual machine
+        List<CompletableFuture<Integer>> results = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            results.add(executor.submit("tenant", increment));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, results.get(i).get(10, TimeUnit.SECONDS).intValue());
+        }
+
+        results.clear();
+        for (int i = 0; i < 1000; i++) {
+            results.add(executor.submit(increment));
+        }
+        for (CompletableFuture<Integer> result : results) {
+            assertTrue(result.get(10, TimeUnit.SECONDS) > 0);
+        }
+        assertEquals(1100, executor.getCompletedTaskCount());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        try {
+            executor.submit(increment).get();
+            fail("tasks should be rejected after shutdown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testExecutorShutdownWhileSubmitting() throws Exception {
+        final JSExecutor executor = new JSExecutor(2);
+        final JSExecutor.Task<Integer> task = new JSExecutor.Task<Integer>() {
+            public Integer run(JSVirtualMachine vm) {
+                return 1;
+            }
+        };
+        final List<CompletableFuture<?>> results = new ArrayList<CompletableFuture<?>>();
+        Thread submitter = new Thread() {
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    CompletableFuture<?> result = i % 2 == 0 ? executor.submit(task) : executor.evaluateScript(null, "1", null);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            }
+        };
+        submitter.start();
+        Thread.sleep(1);
+        executor.shutdown();
+        submitter.join();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        // every task is either run or rejected, none is left behind
+        synchronized (results) {
+            for (CompletableFuture<?> result : results) {
+                assertTrue(result.isDone());
+            }
+        }
+    }
+
+    @Test
+    public void testExecutionTimeLimit() {
+        // scripts are never terminated by the watchdog of WatchdogNone.cpp
+        assumeTrue(JavaScriptCoreLibrary.isExecutionTimeLimitSupported());
+        JSGlobalContextRef context = vm.getDefaultContext();
+        try {
+            vm.evaluateScript(context, "while (true) {}", "loop.js", 0.1);
+            fail("Infinite loop should be terminated");
+        } catch (JavaScriptTerminatedException e) {
+            // expected
+        }
+        assertTrue(vm.getExecutionTimeLimit() == 0);
+        // context is usable after termination
+        assertEquals(3, vm.evaluateScript(context, "1 + 2", null, 1).toInt());
+        try {
+            vm.evaluateScript(context, "throw 'error'", null, 1);
+            fail("Exception should be thrown");
+        } catch (JavaScriptTerminatedException e) {
+            fail("Script should not be terminated");
+        } catch (JavaScriptException e) {
+            assertEquals("error", e.getValue().toString());
+        }
+
+        // callback gives the script another period before it is terminated
+        final int[] calls = new int[1];
+        vm.setExecutionTimeLimit(0.05, new JSShouldTerminateCallback() {
+            public boolean shouldTerminate(JSContextRef ctx) {
+                return ++calls[0] >= 3;
+            }
+        });
+        JSValueRef exception = JSValueRef.Null();
+        jsc.JSEvaluateScript(context, "while (true) {}", null, null, 1, exception);
+        assertFalse(jsc.JSValueIsNull(context, exception));
+        assertEquals(3, calls[0]);
+        vm.clearExecutionTimeLimit();
+        assertEquals(2, jsc.JSEvaluateScript(context, "1 + 1", null).toInt());
+    }
+
+    @Test
+    public void testExecutorAsyncEvaluation() throws Exception {
+        JSExecutor executor = new JSExecutor(1);
+        assertEquals(3.0, executor.evaluateScript(null, "1 + 2", null).get(10, TimeUnit.SECONDS));
+        assertEquals("{\"a\":1}", executor.evaluateScript(null, "({a: 1})", null).get(10, TimeUnit.SECONDS));
+        assertNull(executor.evaluateScript(null, "function add(a, b) { return a + b; }", null).get(10, TimeUnit.SECONDS));
+        assertEquals("ab", executor.callFunction(null, "add", "a", "b").get(10, TimeUnit.SECONDS));
+        assertEquals(5.0, executor.callFunction(null, "add", 2, 3).get(10, TimeUnit.SECONDS));
+        try {
+            executor.evaluateScript(null, "throw new Error('failed')", null).get(10, TimeUnit.SECONDS);
+            fail("Exception should be thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JavaScriptException);
+            assertEquals("Error: failed", e.getCause().getMessage());
+        }
+
+        // evaluations queued while the worker is busy are run by one task
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.submit(new JSExecutor.Task<Void>() {
+            public Void run(JSVirtualMachine vm) throws Exception {
+                latch.await();
+                return null;
+            }
+        });
+        long batches = executor.getBatchCount();
+        List<CompletableFuture<Object>> results = new ArrayList<CompletableFuture<Object>>();
+        for (int i = 0; i < 100; i++) {
+            results.add(executor.evaluateScript(null, String.valueOf(i), null));
+        }
+        latch.countDown();
+        for (int i = 0; i < 100; i++) {
+            assertEquals((double)i, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(batches + 1, executor.getBatchCount());
+
+        // contexts created by a task are evaluated on the worker of the same key
+        JSGlobalContextRef context = executor.submit("key", new JSExecutor.Task<JSGlobalContextRef>() {
+            public JSGlobalContextRef run(JSVirtualMachine vm) {
+                return vm.createContext();
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertNull(context.evaluateScript(executor, "key", "var x = 40").get(10, TimeUnit.SECONDS));
+        assertEquals(42.0, context.evaluateScript(executor, "key", "x + 2", "x.js").get(10, TimeUnit.SECONDS));
+        try {
+            vm.getDefaultContext().evaluateScript(executor, "key", "1").get(10, TimeUnit.SECONDS);
+            fail("Context of other virtual machine should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+
+        // cancellation terminates the running script, only the future is completed without the watchdog
+        if (JavaScriptCoreLibrary.isExecutionTimeLimitSupported()) {
+            CompletableFuture<Object> loop = executor.evaluateScript(null, "while (true) {}", null);
+            Thread.sleep(100);
+            assertTrue(loop.cancel(true));
+            try {
+                loop.get();
+                fail("Evaluation should be cancelled");
+            } catch (CancellationException e) {
+                // expected
+            }
+            assertEquals(2.0, executor.evaluateScript(null, "1 + 1", null).get(10, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecutorCall() throws Exception {
+        final JSExecutor executor = new JSExecutor(2);
+        final JSExecutor.Task<Integer> evaluate = new JSExecutor.Task<Integer>() {
+            public Integer run(JSVirtualMachine vm) {
+                assertTrue(executor.inWorkerThread());
+                return jsc.JSEvaluateScript(vm.getDefaultContext(), "6 * 7", null).toInt();
+            }
+        };
+        assertFalse(JSExecutor.isVirtual(Thread.currentThread()));
+        assertEquals(42, executor.call("key", evaluate).intValue());
+        assertEquals(1, executor.getHandoffCount());
+        assertTrue(executor.getAverageHandoffNanos() > 0);
+        assertTrue(executor.getMaxHandoffNanos() >= executor.getAverageHandoffNanos());
+
+        // workers run the task at once instead of waiting for themselves
+        int nested = executor.submit("key", new JSExecutor.Task<Integer>() {
+            public Integer run(JSVirtualMachine vm) throws Exception {
+                return executor.call("key", evaluate);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertEquals(42, nested);
+        assertEquals(1, executor.getHandoffCount());
+
+        try {
+            executor.call(null, new JSExecutor.Task<Void>() {
+                public Void run(JSVirtualMachine vm) throws Exception {
+                    throw new IOException("failed");
+                }
+            });
+            fail("Exception of the task should be rethrown");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(2, executor.getHandoffCount());
+        assertEquals(0, executor.getVirtualThreadCallCount());
+        executor.resetHandoffCounters();
+        assertEquals(0, executor.getHandoffCount());
+
+        // a worker never waits for another worker
+        assertTrue(executor.workerIndex(0) != executor.workerIndex(1));
+        try {
+            executor.submit(0, new JSExecutor.Task<Integer>() {
+                public Integer run(JSVirtualMachine vm) throws Exception {
+                    return executor.call(1, evaluate);
+                }
+            }).get(10, TimeUnit.SECONDS);
+            fail("Call to the worker of other key should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecutorVirtualThreadCall() throws Exception {
+        // Thread.startVirtualThread of Java 21
+        java.lang.reflect.Method startVirtualThread = null;
+        try {
+            startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            // no virtual threads
+        }
+        assumeTrue(startVirtualThread != null);
+
+        final JSExecutor executor = new JSExecutor(2);
+        final JSExecutorLibrary library = new JSExecutorLibrary(executor);
+        // context created by a worker, whose function records the thread it is called on
+        final Thread[] threads = new Thread[2];
+        final JSGlobalContextRef context = executor.submit("owner", new JSExecutor.Task<JSGlobalContextRef>() {
+            public JSGlobalContextRef run(JSVirtualMachine vm) {
+                threads[0] = Thread.currentThread();
+                JSGlobalContextRef created = vm.createContext();
+                JSObjectRef where = jsc.JSObjectMakeFunctionWithCallback(created, "where", new JSObjectCallAsFunctionCallback() {
+                    public JSValueRef callAsFunction(JSContextRef ctx, JSObjectRef func, JSObjectRef thisObject,
+                                                        int argumentCount, JSValueArrayRef arguments, Pointer exception) {
+                        threads[1] = Thread.currentThread();
+                        return jsc.JSValueMakeNumber(ctx, 6);
+                    }
+                });
+                jsc.JSObjectSetProperty(created, jsc.JSContextGetGlobalObject(created), "where", where, JSPropertyAttribute.DontEnum, null);
+                return created;
+            }
+        }).get(10, TimeUnit.SECONDS);
+        final JSGlobalContextRef foreign = vm.getDefaultContext();
+        final Object[] results = new Object[4];
+        Thread thread = (Thread)startVirtualThread.invoke(null, new Runnable() {
+            public void run() {
+                try {
+                    results[0] = JSExecutor.isVirtual(Thread.currentThread());
+                    results[1] = library.JSEvaluateScript(context, "where() * 7", null).toInt();
+                    JSValueRef exception = JSValueRef.Null();
+                    library.JSEvaluateScript(context, "throw 'error'", null, null, 1, exception);
+                    results[2] = exception.toString();
+                    try {
+                        library.JSEvaluateScript(foreign, "1", null);
+                    } catch (IllegalArgumentException e) {
+                        results[3] = e;
+                    }
+                } catch (Throwable e) {
+                    results[0] = e;
+                }
+            }
+        });
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        assertEquals(Boolean.TRUE, results[0]);
+        assertEquals(42, results[1]);
+        assertEquals("error", results[2]);
+        // contexts of no worker are rejected
+        assertTrue(results[3] instanceof IllegalArgumentException);
+        // both calls ran on the worker that owns the context
+        assertTrue(threads[1] == threads[0]);
+        assertEquals(2, executor.getHandoffCount());
+        assertEquals(2, executor.getVirtualThreadCallCount());
+
+        // platform threads call JavaScriptCoreLibrary directly on their own contexts
+        assertEquals(3, library.JSEvaluateScript(foreign, "1 + 2", null).toInt());
+        assertEquals(2, executor.getHandoffCount());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
     private String createStringWithContentsOfFile(String fileName) {
         String newline = System.getProperty("line.separator");
         StringBuilder sb = new StringBuilder();
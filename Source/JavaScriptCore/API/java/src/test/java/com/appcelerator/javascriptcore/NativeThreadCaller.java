@@ -0,0 +1,25 @@
+package com.appcelerator.javascriptcore;
+
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+
+/*
+ * Calls JS functions from threads created by pthread, which JVM doesn't know until the first
+ * callback attaches them. Backed by the JavaScriptCoreTestJNI library that is built for tests only.
+ */
+public class NativeThreadCaller {
+
+    static {
+        System.loadLibrary("JavaScriptCoreTestJNI");
+    }
+
+    /*
+     * Calls the function on a new pthread and waits until the thread has exited,
+     * returns false if the thread could not be created
+     */
+    public static boolean call(JSContextRef context, JSObjectRef function, int times) {
+        return NativeCallFunctionOnNativeThread(context.pointer(), function.pointer(), times);
+    }
+
+    private static native boolean NativeCallFunctionOnNativeThread(long jsContextRef, long jsObjectRef, int times);
+}
@@ -0,0 +1,82 @@
+package com.appcelerator.javascriptcore.benchmark;
+
+import com.appcelerator.javascriptcore.JSVirtualMachine;
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+import com.appcelerator.javascriptcore.enums.JSPropertyAttribute;
+import com.appcelerator.javascriptcore.callbacks.JSObjectGetPropertyCallback;
+import com.appcelerator.javascriptcore.callbacks.JSObjectSetPropertyCallback;
+import com.appcelerator.javascriptcore.opaquetypes.JSClassDefinition;
+import com.appcelerator.javascriptcore.opaquetypes.JSClassRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSGlobalContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSObjectRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+import com.appcelerator.javascriptcore.opaquetypes.Pointer;
+
+/*
+ * Measures property get and set upcalls on objects whose class hierarchy is 1 to 16 classes deep
+ * (JavaScriptCoreLibrary.numberOfPrototypeHierarchy). Only the root class has the callbacks,
+ * so every upcall is dispatched through the whole parentClass chain.
+ *
+ * Run with the native library on java.library.path:
+ *   java -cp <classes> com.appcelerator.javascriptcore.benchmark.ClassHierarchyDispatchBenchmark [iterations]
+ */
+public class ClassHierarchyDispatchBenchmark {
+
+    private static double sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        JSVirtualMachine vm = new JSVirtualMachine();
+        JSGlobalContextRef context = vm.getDefaultContext();
+        JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+        JSValueRef value = jsc.JSValueMakeNumber(context, 1);
+
+        for (int depth = 1; depth <= JavaScriptCoreLibrary.numberOfPrototypeHierarchy; depth++) {
+            JSObjectRef object = jsc.JSObjectMake(context, createHierarchy(jsc, depth));
+
+            // warm up
+            run(jsc, context, object, value, iterations / 10);
+
+            long start = System.nanoTime();
+            run(jsc, context, object, value, iterations);
+            long nanos = System.nanoTime() - start;
+            System.out.println(String.format("depth %2d: %d ns/upcall", depth, nanos / (iterations * 2L)));
+        }
+        vm.release();
+        if (sink == 42) System.out.println();
+    }
+
+    private static void run(JavaScriptCoreLibrary jsc, JSContextRef context, JSObjectRef object, JSValueRef value, int iterations) {
+        double sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            jsc.JSObjectSetProperty(context, object, "value", value, JSPropertyAttribute.None, null);
+            sum += jsc.JSObjectGetProperty(context, object, "value", null).toDouble();
+        }
+        sink += sum;
+    }
+
+    private static JSClassRef createHierarchy(final JavaScriptCoreLibrary jsc, int depth) {
+        JSClassDefinition root = new JSClassDefinition();
+        root.className = "Depth0";
+        root.getProperty = new JSObjectGetPropertyCallback() {
+            public JSValueRef getProperty(JSContextRef ctx, JSObjectRef object, String propertyName, Pointer exception) {
+                return jsc.JSValueMakeNumber(ctx, 1);
+            }
+        };
+        root.setProperty = new JSObjectSetPropertyCallback() {
+            public boolean setProperty(JSContextRef ctx, JSObjectRef object, String propertyName, JSValueRef value, Pointer exception) {
+                return true;
+            }
+        };
+        JSClassRef jsClass = jsc.JSClassCreate(root);
+        for (int i = 1; i < depth; i++) {
+            JSClassDefinition definition = new JSClassDefinition();
+            definition.className = "Depth" + i;
+            definition.parentClass = jsClass;
+            jsClass = jsc.JSClassCreate(definition);
+        }
+        return jsClass;
+    }
+}
@@ -0,0 +1,78 @@
+package com.appcelerator.javascriptcore.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.appcelerator.javascriptcore.JSExecutor;
+import com.appcelerator.javascriptcore.JSVirtualMachine;
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+
+/*
+ * Measures throughput of a CPU bound script on JSExecutor with 1 to the number of cores
+ * worker threads. Every worker owns its virtual machine, so throughput should grow with
+ * the number of workers until the cores are saturated.
+ * Then measures the overhead of handing a task to a worker by call() and waiting for it.
+ *
+ * Run with the native library on java.library.path:
+ *   java -cp <classes> com.appcelerator.javascriptcore.benchmark.JSExecutorBenchmark [tasks]
+ */
+public class JSExecutorBenchmark {
+
+    private static final String SCRIPT = "var s = 0; for (var i = 0; i < 100000; i++) { s += i % 7; } s";
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+        JSExecutor.Task<Double> task = new JSExecutor.Task<Double>() {
+            public Double run(JSVirtualMachine vm) {
+                return jsc.JSEvaluateScript(vm.getDefaultContext(), SCRIPT, null).toDouble();
+            }
+        };
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            JSExecutor executor = new JSExecutor(threads);
+            run(executor, task, tasks / 10);
+
+            long start = System.nanoTime();
+            run(executor, task, tasks);
+            double perSecond = tasks * 1e9 / (System.nanoTime() - start);
+            if (threads == 1) single = perSecond;
+            System.out.println(String.format("%3d threads: %8.0f tasks/s (x%.2f)", threads, perSecond, perSecond / single));
+
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        JSExecutor executor = new JSExecutor(1);
+        JSExecutor.Task<Void> empty = new JSExecutor.Task<Void>() {
+            public Void run(JSVirtualMachine vm) {
+                return null;
+            }
+        };
+        for (int i = 0; i < tasks; i++) {
+            executor.call(null, empty);
+        }
+        executor.resetHandoffCounters();
+        for (int i = 0; i < tasks; i++) {
+            executor.call(null, empty);
+        }
+        System.out.println(String.format("call() handoff: %d ns average, %d ns max",
+                executor.getAverageHandoffNanos(), executor.getMaxHandoffNanos()));
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private static void run(JSExecutor executor, JSExecutor.Task<Double> task, int tasks) throws Exception {
+        List<CompletableFuture<Double>> results = new ArrayList<CompletableFuture<Double>>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            results.add(executor.submit(task));
+        }
+        for (CompletableFuture<Double> result : results) {
+            result.get();
+        }
+    }
+}
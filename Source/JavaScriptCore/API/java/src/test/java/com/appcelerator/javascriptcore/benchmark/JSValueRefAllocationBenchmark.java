@@ -0,0 +1,114 @@
+package com.appcelerator.javascriptcore.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import com.appcelerator.javascriptcore.JSVirtualMachine;
+import com.appcelerator.javascriptcore.JavaScriptCoreLibrary;
+import com.appcelerator.javascriptcore.opaquetypes.JSGlobalContextRef;
+import com.appcelerator.javascriptcore.opaquetypes.JSValueRef;
+import com.appcelerator.javascriptcore.opaquetypes.Pointer;
+
+/*
+ * Measures allocation and time to wrap native values in JSValueRef and read the address back.
+ * The legacy layout (wrapper + Pointer + per-instance library field) is reproduced by LegacyValueRef
+ * so that both layouts are compared in the same run.
+ *
+ * Run with the native library on java.library.path:
+ *   java -cp <classes> com.appcelerator.javascriptcore.benchmark.JSValueRefAllocationBenchmark [iterations]
+ */
+public class JSValueRefAllocationBenchmark {
+
+    private static class LegacyValueRef {
+        protected Pointer pointer;
+        protected JavaScriptCoreLibrary jsc = JavaScriptCoreLibrary.getInstance();
+        protected Object context;
+
+        LegacyValueRef(Object context, long pointer) {
+            this.pointer = new Pointer(pointer);
+            this.context = context;
+        }
+
+        long p() {
+            return pointer == Pointer.NULL ? 0 : pointer.value();
+        }
+    }
+
+    private static long sink;
+    // Handles are stored here so that escape analysis can not remove the allocation
+    private static final Object[] retained = new Object[1024];
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+
+        JSVirtualMachine vm = new JSVirtualMachine();
+        JSGlobalContextRef context = vm.getDefaultContext();
+        long value = context.evaluateScript("1").p();
+
+        for (int round = 0; round < 3; round++) {
+            long[] legacy  = runLegacy(context, value, iterations);
+            long[] current = runCurrent(context, value, iterations);
+            System.out.println(String.format("round %d: legacy %d ns, %s bytes/value; flattened %d ns, %s bytes/value",
+                round, legacy[0] / iterations, bytesPerValue(legacy[1], iterations),
+                current[0] / iterations, bytesPerValue(current[1], iterations)));
+        }
+        vm.release();
+        if (sink == 42) System.out.println();
+    }
+
+    private static long[] runLegacy(final JSGlobalContextRef context, final long value, final int iterations) {
+        return measure(new Runnable() {
+            public void run() {
+                long sum = 0;
+                for (int i = 0; i < iterations; i++) {
+                    LegacyValueRef ref = new LegacyValueRef(context, value + (i & 1));
+                    retained[i & 1023] = ref;
+                    sum += ref.p();
+                }
+                sink += sum;
+            }
+        });
+    }
+
+    private static long[] runCurrent(final JSGlobalContextRef context, final long value, final int iterations) {
+        return measure(new Runnable() {
+            public void run() {
+                long sum = 0;
+                for (int i = 0; i < iterations; i++) {
+                    JSValueRef ref = new JSValueRef(context, value + (i & 1));
+                    retained[i & 1023] = ref;
+                    sum += ref.p();
+                }
+                sink += sum;
+            }
+        });
+    }
+
+    /*
+     * Returns elapsed nanoseconds and allocated bytes of the current thread, or -1 bytes if the VM can not tell
+     */
+    private static long[] measure(Runnable task) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        task.run();
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes();
+        return new long[] { nanos, bytes < 0 || allocated < 0 ? -1 : allocated - bytes };
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Method method = bean.getClass().getMethod("getThreadAllocatedBytes", long.class);
+            method.setAccessible(true);
+            return (Long)method.invoke(bean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static String bytesPerValue(long bytes, int iterations) {
+        return bytes < 0 ? "n/a" : String.format("%.1f", (double)bytes / iterations);
+    }
+}
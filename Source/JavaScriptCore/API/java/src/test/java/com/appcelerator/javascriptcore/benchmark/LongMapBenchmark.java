@@ -0,0 +1,119 @@
+package com.appcelerator.javascriptcore.benchmark;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import com.appcelerator.javascriptcore.util.LongObjectMap;
+import com.appcelerator.javascriptcore.util.LongSparseArray;
+
+/*
+ * Compares LongObjectMap with LongSparseArray and HashMap<Long, Object> for 10^2 to 10^6
+ * mappings whose keys look like JS object pointers. Each round adds all keys, looks them up
+ * and removes them, which is what the callback maps see while objects are created and finalized.
+ * LongSparseArray is measured up to 10^5 mappings, it takes minutes for 10^6.
+ *
+ * Pure Java, does not need the native library:
+ *   java -cp <classes> com.appcelerator.javascriptcore.benchmark.LongMapBenchmark [rounds]
+ */
+public class LongMapBenchmark {
+
+    private static final int MAX_SPARSE_ARRAY_SIZE = 100000;
+    private static long sink;
+
+    private interface Map {
+        void put(long key, Object value);
+        Object get(long key);
+        void remove(long key);
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        System.out.println("      size   LongObjectMap  LongSparseArray  HashMap<Long>   (ns/operation)");
+        for (int size = 100; size <= 1000000; size *= 10) {
+            long[] keys = createKeys(size);
+            int repeat = Math.max(1, 1000000 / size);
+            System.out.println(String.format("%10d %15s %16s %14s", size,
+                    measure(newLongObjectMap(), keys, rounds, repeat),
+                    size <= MAX_SPARSE_ARRAY_SIZE ? measure(newLongSparseArray(), keys, rounds, repeat) : "-",
+                    measure(newHashMap(), keys, rounds, repeat)));
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    /*
+     * Shuffled addresses of objects that are 64 bytes apart
+     */
+    private static long[] createKeys(int size) {
+        long[] keys = new long[size];
+        long base = 0x7f0000000000L;
+        for (int i = 0; i < size; i++) {
+            keys[i] = base + i * 64L;
+        }
+        Random random = new Random(size);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+        return keys;
+    }
+
+    private static String measure(Map map, long[] keys, int rounds, int repeat) {
+        // warm up
+        run(map, keys, 1);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            run(map, keys, repeat);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return String.valueOf(best / (keys.length * 3L * repeat));
+    }
+
+    private static void run(Map map, long[] keys, int repeat) {
+        Object value = new Object();
+        long found = 0;
+        for (int r = 0; r < repeat; r++) {
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], value);
+            }
+            for (int i = keys.length - 1; i >= 0; i--) {
+                if (map.get(keys[i]) != null) found++;
+            }
+            for (int i = 0; i < keys.length; i++) {
+                map.remove(keys[i]);
+            }
+        }
+        sink += found;
+    }
+
+    private static Map newLongObjectMap() {
+        final LongObjectMap<Object> map = new LongObjectMap<Object>();
+        return new Map() {
+            public void put(long key, Object value) { map.put(key, value); }
+            public Object get(long key) { return map.get(key); }
+            public void remove(long key) { map.remove(key); }
+        };
+    }
+
+    private static Map newLongSparseArray() {
+        final LongSparseArray<Object> map = new LongSparseArray<Object>();
+        return new Map() {
+            public void put(long key, Object value) { map.put(key, value); }
+            public Object get(long key) { return map.get(key); }
+            public void remove(long key) { map.remove(key); }
+        };
+    }
+
+    private static Map newHashMap() {
+        final HashMap<Long, Object> map = new HashMap<Long, Object>();
+        return new Map() {
+            public void put(long key, Object value) { map.put(key, value); }
+            public Object get(long key) { return map.get(key); }
+            public void remove(long key) { map.remove(key); }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.appcelerator.javascriptcore.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ConcurrentLongObjectMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<String>();
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals(3, map.size());
+
+        assertEquals("uno", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertNull(map.get(2));
+
+        assertEquals("uno", map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals("zero", map.remove(0));
+        assertEquals(1, map.size());
+
+        // removed key can be added again
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.get(1));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testRehash() {
+        ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<Long>();
+        for (long i = 1; i <= 100000; i++) {
+            map.put(i * 8, i);
+        }
+        for (long i = 1; i <= 100000; i += 2) {
+            map.remove(i * 8);
+        }
+        assertEquals(50000, map.size());
+        for (long i = 1; i <= 100000; i++) {
+            assertEquals(i % 2 == 0 ? Long.valueOf(i) : null, map.get(i * 8));
+        }
+        // removed slots are dropped by rehash while the map is reused
+        for (int round = 0; round < 10; round++) {
+            for (long i = 1; i <= 100000; i += 2) {
+                map.put(i * 8 + 1, i);
+                map.remove(i * 8 + 1);
+            }
+        }
+        assertEquals(50000, map.size());
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        final ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<Long>();
+        for (long i = 1; i <= 1000; i++) {
+            map.put(i, i);
+        }
+        final boolean[] failed = new boolean[1];
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                public void run() {
+                    for (int round = 0; round < 200; round++) {
+                        for (long key = 1; key <= 1000; key++) {
+                            Long value = map.get(key);
+                            if (value == null || value.longValue() != key) failed[0] = true;
+                        }
+                    }
+                }
+            };
+            readers[i].start();
+        }
+        // writer adds and removes other keys while readers look up the stable keys
+        for (long key = 1001; key <= 200000; key++) {
+            map.put(key, key);
+            if (key % 3 != 0) map.remove(key);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertFalse(failed[0]);
+    }
+}
@@ -0,0 +1,29 @@
+package com.appcelerator.javascriptcore.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LongIntMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongIntMap map = new LongIntMap();
+        for (int i = 1; i <= 10000; i++) {
+            map.put(i * 64L, i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 1; i <= 10000; i += 2) {
+            assertEquals(i, map.remove(i * 64L));
+        }
+        assertEquals(5000, map.size());
+        assertEquals(5000, map.keys().length);
+        for (int i = 1; i <= 10000; i++) {
+            assertEquals(i % 2 == 0 ? i : -1, map.get(i * 64L, -1));
+            assertEquals(i % 2 == 0, map.containsKey(i * 64L));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(128, -1));
+    }
+}
@@ -0,0 +1,52 @@
+package com.appcelerator.javascriptcore.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongLongMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(0, map.put(1, 100));
+        assertEquals(0, map.put(0, 200));
+        assertEquals(100, map.put(1, 101));
+        assertEquals(2, map.size());
+
+        assertEquals(101, map.get(1, -1));
+        assertEquals(200, map.get(0, -1));
+        assertEquals(-1, map.get(2, -1));
+
+        assertEquals(101, map.remove(1));
+        assertEquals(-1, map.get(1, -1));
+        assertEquals(200, map.remove(0));
+        assertEquals(-1, map.get(0, -1));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        LongLongMap map = new LongLongMap(4);
+        HashMap<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(7);
+        for (int round = 0; round < 200000; round++) {
+            long key = random.nextInt(3000) * 8L;
+            if (random.nextInt(3) > 0) {
+                map.put(key, round);
+                expected.put(key, (long)round);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 3000 * 8L; key += 8) {
+            Long value = expected.get(key);
+            assertEquals(value == null ? -1 : value.longValue(), map.get(key, -1));
+        }
+    }
+}
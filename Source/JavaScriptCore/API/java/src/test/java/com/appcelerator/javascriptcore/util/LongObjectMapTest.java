@@ -0,0 +1,65 @@
+package com.appcelerator.javascriptcore.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals(3, map.size());
+
+        assertEquals("uno", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertNull(map.get(2));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+
+        assertEquals("uno", map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals("zero", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(1, map.size());
+
+        List<String> values = map.values();
+        assertEquals(1, values.size());
+        assertEquals("minus one", values.get(0));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(-1));
+    }
+
+    @Test
+    public void testRemoveKeepsCollidingKeys() {
+        // keys that are pointers of the same alignment, removed in random order
+        LongObjectMap<Long> map = new LongObjectMap<Long>();
+        HashMap<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(42);
+        for (int round = 0; round < 200000; round++) {
+            long key = (random.nextInt(5000) + 1) * 16L;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, key), map.put(key, key));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), map.keys().length);
+        for (long key = 16; key <= 5000 * 16L; key += 16) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}